@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.landscape.LandscapeGrid;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Measures the costs of an update of the {@link AiStatistics} after a fixed number of map changes for different map sizes. The incremental
+ * update only evaluates the changed positions, while the full evaluation (the former behavior of every update) scans the whole map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AiStatisticsBenchmark {
+	private static final int NUMBER_OF_PLAYERS = 2;
+	private static final int CHANGES_PER_UPDATE = 200;
+	private static final EResourceType[] RESOURCE_TYPES = { EResourceType.COAL, EResourceType.IRONORE, EResourceType.GOLDORE };
+
+	@Param({ "128", "512", "1024" })
+	public short mapSize;
+
+	private final Random random = new Random(0);
+	private MainGrid mainGrid;
+	private LandscapeGrid landscapeGrid;
+	private AiStatistics incrementalStatistics;
+
+	@Setup
+	public void setup() {
+		MatchConstants.init(new NetworkTimer(true), 0);
+
+		PlayerSetting[] playerSettings = new PlayerSetting[NUMBER_OF_PLAYERS];
+		for (byte playerId = 0; playerId < NUMBER_OF_PLAYERS; playerId++) {
+			playerSettings[playerId] = new PlayerSetting(playerId);
+		}
+		mainGrid = new MainGrid("benchmark", "benchmark", mapSize, mapSize, playerSettings);
+		landscapeGrid = mainGrid.getLandscapeGrid();
+
+		for (short x = 0; x < mapSize; x++) {
+			for (short y = 0; y < mapSize; y++) {
+				landscapeGrid.setLandscapeTypeAt(x, y, random.nextInt(8) == 0 ? ELandscapeType.MOUNTAIN : ELandscapeType.GRASS);
+				if (random.nextInt(4) == 0) {
+					landscapeGrid.setResourceAt(x, y, RESOURCE_TYPES[random.nextInt(RESOURCE_TYPES.length)], (byte) (1 + random.nextInt(16)));
+				}
+			}
+		}
+
+		for (byte playerId = 0; playerId < NUMBER_OF_PLAYERS; playerId++) {
+			int offset = (playerId + 1) * mapSize / (NUMBER_OF_PLAYERS + 1);
+			mainGrid.getPartitionsGrid().changePlayerAt(new ShortPoint2D(offset, offset), playerId);
+		}
+
+		incrementalStatistics = new AiStatistics(mainGrid);
+		incrementalStatistics.updateStatistics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		incrementalStatistics.dispose();
+		System.out.println("Resources and grass per player: " + Arrays.deepToString(incrementalStatistics.getAiMapInformation().resourceAndGrassCount));
+		MatchConstants.clearState();
+	}
+
+	@Benchmark
+	public AiStatistics incrementalUpdate() {
+		changeMap();
+		incrementalStatistics.updateStatistics();
+		return incrementalStatistics;
+	}
+
+	@Benchmark
+	public AiStatistics fullEvaluation() {
+		changeMap();
+		AiStatistics statistics = new AiStatistics(mainGrid);
+		statistics.updateStatistics();
+		statistics.dispose();
+		return statistics;
+	}
+
+	private void changeMap() {
+		for (int i = 0; i < CHANGES_PER_UPDATE; i++) {
+			short x = (short) random.nextInt(mapSize);
+			short y = (short) random.nextInt(mapSize);
+			if (random.nextBoolean()) {
+				landscapeGrid.setLandscapeTypeAt(x, y, random.nextBoolean() ? ELandscapeType.FLATTENED : ELandscapeType.GRASS);
+			} else {
+				landscapeGrid.setResourceAt(x, y, RESOURCE_TYPES[random.nextInt(RESOURCE_TYPES.length)], (byte) random.nextInt(16));
+			}
+		}
+	}
+}
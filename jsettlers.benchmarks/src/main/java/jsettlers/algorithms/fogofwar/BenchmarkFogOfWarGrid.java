@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.integration.replay.AutoReplaySetting;
+import jsettlers.logic.buildings.Building;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
+import jsettlers.logic.movable.Movable;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * A fog of war grid with copies of the view sources of the last reference savegame of the auto replay (a four player late game). The copies can
+ * be moved without running the game.
+ */
+final class BenchmarkFogOfWarGrid implements IFogOfWarGrid {
+	final short width;
+	final short height;
+	final byte numberOfPlayers;
+	private final ConcurrentLinkedQueue<BenchmarkViewSource> buildings = new ConcurrentLinkedQueue<BenchmarkViewSource>();
+	private final ConcurrentLinkedQueue<BenchmarkViewSource> movables = new ConcurrentLinkedQueue<BenchmarkViewSource>();
+	private final List<BenchmarkViewSource> moving = new ArrayList<BenchmarkViewSource>();
+
+	private BenchmarkFogOfWarGrid(short width, short height, byte numberOfPlayers) {
+		this.width = width;
+		this.height = height;
+		this.numberOfPlayers = numberOfPlayers;
+	}
+
+	/**
+	 * Loads the late game savegame and copies its view sources.
+	 * 
+	 * @param movingPercent
+	 *            Percentage of the movables that will be moved by {@link #moveSources(int)}.
+	 */
+	static BenchmarkFogOfWarGrid loadLateGame(int movingPercent) throws MapLoadException, IOException {
+		MatchConstants.init(new NetworkTimer(true), 0);
+
+		AutoReplaySetting setting = AutoReplaySetting.getDefaultSettings().iterator().next();
+		String savegame = setting.getReplayPath(setting.getTimeMinutes().length - 1);
+		MapLoader loader = MapLoader.getLoaderForListedMap(new MapList.ListedResourceMap(savegame));
+		PlayerSetting[] playerSettings = new PlayerSetting[loader.getMaxPlayers()];
+		Arrays.fill(playerSettings, new PlayerSetting());
+		MainGrid mainGrid = loader.loadMainGrid(playerSettings).getMainGrid();
+
+		BenchmarkFogOfWarGrid grid = new BenchmarkFogOfWarGrid(mainGrid.getWidth(), mainGrid.getHeight(), (byte) loader.getMaxPlayers());
+		for (Building building : Building.getAllBuildings()) {
+			grid.buildings.add(new BenchmarkViewSource(building));
+		}
+		for (Movable movable : Movable.getAllMovables()) {
+			BenchmarkViewSource source = new BenchmarkViewSource(movable);
+			grid.movables.add(source);
+			if (grid.moving.size() * 100 < grid.movables.size() * movingPercent) {
+				grid.moving.add(source);
+			}
+		}
+
+		MatchConstants.clearState();
+		return grid;
+	}
+
+	/**
+	 * Moves the moving sources back and forth, so they stay in the area of the savegame.
+	 */
+	void moveSources(int pass) {
+		int dx = (pass & 4) == 0 ? 1 : -1;
+		for (BenchmarkViewSource source : moving) {
+			source.pos = new ShortPoint2D(source.pos.x + dx, source.pos.y);
+		}
+	}
+
+	@Override
+	public IMovable getMovableAt(short x, short y) {
+		return null;
+	}
+
+	@Override
+	public IMapObject getMapObjectsAt(short x, short y) {
+		return null;
+	}
+
+	@Override
+	public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+		return movables;
+	}
+
+	@Override
+	public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+		return buildings;
+	}
+
+	private static final class BenchmarkViewSource implements IViewDistancable {
+		private final byte playerId;
+		private final short viewDistance;
+		ShortPoint2D pos;
+
+		BenchmarkViewSource(IViewDistancable source) {
+			this.playerId = source.getPlayerId();
+			this.viewDistance = source.getViewDistance();
+			this.pos = source.getPos();
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return pos;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return playerId;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.common.map.MapLoadException;
+
+/**
+ * Compares one pass of the incremental {@link FogOfWar} with one pass of the former {@link FullRebuildFogOfWar} on the late game savegame of
+ * {@link BenchmarkFogOfWarGrid}. Before every pass, the given percentage of the movables moves by one position.
+ * <p>
+ * The fog of war thread runs one pass every 800 ms, so the CPU time per second of game time is 1.25 times the measured time per pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FogOfWarBenchmark {
+
+	@Param({ "0", "10", "100" })
+	public int movingPercent;
+
+	@Param({ "0", "3" })
+	public byte player;
+
+	private short width;
+	private short height;
+	private BenchmarkFogOfWarGrid grid;
+	private FogOfWar incremental;
+	private FullRebuildFogOfWar fullRebuild;
+	private int pass;
+
+	@Setup
+	public void setup() throws MapLoadException, IOException {
+		grid = BenchmarkFogOfWarGrid.loadLateGame(movingPercent);
+		width = grid.width;
+		height = grid.height;
+
+		incremental = new FogOfWar(width, height, player);
+		fullRebuild = new FullRebuildFogOfWar(width, height, player);
+		incremental.updateSight(grid);
+		fullRebuild.rebuildSight(grid);
+	}
+
+	@Benchmark
+	public byte incremental() {
+		grid.moveSources(pass++);
+		incremental.updateSight(grid);
+		return incremental.getVisibleStatus(width / 2, height / 2);
+	}
+
+	@Benchmark
+	public byte fullRebuild() {
+		grid.moveSources(pass++);
+		fullRebuild.rebuildSight(grid);
+		return fullRebuild.getVisibleStatus(width / 2, height / 2);
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.player.IPlayerable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+
+/**
+ * The former fog of war calculation that dims down the whole map and redraws all view circles on every pass. It is only kept as a reference for
+ * the {@link FogOfWarBenchmark}.
+ */
+public final class FullRebuildFogOfWar {
+	private static final byte DIM_DOWN_SPEED = 10;
+
+	private final byte player;
+	private final short width;
+	private final short height;
+	private final CircleDrawer drawer = new CircleDrawer();
+	private byte[][] sight;
+	private byte[][] buffer;
+
+	public FullRebuildFogOfWar(short width, short height, byte player) {
+		this.width = width;
+		this.height = height;
+		this.player = player;
+		this.sight = new byte[width][height];
+		this.buffer = new byte[width][height];
+	}
+
+	public byte getVisibleStatus(int x, int y) {
+		return (byte) Math.min(sight[x][y], CommonConstants.FOG_OF_WAR_VISIBLE);
+	}
+
+	public void rebuildSight(IFogOfWarGrid grid) {
+		drawer.setBuffer(buffer);
+
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				byte currSight = sight[x][y];
+
+				if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+					byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
+					if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
+						buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
+					} else {
+						buffer[x][y] = newSight;
+					}
+				} else {
+					buffer[x][y] = sight[x][y];
+				}
+			}
+		}
+
+		applyViewDistances(grid.getBuildingViewDistancables());
+		applyViewDistances(grid.getMovableViewDistancables());
+
+		byte[][] temp = sight;
+		sight = buffer;
+		buffer = temp;
+	}
+
+	private boolean isPlayerOK(IPlayerable playerable) {
+		return (MatchConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR || (playerable.getPlayerId() == player));
+	}
+
+	private void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
+		for (IViewDistancable curr : objects) {
+			if (isPlayerOK(curr)) {
+				short distance = curr.getViewDistance();
+				if (distance > 0) {
+					ShortPoint2D pos = curr.getPos();
+					if (pos != null)
+						drawer.drawCircleToBuffer(pos.x, pos.y, distance);
+				}
+			}
+		}
+	}
+
+	private final class CircleDrawer {
+		private byte[][] buffer;
+		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[FogOfWar.MAX_VIEWDISTANCE];
+
+		void setBuffer(byte[][] buffer) {
+			this.buffer = buffer;
+		}
+
+		void drawCircleToBuffer(int bufferX, int bufferY, int viewDistance) {
+			CachedViewCircle circle = getCachedCircle(viewDistance);
+			CachedViewCircleIterator iterator = circle.iterator(bufferX, bufferY);
+
+			while (iterator.hasNext()) {
+				final int x = iterator.getCurrX();
+				final int y = iterator.getCurrY();
+
+				if (x >= 0 && x < width && y > 0 && y < height) {
+					byte oldSight = buffer[x][y];
+					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
+						byte newSight = iterator.getCurrSight();
+						if (oldSight < newSight) {
+							buffer[x][y] = newSight;
+						}
+					}
+				}
+			}
+		}
+
+		private CachedViewCircle getCachedCircle(int viewDistance) {
+			int radius = Math.min(viewDistance + FogOfWar.PADDING, FogOfWar.MAX_VIEWDISTANCE - 1);
+			if (cachedCircles[radius] == null) {
+				cachedCircles[radius] = new CachedViewCircle(radius);
+			}
+			return cachedCircles[radius];
+		}
+	}
+}
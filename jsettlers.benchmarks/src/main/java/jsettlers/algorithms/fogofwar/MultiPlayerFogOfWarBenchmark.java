@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.common.map.MapLoadException;
+
+/**
+ * Compares calculating the fog of war of all players with the {@link MultiPlayerFogOfWar} to running one {@link FogOfWar} per player and to a
+ * single player {@link FullRebuildFogOfWar}, on the late game savegame of {@link BenchmarkFogOfWarGrid}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MultiPlayerFogOfWarBenchmark {
+
+	@Param({ "10", "100" })
+	public int movingPercent;
+
+	private BenchmarkFogOfWarGrid grid;
+	private MultiPlayerFogOfWar multiPlayer;
+	private FogOfWar[] perPlayer;
+	private FullRebuildFogOfWar singlePlayerRebuild;
+	private int pass;
+
+	@Setup
+	public void setup() throws MapLoadException, IOException {
+		grid = BenchmarkFogOfWarGrid.loadLateGame(movingPercent);
+
+		multiPlayer = new MultiPlayerFogOfWar(grid.width, grid.height, grid.numberOfPlayers);
+		perPlayer = new FogOfWar[grid.numberOfPlayers];
+		for (byte player = 0; player < grid.numberOfPlayers; player++) {
+			perPlayer[player] = new FogOfWar(grid.width, grid.height, player);
+		}
+		singlePlayerRebuild = new FullRebuildFogOfWar(grid.width, grid.height, (byte) 0);
+	}
+
+	@Benchmark
+	public byte multiPlayer() {
+		grid.moveSources(pass++);
+		multiPlayer.updateSight(grid);
+		return multiPlayer.getVisibleStatus((byte) 0, grid.width / 2, grid.height / 2);
+	}
+
+	@Benchmark
+	public byte fogOfWarPerPlayer() {
+		grid.moveSources(pass++);
+		byte result = 0;
+		for (FogOfWar fogOfWar : perPlayer) {
+			fogOfWar.updateSight(grid);
+			result += fogOfWar.getVisibleStatus(grid.width / 2, grid.height / 2);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public byte singlePlayerFullRebuild() {
+		grid.moveSources(pass++);
+		singlePlayerRebuild.rebuildSight(grid);
+		return singlePlayerRebuild.getVisibleStatus(grid.width / 2, grid.height / 2);
+	}
+}
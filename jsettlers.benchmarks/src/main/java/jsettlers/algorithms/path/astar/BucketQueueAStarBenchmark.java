@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Compares the generation stamped {@link BucketQueueAStar} with the former {@link BitSetBucketQueueAStar} for short, medium and cross map
+ * requests on the test maps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BucketQueueAStarBenchmark {
+	private static final int NUMBER_OF_REQUESTS = 100;
+
+	public enum EDistance {
+		SHORT(2, 15),
+		MEDIUM(30, 80),
+		CROSS_MAP(200, Integer.MAX_VALUE);
+
+		final int minDistance;
+		final int maxDistance;
+
+		EDistance(int minDistance, int maxDistance) {
+			this.minDistance = minDistance;
+			this.maxDistance = maxDistance;
+		}
+	}
+
+	@Param({ "bigmap.rmap", "mountainlake.rmap" })
+	public String mapName;
+
+	@Param({ "SHORT", "MEDIUM", "CROSS_MAP" })
+	public EDistance distance;
+
+	private final PathRequests.Requester requester = new PathRequests.Requester();
+	private PathRequests requests;
+	private AbstractAStar generationStampedAStar;
+	private AbstractAStar bitSetAStar;
+
+	@Setup
+	public void setup() throws MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0);
+		MainGrid grid = MapUtils.getMap(MapUtils.class, mapName).loadMainGrid(null).getMainGrid();
+
+		IAStarPathMap map = grid.getPathfinderGrid();
+		short width = grid.getWidth();
+		short height = grid.getHeight();
+
+		requests = PathRequests.create(map, width, height, NUMBER_OF_REQUESTS, distance.minDistance, distance.maxDistance, 0);
+		generationStampedAStar = new BucketQueueAStar(map, width, height);
+		bitSetAStar = new BitSetBucketQueueAStar(map, width, height);
+	}
+
+	@TearDown
+	public void tearDown() {
+		MatchConstants.clearState();
+	}
+
+	@Benchmark
+	public int generationStamped() {
+		return findPaths(generationStampedAStar);
+	}
+
+	@Benchmark
+	public int bitSet() {
+		return findPaths(bitSetAStar);
+	}
+
+	private int findPaths(AbstractAStar aStar) {
+		int totalLength = 0;
+		for (int i = 0; i < requests.size(); i++) {
+			requester.setPos(requests.starts[i]);
+			Path path = aStar.findPath(requester, requests.targets[i]);
+			if (path != null) {
+				totalLength += path.getLength();
+			}
+		}
+		return totalLength;
+	}
+}
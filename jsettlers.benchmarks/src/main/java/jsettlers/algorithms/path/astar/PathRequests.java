@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.Random;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * A reproducible set of path requests between reachable positions of a map with an on grid distance in a given range.
+ */
+public final class PathRequests {
+	private static final int MAX_TRIES_PER_REQUEST = 10000;
+
+	public final ShortPoint2D[] starts;
+	public final ShortPoint2D[] targets;
+
+	private PathRequests(ShortPoint2D[] starts, ShortPoint2D[] targets) {
+		this.starts = starts;
+		this.targets = targets;
+	}
+
+	public int size() {
+		return starts.length;
+	}
+
+	public static PathRequests create(IAStarPathMap map, short width, short height, int numberOfRequests, int minDistance, int maxDistance,
+			long seed) {
+		Random random = new Random(seed);
+		ShortPoint2D[] starts = new ShortPoint2D[numberOfRequests];
+		ShortPoint2D[] targets = new ShortPoint2D[numberOfRequests];
+		IPathCalculatable requester = new Requester();
+
+		int found = 0;
+		for (int tries = 0; found < numberOfRequests && tries < numberOfRequests * MAX_TRIES_PER_REQUEST; tries++) {
+			int sx = random.nextInt(width);
+			int sy = random.nextInt(height);
+			int tx = random.nextInt(width);
+			int ty = random.nextInt(height);
+
+			int distance = ShortPoint2D.getOnGridDist(tx - sx, ty - sy);
+			if (distance < minDistance || distance > maxDistance
+					|| map.isBlocked(requester, sx, sy) || map.isBlocked(requester, tx, ty)
+					|| map.getBlockedPartition(sx, sy) != map.getBlockedPartition(tx, ty)) {
+				continue;
+			}
+
+			starts[found] = new ShortPoint2D(sx, sy);
+			targets[found] = new ShortPoint2D(tx, ty);
+			found++;
+		}
+
+		if (found < numberOfRequests) {
+			throw new IllegalStateException("Only found " + found + " requests with a distance between " + minDistance + " and " + maxDistance);
+		}
+		return new PathRequests(starts, targets);
+	}
+
+	/**
+	 * A path requester that can use every player's ground.
+	 */
+	public static final class Requester implements IPathCalculatable {
+		private static final long serialVersionUID = -3204585839564613413L;
+
+		private ShortPoint2D position;
+
+		public void setPos(ShortPoint2D position) {
+			this.position = position;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return 0;
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.materials;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList;
+import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IJoblessSupplier;
+import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IManagerBearer;
+import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IMaterialRequest;
+import jsettlers.logic.map.grid.partition.manager.materials.offers.OffersList;
+import jsettlers.logic.map.grid.partition.manager.materials.requests.MaterialRequestObject;
+import jsettlers.logic.map.grid.partition.manager.settings.PartitionManagerSettings;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates the material distribution of a large partition: bearers carry materials from producers to construction sites and become jobless at
+ * the site when they arrive. Every benchmark operation simulates one second of game time with the ticks of the partition manager.
+ * <p>
+ * The time per operation shows the cost of the distribution, the deliveries per second of game time are printed at the end of every trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MaterialDistributionBenchmark {
+	private static final int MAP_SIZE = 64;
+	private static final int TICK_DURATION = 25;
+	private static final int TICKS_PER_SECOND = 1000 / TICK_DURATION;
+	private static final int MILLIS_PER_STEP = 300;
+	private static final int NUMBER_OF_SITES = 400;
+	private static final int NUMBER_OF_PRODUCERS = 80;
+	private static final int MATERIALS_PER_SITE = 16;
+	private static final EMaterialType[] MATERIALS = { EMaterialType.PLANK, EMaterialType.STONE, EMaterialType.TRUNK, EMaterialType.PIG,
+			EMaterialType.FLOUR, EMaterialType.WATER };
+
+	@Param({ "1", "4", "16" })
+	int batchSize;
+
+	@Param({ "200", "2000", "8000" })
+	int bearers;
+
+	private final Random random = new Random(0);
+	private final PriorityQueue<BenchmarkBearer> carrying = new PriorityQueue<BenchmarkBearer>();
+	private final PositionableList<BenchmarkBearer> jobless = new PositionableList<BenchmarkBearer>();
+	private ShortPoint2D[][] producers;
+	private OffersList offers;
+	private MaterialsManager manager;
+	private int time;
+	private long deliveries;
+
+	@Setup
+	public void setup() {
+		MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE = batchSize;
+
+		offers = new OffersList(null);
+		manager = new MaterialsManager(new IJoblessSupplier() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean isEmpty() {
+				return jobless.isEmpty();
+			}
+
+			@Override
+			public IManagerBearer removeJoblessCloseTo(ShortPoint2D position) {
+				return jobless.removeObjectNextTo(position);
+			}
+		}, offers, new PartitionManagerSettings());
+
+		producers = new ShortPoint2D[MATERIALS.length][NUMBER_OF_PRODUCERS / MATERIALS.length];
+		for (int material = 0; material < MATERIALS.length; material++) {
+			for (int i = 0; i < producers[material].length; i++) {
+				producers[material][i] = randomPosition();
+				for (int j = 0; j < 8; j++) {
+					offers.addOffer(producers[material][i], MATERIALS[material]);
+				}
+			}
+		}
+
+		for (int i = 0; i < NUMBER_OF_SITES; i++) {
+			EMaterialType material = MATERIALS[i % MATERIALS.length];
+			manager.addRequestObject(material, new ConstructionSiteRequest(randomPosition()));
+		}
+
+		for (int i = 0; i < bearers; i++) {
+			jobless.insert(new BenchmarkBearer(randomPosition()));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE = 1;
+		System.out.printf("%n%.1f deliveries per second of game time%n", deliveries * 1000.0 / time);
+	}
+
+	@Benchmark
+	public long simulateOneSecond() {
+		for (int tick = 0; tick < TICKS_PER_SECOND; tick++) {
+			time += TICK_DURATION;
+
+			while (!carrying.isEmpty() && carrying.peek().arrivalTime <= time) {
+				carrying.poll().arrive();
+			}
+
+			manager.distributeJobs();
+		}
+		return deliveries;
+	}
+
+	private ShortPoint2D randomPosition() {
+		return new ShortPoint2D(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+	}
+
+	private static int getMaterialIndex(EMaterialType materialType) {
+		for (int i = 0; i < MATERIALS.length; i++) {
+			if (MATERIALS[i] == materialType) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException(materialType.toString());
+	}
+
+	private static int getSteps(ShortPoint2D from, ShortPoint2D to) {
+		return ShortPoint2D.getOnGridDist(to.x - from.x, to.y - from.y);
+	}
+
+	private final class BenchmarkBearer implements IManagerBearer, Comparable<BenchmarkBearer> {
+		private static final long serialVersionUID = 1L;
+
+		private ShortPoint2D position;
+		private IMaterialRequest request;
+		private int arrivalTime;
+
+		BenchmarkBearer(ShortPoint2D position) {
+			this.position = position;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public boolean deliver(EMaterialType materialType, ShortPoint2D offerPosition, IMaterialRequest request) {
+			this.request = request;
+			this.arrivalTime = time + (getSteps(position, offerPosition) + getSteps(offerPosition, request.getPos())) * MILLIS_PER_STEP;
+			request.deliveryAccepted();
+			carrying.add(this);
+
+			// the producers make up for the taken material
+			ShortPoint2D[] materialProducers = producers[getMaterialIndex(materialType)];
+			offers.addOffer(materialProducers[random.nextInt(materialProducers.length)], materialType);
+			return true;
+		}
+
+		void arrive() {
+			position = request.getPos();
+			request.deliveryFulfilled();
+			deliveries++;
+
+			request = null;
+			jobless.insert(this);
+		}
+
+		@Override
+		public int compareTo(BenchmarkBearer other) {
+			return Integer.compare(arrivalTime, other.arrivalTime);
+		}
+	}
+
+	/**
+	 * A construction site that always needs more materials.
+	 */
+	private static final class ConstructionSiteRequest extends MaterialRequestObject {
+		private static final long serialVersionUID = 1L;
+
+		private final ShortPoint2D position;
+		private short stillRequired = MATERIALS_PER_SITE;
+
+		ConstructionSiteRequest(ShortPoint2D position) {
+			this.position = position;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		protected short getStillNeeded() {
+			return (short) (stillRequired - getInDelivery());
+		}
+
+		@Override
+		protected int getInDeliveryable() {
+			return MATERIALS_PER_SITE;
+		}
+
+		@Override
+		protected void materialDelivered() {
+			stillRequired--;
+			if (stillRequired <= 0) {
+				stillRequired = MATERIALS_PER_SITE;
+			}
+		}
+
+		@Override
+		protected boolean isRoundRobinRequest() {
+			return true;
+		}
+
+		@Override
+		protected EBuildingType getBuildingType() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.util.ArrayList;
+
+/**
+ * The former implementation of the {@link RescheduleTimer} with a single wheel of {@link ArrayList}s covering 32 seconds. It is only kept as a
+ * reference for the benchmarks.
+ */
+public final class ArrayListRescheduleTimer {
+	private static final int FUTURE_TIME = 32000;
+	private static final short TIME_SLICE = 25; // ms
+	private static final int TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
+
+	@SuppressWarnings("unchecked")
+	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
+	private int currTimeSlot = 0;
+
+	public ArrayListRescheduleTimer() {
+		for (int i = 0; i < TIME_SLOTS; i++) {
+			timerables[i] = new ArrayList<IScheduledTimerable>();
+		}
+	}
+
+	public void add(IScheduledTimerable t, int delay) {
+		if (delay <= 0) {
+			return; // don't schedule if requested delay is negative or zero
+		}
+
+		int delaySlots = delay / TIME_SLICE;
+		delaySlots = delaySlots > 0 ? delaySlots : 1; // ensure at least one slot delay
+
+		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+	}
+
+	public void timerEvent() {
+		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+
+		for (IScheduledTimerable curr : queue) {
+			int delay = curr.timerEvent();
+			add(curr, delay);
+		}
+
+		queue.clear();
+		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+	}
+}
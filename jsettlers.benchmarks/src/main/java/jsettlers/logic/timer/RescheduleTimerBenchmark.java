@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the hierarchical timing wheel of the {@link RescheduleTimer} with the former {@link ArrayListRescheduleTimer} for 100k timerables.
+ * <ul>
+ * <li>scheduleAndDrain: schedules 100k timerables that run once within the next two seconds and runs the timer until all of them are executed.</li>
+ * <li>steadyState: runs one second of game time while 100k timerables keep rescheduling themselves with delays of up to 30 seconds.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RescheduleTimerBenchmark {
+	private static final int NUMBER_OF_TIMERABLES = 100000;
+	private static final int TICKS_PER_SECOND = 40;
+	private static final int DRAIN_TICKS = 2000 / 25 + 1;
+
+	@State(Scope.Benchmark)
+	public static class DrainState {
+		BenchmarkTimerable[] timerables = new BenchmarkTimerable[NUMBER_OF_TIMERABLES];
+		int[] delays = new int[NUMBER_OF_TIMERABLES];
+		RescheduleTimer timingWheel;
+		ArrayListRescheduleTimer arrayListTimer;
+
+		@Setup
+		public void setup() {
+			Random random = new Random(0);
+			for (int i = 0; i < NUMBER_OF_TIMERABLES; i++) {
+				timerables[i] = new BenchmarkTimerable(new int[] { -1 });
+				delays[i] = 25 + random.nextInt(2000 - 25);
+			}
+
+			RescheduleTimer.stopAndClear();
+			timingWheel = RescheduleTimer.get();
+			arrayListTimer = new ArrayListRescheduleTimer();
+		}
+
+		@TearDown
+		public void tearDown() {
+			RescheduleTimer.stopAndClear();
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class SteadyState {
+		RescheduleTimer timingWheel;
+		ArrayListRescheduleTimer arrayListTimer;
+
+		@Setup
+		public void setup() {
+			Random random = new Random(0);
+
+			RescheduleTimer.stopAndClear();
+			timingWheel = RescheduleTimer.get();
+			arrayListTimer = new ArrayListRescheduleTimer();
+
+			for (int i = 0; i < NUMBER_OF_TIMERABLES; i++) {
+				int[] delays = createRepeatingDelays(random);
+				RescheduleTimer.add(new BenchmarkTimerable(delays), delays[0]);
+				arrayListTimer.add(new BenchmarkTimerable(delays), delays[0]);
+			}
+		}
+
+		@TearDown
+		public void tearDown() {
+			RescheduleTimer.stopAndClear();
+		}
+	}
+
+	@Benchmark
+	public int timingWheelScheduleAndDrain(DrainState state) {
+		for (int i = 0; i < NUMBER_OF_TIMERABLES; i++) {
+			RescheduleTimer.add(state.timerables[i], state.delays[i]);
+		}
+		for (int i = 0; i < DRAIN_TICKS; i++) {
+			state.timingWheel.timerEvent();
+		}
+		return state.timingWheel.size();
+	}
+
+	@Benchmark
+	public void arrayListScheduleAndDrain(DrainState state) {
+		for (int i = 0; i < NUMBER_OF_TIMERABLES; i++) {
+			state.arrayListTimer.add(state.timerables[i], state.delays[i]);
+		}
+		for (int i = 0; i < DRAIN_TICKS; i++) {
+			state.arrayListTimer.timerEvent();
+		}
+	}
+
+	@Benchmark
+	public int timingWheelSteadyState(SteadyState state) {
+		for (int i = 0; i < TICKS_PER_SECOND; i++) {
+			state.timingWheel.timerEvent();
+		}
+		return state.timingWheel.size();
+	}
+
+	@Benchmark
+	public void arrayListSteadyState(SteadyState state) {
+		for (int i = 0; i < TICKS_PER_SECOND; i++) {
+			state.arrayListTimer.timerEvent();
+		}
+	}
+
+	/**
+	 * Delays similar to the ones of the movables and buildings: mostly short ones, some seconds and a few long ones.
+	 */
+	private static int[] createRepeatingDelays(Random random) {
+		int[] delays = new int[16];
+		for (int i = 0; i < delays.length; i++) {
+			int type = random.nextInt(10);
+			if (type < 7) {
+				delays[i] = 25 + random.nextInt(200);
+			} else if (type < 9) {
+				delays[i] = 1000 + random.nextInt(4000);
+			} else {
+				delays[i] = 10000 + random.nextInt(20000);
+			}
+		}
+		return delays;
+	}
+
+	static final class BenchmarkTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] delays;
+		private int delayIdx = 0;
+
+		BenchmarkTimerable(int[] delays) {
+			this.delays = delays;
+		}
+
+		@Override
+		public int timerEvent() {
+			delayIdx = (delayIdx + 1) % delays.length;
+			return delays[delayIdx];
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+}
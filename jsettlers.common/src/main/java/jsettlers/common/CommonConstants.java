@@ -80,6 +80,11 @@ public abstract class CommonConstants {
 	 */
 	public static EPlayerType FIXED_AI_TYPE = null; // TODO remove
 
+	/**
+	 * Number of worker threads the AI players are evaluated on. If this is 0, the AI players are evaluated on the game clock thread.
+	 */
+	public static int AI_WORKER_THREADS = 0;
+
 	/**
 	 * Option to disable the loading of original maps.
 	 */
@@ -28,7 +28,6 @@ import jsettlers.graphics.action.SetMaterialProductionAction.EMaterialProduction
 import jsettlers.input.tasks.MoveToGuiTask;
 import jsettlers.input.tasks.SetMaterialProductionGuiTask;
 import jsettlers.input.tasks.UpgradeSoldiersGuiTask;
-import jsettlers.logic.map.grid.movable.MovableGrid;
 import jsettlers.logic.player.Player;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 
@@ -53,15 +52,12 @@ public class ConfigurableGeneral implements ArmyGeneral {
 	private final AiStatistics aiStatistics;
 	private final Player player;
 	private final ITaskScheduler taskScheduler;
-	private final MovableGrid movableGrid;
 	private float attackerCountFactor;
 
-	public ConfigurableGeneral(AiStatistics aiStatistics, Player player, MovableGrid movableGrid, ITaskScheduler taskScheduler, float
-			attackerCountFactor) {
+	public ConfigurableGeneral(AiStatistics aiStatistics, Player player, ITaskScheduler taskScheduler, float attackerCountFactor) {
 		this.aiStatistics = aiStatistics;
 		this.player = player;
 		this.taskScheduler = taskScheduler;
-		this.movableGrid = movableGrid;
 		this.attackerCountFactor = attackerCountFactor;
 	}
 
@@ -143,7 +139,7 @@ public class ConfigurableGeneral implements ArmyGeneral {
 			setRatioOfMaterial(player.playerId, EMaterialType.SWORD, 0F);
 			setRatioOfMaterial(player.playerId, EMaterialType.SPEAR, 0.3F);
 			setRatioOfMaterial(player.playerId, EMaterialType.BOW, 1F);
-		} else if (bowmenCount * player.getCombatStrengthInformation().getCombatStrength(false) < BOWMEN_COUNT_OF_KILLING_INFANTRY){
+		} else if (bowmenCount * aiStatistics.getCombatStrength(player.playerId) < BOWMEN_COUNT_OF_KILLING_INFANTRY){
 			setNumberOfFutureProducedMaterial(player.playerId, EMaterialType.SWORD, 0);
 			setNumberOfFutureProducedMaterial(player.playerId, EMaterialType.SPEAR, 0);
 			setNumberOfFutureProducedMaterial(player.playerId, EMaterialType.BOW, 0);
@@ -175,7 +171,7 @@ public class ConfigurableGeneral implements ArmyGeneral {
 	}
 
 	private boolean upgradeSoldiers(ESoldierType type) {
-		if (player.getManaInformation().isUpgradePossible(type)) {
+		if (aiStatistics.isUpgradePossible(player.playerId, type)) {
 			taskScheduler.scheduleTask(new UpgradeSoldiersGuiTask(player.playerId, type));
 			return true;
 		}
@@ -231,7 +227,7 @@ public class ConfigurableGeneral implements ArmyGeneral {
 	private void sendTroopsTo(List<ShortPoint2D> attackerPositions, ShortPoint2D target) {
 		List<Integer> attackerIds = new Vector<Integer>();
 		for (ShortPoint2D attackerPosition : attackerPositions) {
-			attackerIds.add(movableGrid.getMovableAt(attackerPosition.x, attackerPosition.y).getID());
+			attackerIds.add(aiStatistics.getMovableIdAt(attackerPosition));
 		}
 
 		taskScheduler.scheduleTask(new MoveToGuiTask(player.playerId, target, attackerIds));
@@ -28,8 +28,18 @@ import static jsettlers.common.landscape.EResourceType.COAL;
 import static jsettlers.common.landscape.EResourceType.GOLDORE;
 import static jsettlers.common.landscape.EResourceType.IRONORE;
 import jsettlers.common.buildings.EBuildingType;
+import jsettlers.logic.constants.ExtendedRandom;
 
 public class BestConstructionPositionFinderFactory {
+	private final ExtendedRandom random;
+
+	/**
+	 * @param random
+	 *            The random the created finders use for their decisions.
+	 */
+	public BestConstructionPositionFinderFactory(ExtendedRandom random) {
+		this.random = random;
+	}
 
 	public final IBestConstructionPositionFinder getBestConstructionPositionFinderFor(EBuildingType type) {
 		switch (type) {
@@ -44,7 +54,7 @@ public class BestConstructionPositionFinderFactory {
 		case TOWER:
 		case BIG_TOWER:
 		case CASTLE:
-			return new BestMilitaryConstructionPositionFinder(type);
+			return new BestMilitaryConstructionPositionFinder(type, random);
 		case FARM:
 			return new BestFarmConstructionPositionFinder();
 		case WINEGROWER:
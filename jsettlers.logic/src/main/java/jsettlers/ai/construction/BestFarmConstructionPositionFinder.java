@@ -14,10 +14,10 @@
  *******************************************************************************/
 package jsettlers.ai.construction;
 
+import jsettlers.ai.highlevel.AiMapSnapshot;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.logic.map.grid.MainGrid;
 
 /**
  * This searches for positions where the most corn can grow withing the work area
@@ -42,7 +42,7 @@ public class BestFarmConstructionPositionFinder extends BestPlantingBuildingCons
 	}
 
 	@Override
-	protected boolean isMyPlantPlantable(MainGrid mainGrid, ShortPoint2D position) {
-		return mainGrid.isCornPlantable(position);
+	protected boolean isMyPlantPlantable(AiMapSnapshot mapSnapshot, ShortPoint2D position) {
+		return mapSnapshot.isCornPlantable(position);
 	}
 }
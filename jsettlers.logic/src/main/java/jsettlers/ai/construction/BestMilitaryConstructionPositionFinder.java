@@ -26,7 +26,7 @@ import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.constants.ExtendedRandom;
 
 /**
  * Assumptions: the most needed land are mountains with resources for military production
@@ -39,6 +39,7 @@ import jsettlers.logic.constants.MatchConstants;
 public class BestMilitaryConstructionPositionFinder implements IBestConstructionPositionFinder {
 
 	private final EBuildingType buildingType;
+	private final ExtendedRandom random;
 
 	private enum ImportantResource {
 		TREES,
@@ -51,8 +52,9 @@ public class BestMilitaryConstructionPositionFinder implements IBestConstruction
 		FISH
 	}
 
-	public BestMilitaryConstructionPositionFinder(EBuildingType buildingType) {
+	public BestMilitaryConstructionPositionFinder(EBuildingType buildingType, ExtendedRandom random) {
 		this.buildingType = buildingType;
+		this.random = random;
 	}
 
 	@Override
@@ -192,7 +194,7 @@ public class BestMilitaryConstructionPositionFinder implements IBestConstruction
 			importantResources.add(ImportantResource.GOLD);
 		}
 		// 50 : 50 chance to spread the land or to go for more resources
-		if (importantResources.size() == 0 && MatchConstants.aiRandom().nextBoolean() == true) {
+		if (importantResources.size() == 0 && random.nextBoolean() == true) {
 			importantResources.add(ImportantResource.GOLD);
 			importantResources.add(ImportantResource.IRON);
 			importantResources.add(ImportantResource.COAL);
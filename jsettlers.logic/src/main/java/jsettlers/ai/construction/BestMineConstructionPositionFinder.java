@@ -17,13 +17,13 @@ package jsettlers.ai.construction;
 import java.util.ArrayList;
 import java.util.List;
 
+import jsettlers.ai.highlevel.AiMapSnapshot;
 import jsettlers.ai.highlevel.AiStatistics;
 import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.logic.map.grid.landscape.LandscapeGrid;
 
 /**
  * Algorithm: find all possible construction points within the borders of the player - calculates a score based on the amount of resource
@@ -46,12 +46,12 @@ public class BestMineConstructionPositionFinder implements IBestConstructionPosi
 		for (ShortPoint2D point : aiStatistics.getLandForPlayer(playerId)) {
 			if (constructionMap.canConstructAt(point.x, point.y, buildingType, playerId)) {
 				int resourceAmount = 0;
-				LandscapeGrid landscapeGrid = aiStatistics.getMainGrid().getLandscapeGrid();
+				AiMapSnapshot mapSnapshot = aiStatistics.getMapSnapshot();
 				for (RelativePoint relativePoint : buildingType.getBlockedTiles()) {
 					int x = point.x + relativePoint.getDx();
 					int y = point.y + relativePoint.getDy();
-					if (landscapeGrid.getResourceTypeAt(x, y) == resourceType) {
-						resourceAmount -= landscapeGrid.getResourceAmountAt(x, y);
+					if (mapSnapshot.getResourceTypeAt(x, y) == resourceType) {
+						resourceAmount -= mapSnapshot.getResourceAmountAt(x, y);
 					}
 				}
 				if (resourceAmount != 0) {
@@ -17,12 +17,12 @@ package jsettlers.ai.construction;
 import java.util.ArrayList;
 import java.util.List;
 
+import jsettlers.ai.highlevel.AiMapSnapshot;
 import jsettlers.ai.highlevel.AiStatistics;
 import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.logic.map.grid.MainGrid;
 
 /**
  * @author codingberlin
@@ -38,7 +38,7 @@ abstract public class BestPlantingBuildingConstructionPositionFinder implements
 		for (ShortPoint2D point : aiStatistics.getLandForPlayer(playerId)) {
 			if (constructionMap.canConstructAt(point.x, point.y, myBuildingType(), playerId)
 					&& !aiStatistics.blocksWorkingAreaOfOtherBuilding(point, playerId, myBuildingType())) {
-				int score = calculateScoreFor(point, aiStatistics.getMainGrid(), playerId);
+				int score = calculateScoreFor(point, aiStatistics.getMapSnapshot(), playerId);
 				if (score > 0) {
 					scoredConstructionPositions.add(new ScoredConstructionPosition(point, -score));
 				}
@@ -48,13 +48,13 @@ abstract public class BestPlantingBuildingConstructionPositionFinder implements
 		return ScoredConstructionPosition.detectPositionWithLowestScore(scoredConstructionPositions);
 	}
 
-	private int calculateScoreFor(ShortPoint2D point, MainGrid mainGrid, byte playerId) {
+	private int calculateScoreFor(ShortPoint2D point, AiMapSnapshot mapSnapshot, byte playerId) {
 		int score = 0;
 		for (RelativePoint relativePoint : myRelativeWorkAreaPoints()) {
 			ShortPoint2D workAreaPoint = relativePoint.calculatePoint(point);
-			if (mainGrid.isInBounds(workAreaPoint.x, workAreaPoint.y)
-					&& mainGrid.getPartitionsGrid().getPlayerIdAt(workAreaPoint.x, workAreaPoint.y) == playerId
-					&& isMyPlantPlantable(mainGrid, workAreaPoint)) {
+			if (mapSnapshot.isInBounds(workAreaPoint.x, workAreaPoint.y)
+					&& mapSnapshot.getPlayerIdAt(workAreaPoint.x, workAreaPoint.y) == playerId
+					&& isMyPlantPlantable(mapSnapshot, workAreaPoint)) {
 				score++;
 			}
 		}
@@ -82,5 +82,5 @@ abstract public class BestPlantingBuildingConstructionPositionFinder implements
 
 	abstract protected RelativePoint[] myRelativeWorkAreaPoints();
 
-	abstract protected boolean isMyPlantPlantable(MainGrid mainGrid, ShortPoint2D position);
+	abstract protected boolean isMyPlantPlantable(AiMapSnapshot mapSnapshot, ShortPoint2D position);
 }
@@ -14,10 +14,10 @@
  *******************************************************************************/
 package jsettlers.ai.construction;
 
+import jsettlers.ai.highlevel.AiMapSnapshot;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.logic.map.grid.MainGrid;
 
 /**
  * This searches for positions where the most wine can grow withing the work area
@@ -43,7 +43,7 @@ public class BestWinegrowerConstructionPositionFinder extends BestPlantingBuildi
 	}
 
 	@Override
-	protected boolean isMyPlantPlantable(MainGrid mainGrid, ShortPoint2D position) {
-		return mainGrid.isWinePlantable(position);
+	protected boolean isMyPlantPlantable(AiMapSnapshot mapSnapshot, ShortPoint2D position) {
+		return mapSnapshot.isWinePlantable(position);
 	}
 }
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.buildings.Building;
+
+/**
+ * The state of a {@link Building} at the time of the last update of the {@link AiStatistics}.
+ */
+public final class AiBuilding {
+	private final EBuildingType buildingType;
+	private final ShortPoint2D pos;
+	private final ShortPoint2D door;
+	private final float stateProgress;
+	private final boolean occupied;
+	private final boolean cannotWork;
+
+	AiBuilding(Building building) {
+		this.buildingType = building.getBuildingType();
+		this.pos = building.getPos();
+		this.door = building.getDoor();
+		this.stateProgress = building.getStateProgress();
+		this.occupied = building.isOccupied();
+		this.cannotWork = building.cannotWork();
+	}
+
+	public EBuildingType getBuildingType() {
+		return buildingType;
+	}
+
+	public ShortPoint2D getPos() {
+		return pos;
+	}
+
+	public ShortPoint2D getDoor() {
+		return door;
+	}
+
+	public float getStateProgress() {
+		return stateProgress;
+	}
+
+	public boolean isOccupied() {
+		return occupied;
+	}
+
+	public boolean cannotWork() {
+		return cannotWork;
+	}
+}
@@ -16,8 +16,16 @@ package jsettlers.ai.highlevel;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import jsettlers.common.CommonConstants;
 import jsettlers.common.logging.StatisticsStopWatch;
+import jsettlers.logic.constants.ExtendedRandom;
+import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.player.PlayerSetting;
 import jsettlers.network.client.interfaces.ITaskScheduler;
@@ -25,46 +33,144 @@ import jsettlers.network.synchronic.timer.INetworkTimerable;
 
 /**
  * The AiExecutor holds all IWhatToDoAi high level KIs and executes them when NetworkTimer notifies it.
+ * <p />
+ * If {@link CommonConstants#AI_WORKER_THREADS} is greater than 0, the AIs are evaluated concurrently on a worker pool while the game keeps
+ * running. The AIs only read the {@link AiStatistics} and its {@link AiMapSnapshot}, which are updated on the game clock thread and not changed
+ * while the AIs are running. The tasks scheduled by the AIs are buffered and handed to the real {@link ITaskScheduler} in a fixed order
+ * {@value #ASYNC_DECISION_DELAY} ms of game time after the statistics update. Therefore the decisions are scheduled at the same game time on every
+ * client, regardless of how long the evaluation took. Every AI gets its own random, which is seeded from {@link MatchConstants#aiRandom()} before
+ * each evaluation, so the decisions don't depend on the order the AIs run in.
  * 
  * @author codingberlin
  */
 public class AiExecutor implements INetworkTimerable {
+	private static final short UPDATE_PERIOD = 10000;
+	private static final short ASYNC_DECISION_DELAY = 1000;
+	private static final int ASYNC_TICKS_PER_UPDATE = UPDATE_PERIOD / ASYNC_DECISION_DELAY;
 
 	private final List<IWhatToDoAi> whatToDoAis;
+	private final List<BufferingTaskScheduler> bufferedTaskSchedulers;
+	private final List<ExtendedRandom> aiRandoms;
+	private final ITaskScheduler taskScheduler;
 	private final AiStatistics aiStatistics;
+	private final ExecutorService workerPool;
+	private final List<Future<?>> runningAis = new ArrayList<Future<?>>();
 	private final StatisticsStopWatch updateStatisticsStopWatch = new StatisticsStopWatch();
 	private final StatisticsStopWatch applyRulesStopWatch = new StatisticsStopWatch();
+	private int asyncTick = 0;
 
 	public AiExecutor(PlayerSetting[] playerSettings, MainGrid mainGrid, ITaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+		this.workerPool = CommonConstants.AI_WORKER_THREADS > 0 ? Executors.newFixedThreadPool(CommonConstants.AI_WORKER_THREADS, new AiWorkerThreadFactory()) : null;
 		aiStatistics = new AiStatistics(mainGrid);
 		aiStatistics.updateStatistics();
 		this.whatToDoAis = new ArrayList<IWhatToDoAi>();
+		this.bufferedTaskSchedulers = new ArrayList<BufferingTaskScheduler>();
+		this.aiRandoms = new ArrayList<ExtendedRandom>();
 		WhatToDoAiFactory aiFactory = new WhatToDoAiFactory();
 		for (byte playerId = 0; playerId < playerSettings.length; playerId++) {
 			PlayerSetting playerSetting = playerSettings[playerId];
 			if (playerSetting.isAvailable() && playerSetting.getPlayerType().isAi()) {
+				ITaskScheduler aiTaskScheduler = taskScheduler;
+				ExtendedRandom aiRandom = MatchConstants.aiRandom();
+				if (workerPool != null) {
+					BufferingTaskScheduler bufferedTaskScheduler = new BufferingTaskScheduler();
+					bufferedTaskSchedulers.add(bufferedTaskScheduler);
+					aiTaskScheduler = bufferedTaskScheduler;
+					aiRandom = new ExtendedRandom(0); // seeded before every evaluation
+					aiRandoms.add(aiRandom);
+				}
 				whatToDoAis.add(aiFactory.buildWhatToDoAi(
 						playerSettings[playerId].getPlayerType(),
 						playerSettings[playerId].getCivilisation(),
 						aiStatistics,
 						mainGrid.getPartitionsGrid().getPlayer(playerId),
-						mainGrid,
-						mainGrid.getMovableGrid(),
-						taskScheduler));
+						aiTaskScheduler,
+						aiRandom));
 			}
 		}
 	}
 
+	/**
+	 * @return The period this {@link AiExecutor} needs to be scheduled with.
+	 */
+	public short getTimerPeriod() {
+		return workerPool != null ? ASYNC_DECISION_DELAY : UPDATE_PERIOD;
+	}
+
 	@Override
 	public void timerEvent() {
+		if (workerPool == null) {
+			updateStatistics();
+			applyRulesStopWatch.restart();
+			for (IWhatToDoAi whatToDoAi : whatToDoAis) {
+				whatToDoAi.applyRules();
+			}
+			applyRulesStopWatch.stop("computerplayer:applyRules()");
+		} else {
+			int tick = asyncTick;
+			asyncTick = (asyncTick + 1) % ASYNC_TICKS_PER_UPDATE;
+			if (tick == 0) {
+				updateStatistics();
+				aiStatistics.prepareConcurrentReads();
+				startAis();
+			} else if (tick == 1) {
+				awaitAisAndScheduleTasks();
+			}
+		}
+	}
+
+	private void updateStatistics() {
 		updateStatisticsStopWatch.restart();
 		aiStatistics.updateStatistics();
 		updateStatisticsStopWatch.stop("computerplayer:updateStatistics()");
+	}
+
+	private void startAis() {
+		for (ExtendedRandom aiRandom : aiRandoms) {
+			aiRandom.setSeed(MatchConstants.aiRandom().nextLong());
+		}
+
+		for (final IWhatToDoAi whatToDoAi : whatToDoAis) {
+			runningAis.add(workerPool.submit(new Runnable() {
+				@Override
+				public void run() {
+					whatToDoAi.applyRules();
+				}
+			}));
+		}
+	}
+
+	/**
+	 * Waits until all AIs have finished and schedules their tasks in a fixed order. In the asynchronous mode, the applyRules stop watch measures the
+	 * time the game clock thread has to wait for the AIs.
+	 */
+	private void awaitAisAndScheduleTasks() {
 		applyRulesStopWatch.restart();
-		for (IWhatToDoAi whatToDoAi : whatToDoAis) {
-			whatToDoAi.applyRules();
+		for (Future<?> runningAi : runningAis) {
+			try {
+				runningAi.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+			}
 		}
+		runningAis.clear();
 		applyRulesStopWatch.stop("computerplayer:applyRules()");
+
+		for (BufferingTaskScheduler bufferedTaskScheduler : bufferedTaskSchedulers) {
+			bufferedTaskScheduler.flushTo(taskScheduler);
+		}
+	}
+
+	/**
+	 * Stops the worker threads of this {@link AiExecutor}. Decisions of running AIs are discarded.
+	 */
+	public void shutdown() {
+		if (workerPool != null) {
+			workerPool.shutdownNow();
+		}
 	}
 
 	public StatisticsStopWatch getUpdateStatisticsStopWatch() {
@@ -74,4 +180,15 @@ public class AiExecutor implements INetworkTimerable {
 	public StatisticsStopWatch getApplyRulesStopWatch() {
 		return applyRulesStopWatch;
 	}
+
+	private static class AiWorkerThreadFactory implements ThreadFactory {
+		private int threadCounter = 0;
+
+		@Override
+		public synchronized Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "AiWorker" + threadCounter++);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
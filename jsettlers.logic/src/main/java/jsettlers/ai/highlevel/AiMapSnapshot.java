@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+
+import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.map.shapes.HexGridArea;
+import jsettlers.common.position.RelativePoint;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.flags.FlagsGrid;
+import jsettlers.logic.map.grid.landscape.LandscapeGrid;
+import jsettlers.logic.map.grid.objects.ObjectsGrid;
+import jsettlers.logic.map.grid.partition.PartitionsGrid;
+
+/**
+ * A copy of the map data the AIs read in addition to the {@link AiStatistics}. The copy is updated together with the {@link AiStatistics} on the
+ * game clock thread and doesn't change until the next update. Therefore the AIs can use it while the game keeps running.
+ * <p />
+ * The construction checks of this map give the same results as the construction marks grid of the {@link MainGrid} at the time of the last
+ * update.
+ */
+public final class AiMapSnapshot extends AbstractConstructionMarkableMap {
+	/**
+	 * The plantable state of a position depends on the landscape, heights and objects of the positions in this distance.
+	 */
+	private static final int PLANTABLE_DEPENDENCY_RADIUS = 2;
+
+	private final MainGrid mainGrid;
+	private final LandscapeGrid landscapeGrid;
+	private final ObjectsGrid objectsGrid;
+	private final PartitionsGrid partitionsGrid;
+	private final FlagsGrid flagsGrid;
+	private final short width;
+	private final short height;
+
+	private final short[] partitionIds;
+	private byte[] partitionPlayers = new byte[0];
+	private final byte[] landscapeTypes;
+	private final byte[] heights;
+	private final byte[] resourceTypes;
+	private final byte[] resourceAmounts;
+	private final byte[] towerCounts;
+	private final BitSet protectedPositions;
+	private final BitSet buildingPositions;
+	private final BitSet cornPlantablePositions;
+	private final BitSet winePlantablePositions;
+
+	AiMapSnapshot(MainGrid mainGrid) {
+		this.mainGrid = mainGrid;
+		this.landscapeGrid = mainGrid.getLandscapeGrid();
+		this.objectsGrid = mainGrid.getObjectsGrid();
+		this.partitionsGrid = mainGrid.getPartitionsGrid();
+		this.flagsGrid = mainGrid.getFlagsGrid();
+		this.width = mainGrid.getWidth();
+		this.height = mainGrid.getHeight();
+
+		int size = width * height;
+		this.partitionIds = new short[size];
+		this.landscapeTypes = new byte[size];
+		this.heights = new byte[size];
+		this.resourceTypes = new byte[size];
+		this.resourceAmounts = new byte[size];
+		this.towerCounts = new byte[size];
+		this.protectedPositions = new BitSet(size);
+		this.buildingPositions = new BitSet(size);
+		this.cornPlantablePositions = new BitSet(size);
+		this.winePlantablePositions = new BitSet(size);
+	}
+
+	/**
+	 * Copies the data of the given position from the grids.
+	 */
+	void updatePosition(int x, int y) {
+		int index = x + y * width;
+		short partitionId = partitionsGrid.getPartitionIdAt(x, y);
+		if (partitionId >= partitionPlayers.length) {
+			partitionPlayers = Arrays.copyOf(partitionPlayers, Math.max(partitionId + 1, partitionPlayers.length * 2));
+		}
+		partitionPlayers[partitionId] = partitionsGrid.getPlayerIdAt(x, y);
+		partitionIds[index] = partitionId;
+		landscapeTypes[index] = landscapeGrid.getLandscapeTypeAt(x, y).ordinal;
+		heights[index] = landscapeGrid.getHeightAt(x, y);
+		resourceTypes[index] = landscapeGrid.getResourceTypeAt(x, y).ordinal;
+		resourceAmounts[index] = landscapeGrid.getResourceAmountAt(x, y);
+		protectedPositions.set(index, flagsGrid.isProtected(x, y));
+		buildingPositions.set(index, objectsGrid.isBuildingAt(x, y));
+	}
+
+	/**
+	 * Evaluates the plantable state of all positions that depend on the given position. The positions must have been updated before.
+	 */
+	void updatePlantableAround(int x, int y) {
+		for (ShortPoint2D position : new HexGridArea(x, y, 0, PLANTABLE_DEPENDENCY_RADIUS)) {
+			if (isInBounds(position.x, position.y)) {
+				updatePlantable(position);
+			}
+		}
+	}
+
+	/**
+	 * Evaluates the plantable state of the given position. Only the plantable state of the players' land is needed by the AIs.
+	 */
+	void updatePlantable(ShortPoint2D position) {
+		int index = position.x + position.y * width;
+		boolean playersLand = getPlayerIdAt(position.x, position.y) >= 0;
+		cornPlantablePositions.set(index, playersLand && mainGrid.isCornPlantable(position));
+		winePlantablePositions.set(index, playersLand && mainGrid.isWinePlantable(position));
+	}
+
+	/**
+	 * Copies the tower counts of all positions. They are changed without events, but copying them is cheap.
+	 */
+	void updateTowerCounts() {
+		partitionsGrid.copyTowerCountsTo(towerCounts);
+	}
+
+	public byte getPlayerIdAt(int x, int y) {
+		return partitionPlayers[partitionIds[x + y * width]];
+	}
+
+	public byte getTowerCountAt(int x, int y) {
+		return towerCounts[x + y * width];
+	}
+
+	public EResourceType getResourceTypeAt(int x, int y) {
+		return EResourceType.VALUES[resourceTypes[x + y * width]];
+	}
+
+	public byte getResourceAmountAt(int x, int y) {
+		return resourceAmounts[x + y * width];
+	}
+
+	public boolean isProtected(int x, int y) {
+		return protectedPositions.get(x + y * width);
+	}
+
+	public boolean isBuildingAt(int x, int y) {
+		return buildingPositions.get(x + y * width);
+	}
+
+	public boolean isCornPlantable(ShortPoint2D position) {
+		return cornPlantablePositions.get(position.x + position.y * width);
+	}
+
+	public boolean isWinePlantable(ShortPoint2D position) {
+		return winePlantablePositions.get(position.x + position.y * width);
+	}
+
+	public boolean areAllNeighborsOf(int x, int y, int minRadius, int maxRadius, ELandscapeType... landscapeTypes) {
+		for (ShortPoint2D position : new HexGridArea(x, y, minRadius, maxRadius)) {
+			if (!isLandscapeOf(position.x, position.y, landscapeTypes)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isLandscapeOf(int x, int y, ELandscapeType... landscapeTypes) {
+		ELandscapeType landscapeType = ELandscapeType.VALUES[this.landscapeTypes[x + y * width]];
+		for (ELandscapeType curr : landscapeTypes) {
+			if (landscapeType == curr) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void setConstructMarking(int x, int y, boolean set, boolean binaryConstructionMarkValues, RelativePoint[] flattenPositions) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public short getWidth() {
+		return width;
+	}
+
+	@Override
+	public short getHeight() {
+		return height;
+	}
+
+	@Override
+	public boolean canUsePositionForConstruction(int x, int y, Set<ELandscapeType> landscapeTypes, short partitionId) {
+		if (!isInBounds(x, y)) {
+			return false;
+		}
+		int index = x + y * width;
+		return !protectedPositions.get(index)
+				&& partitionIds[index] == partitionId
+				&& landscapeTypes.contains(ELandscapeType.VALUES[this.landscapeTypes[index]]);
+	}
+
+	@Override
+	public short getPartitionIdAt(int x, int y) {
+		return partitionIds[x + y * width];
+	}
+
+	@Override
+	public boolean canPlayerConstructOnPartition(byte playerId, short partitionId) {
+		return (playerId == 0 && MatchConstants.ENABLE_ALL_PLAYER_SELECTION && !partitionsGrid.isDefaultPartition(partitionId))
+				|| partitionPlayers[partitionId] == playerId;
+	}
+
+	@Override
+	public boolean isInBounds(int x, int y) {
+		return mainGrid.isInBounds(x, y);
+	}
+
+	@Override
+	public byte getHeightAt(int x, int y) {
+		return heights[x + y * width];
+	}
+}
@@ -76,6 +76,12 @@ public class AiPositions implements IMapArea {
 	private boolean sorted = false;
 	private int[] points = new int[MIN_SIZE];
 	private int size = 0;
+	/**
+	 * The number of elements at the start of {@link #points} that are known to be sorted.
+	 */
+	private int sortedSize = 0;
+	private int[] removals = new int[MIN_SIZE];
+	private int removalsSize = 0;
 
 	public void add(int x, int y) {
 		if (!contains(x, y)) {
@@ -97,18 +103,44 @@ public class AiPositions implements IMapArea {
 		points[size] = pos;
 		size++;
 		sorted = false;
+		limitPendingChanges();
+	}
+
+	/**
+	 * Remove a position of which we are sure that it is in this set. The removal is deferred until the positions are accessed the next time, so
+	 * that many removals only cost a single pass over the positions.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	void removeNoCollission(int x, int y) {
+		if (removals.length == removalsSize) {
+			removals = Arrays.copyOf(removals, removals.length * 2);
+		}
+		removals[removalsSize] = pack(x, y);
+		removalsSize++;
+		sorted = false;
+		limitPendingChanges();
+	}
+
+	/**
+	 * Sorts the positions if there are more unsorted additions and pending removals than sorted positions. This limits the memory used by
+	 * positions that are changed often but rarely read, while keeping the amortized costs of a change constant.
+	 */
+	private void limitPendingChanges() {
+		if (size - sortedSize + removalsSize > Math.max(MIN_SIZE, sortedSize)) {
+			ensureSorted();
+		}
 	}
 
 	public void remove(int x, int y) {
 		ensureSorted();
 		int index = indexOf(x, y);
 		if (index >= 0) {
-			if (index < size - 1) {
-				points[index] = points[size - 1];
-				sorted = false;
-			}
+			System.arraycopy(points, index + 1, points, index, size - index - 1);
 			// TODO: shrink array.
 			size--;
+			sortedSize = size;
 		}
 	}
 
@@ -132,13 +164,72 @@ public class AiPositions implements IMapArea {
 		return new PositionsIterator();
 	}
 
+	/**
+	 * Applies all pending changes, so that following read only accesses do not modify this object and can be done from several threads.
+	 */
+	void sortPendingChanges() {
+		ensureSorted();
+	}
+
 	private void ensureSorted() {
 		if (!sorted) {
-			Arrays.sort(points, 0, size);
+			if (sortedSize == 0) {
+				Arrays.sort(points, 0, size);
+			} else if (sortedSize < size) {
+				mergeUnsortedTail();
+			}
+			if (removalsSize > 0) {
+				applyRemovals();
+			}
+			sortedSize = size;
 			sorted = true;
 		}
 	}
 
+	/**
+	 * Sorts the positions added since the last sort and merges them into the already sorted positions.
+	 */
+	private void mergeUnsortedTail() {
+		Arrays.sort(points, sortedSize, size);
+		int[] merged = new int[points.length];
+		int left = 0;
+		int right = sortedSize;
+		int target = 0;
+		while (left < sortedSize && right < size) {
+			if (points[left] <= points[right]) {
+				merged[target++] = points[left++];
+			} else {
+				merged[target++] = points[right++];
+			}
+		}
+		System.arraycopy(points, left, merged, target, sortedSize - left);
+		target += sortedSize - left;
+		System.arraycopy(points, right, merged, target, size - right);
+		points = merged;
+	}
+
+	/**
+	 * Removes the pending removals from the sorted positions in a single pass.
+	 */
+	private void applyRemovals() {
+		Arrays.sort(removals, 0, removalsSize);
+		int removalIndex = 0;
+		int target = 0;
+		for (int i = 0; i < size; i++) {
+			int point = points[i];
+			while (removalIndex < removalsSize && removals[removalIndex] < point) {
+				removalIndex++;
+			}
+			if (removalIndex < removalsSize && removals[removalIndex] == point) {
+				removalIndex++;
+			} else {
+				points[target++] = point;
+			}
+		}
+		size = target;
+		removalsSize = 0;
+	}
+
 	private static int pack(int x, int y) {
 		return ((x & SHORT_MASK) << 16) | (y & SHORT_MASK);
 	}
@@ -157,10 +248,13 @@ public class AiPositions implements IMapArea {
 
 	public void clear() {
 		size = 0;
+		sortedSize = 0;
+		removalsSize = 0;
 		points = new int[MIN_SIZE];
 	}
 
 	public ShortPoint2D getNearestPoint(ShortPoint2D center, int maxDistance, AiPositionFilter filter) {
+		ensureSorted();
 		int resX = -1, resY = -1;
 		int median = findClosestIndex(center.x, center.y);
 		if (median >= size) {
@@ -202,6 +296,7 @@ public class AiPositions implements IMapArea {
 	}
 
 	public int size() {
+		ensureSorted();
 		return size;
 	}
 
@@ -227,6 +322,7 @@ public class AiPositions implements IMapArea {
 
 	public ShortPoint2D getBestRatedPoint(PositionRater rater) {
 		// TODO: Parallel ?
+		ensureSorted();
 		int currentBestRating = PositionRater.RATE_INVALID;
 		ShortPoint2D currentBest = null;
 		for (int i = 0; i < size; i++) {
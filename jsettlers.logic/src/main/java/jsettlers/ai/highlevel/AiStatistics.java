@@ -21,6 +21,8 @@ import static jsettlers.common.movable.EMovableType.SWORDSMAN_L2;
 import static jsettlers.common.movable.EMovableType.SWORDSMAN_L3;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
@@ -31,7 +33,6 @@ import java.util.Queue;
 import java.util.Vector;
 
 import jsettlers.ai.highlevel.AiPositions.AiPositionFilter;
-import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.buildings.IMaterialProductionSettings;
@@ -43,13 +44,14 @@ import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.movable.EMovableType;
-import jsettlers.common.movable.IMovable;
+import jsettlers.common.movable.ESoldierType;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.buildings.Building;
+import jsettlers.logic.buildings.MaterialProductionSettings;
 import jsettlers.logic.buildings.WorkAreaBuilding;
+import jsettlers.logic.map.grid.IMapChangedListener;
 import jsettlers.logic.map.grid.MainGrid;
-import jsettlers.logic.map.grid.flags.FlagsGrid;
 import jsettlers.logic.map.grid.landscape.LandscapeGrid;
 import jsettlers.logic.map.grid.movable.MovableGrid;
 import jsettlers.logic.map.grid.objects.AbstractHexMapObject;
@@ -62,17 +64,41 @@ import jsettlers.logic.player.Team;
 /**
  * This class calculates statistics based on the grids which are used by highlevel and lowlevel KI. The statistics are calculated once and read
  * multiple times within one AiExecutor step triggerd by the game clock.
+ * <p />
+ * The statistics and the {@link AiMapSnapshot} contain everything the AIs read from the game: The states of the buildings, the ids of the movables,
+ * the materials and settings of the players and the map data. They are only changed by {@link #updateStatistics()}. Therefore the AIs can read them
+ * while the game keeps running.
+ * <p />
+ * The map statistics are only calculated for the whole map on the first update. Afterwards, only the positions reported by the
+ * {@link IMapChangedListener} events of the {@link MainGrid} are evaluated again. Therefore the costs of an update do not depend on the map
+ * size but on the number of changes since the last update.
  *
  * @author codingberlin
  */
 public class AiStatistics {
 
 	private static final short BORDER_LAND_WIDTH = 5;
+	private static final short CUTTABLE_CHECK_DISTANCE = 2;
+
+	private static final int RESOURCE = 1 << 0;
+	private static final int RESOURCE_COUNTED = 1 << 1;
+	private static final int GRASS = 1 << 2;
+	private static final int FREE_TREE = 1 << 3;
+	private static final int FREE_STONE = 1 << 4;
+	private static final int FREE_RIVER = 1 << 5;
+	private static final int LAND = 1 << 6;
+	private static final int BORDER_LAND = 1 << 7;
+	private static final int STONE_OF_PLAYER = 1 << 8;
+	private static final int TREE_OF_PLAYER = 1 << 9;
+	private static final int RIVER_OF_PLAYER = 1 << 10;
+	private static final int WINE_OF_PLAYER = 1 << 11;
 	private static final EBuildingType[] REFERENCE_POINT_FINDER_BUILDING_ORDER = {
 			EBuildingType.LUMBERJACK, EBuildingType.TOWER, EBuildingType.BIG_TOWER, EBuildingType.CASTLE };
 	private static final short TOWER_RADIUS_OVERLAP = 1;
 
 	private final Queue<Building> buildings;
+	private final Map<ShortPoint2D, AiBuilding> buildingsByPosition;
+	private final Map<ShortPoint2D, Integer> movableIdsByPosition;
 	private final PlayerStatistic[] playerStatistics;
 	private final Map<EMapObjectType, AiPositions> sortedCuttableObjectsInDefaultPartition;
 	private final AiPositions[] sortedResourceTypes;
@@ -82,19 +108,29 @@ public class AiStatistics {
 	private final ObjectsGrid objectsGrid;
 	private final PartitionsGrid partitionsGrid;
 	private final MovableGrid movableGrid;
-	private final FlagsGrid flagsGrid;
-	private final AbstractConstructionMarkableMap constructionMarksGrid;
+	private final AiMapSnapshot mapSnapshot;
 	private final AiMapInformation aiMapInformation;
 
+	private final short width;
+	private final short height;
+	private final MapChanges mapChanges;
+	private final byte[] positionPlayers;
+	private final byte[] positionResourceTypes;
+	private final short[] positionFlags;
+	private final BitSet[] positionsOfPlayers;
+	private final short[] evaluatedPartitionIdsToBuildOn;
+	private boolean mapStatisticsInitialized = false;
+
 	public AiStatistics(MainGrid mainGrid) {
 		this.buildings = Building.getAllBuildings();
+		this.buildingsByPosition = new HashMap<ShortPoint2D, AiBuilding>();
+		this.movableIdsByPosition = new HashMap<ShortPoint2D, Integer>();
 		this.mainGrid = mainGrid;
 		this.landscapeGrid = mainGrid.getLandscapeGrid();
 		this.objectsGrid = mainGrid.getObjectsGrid();
 		this.partitionsGrid = mainGrid.getPartitionsGrid();
 		this.movableGrid = mainGrid.getMovableGrid();
-		this.flagsGrid = mainGrid.getFlagsGrid();
-		this.constructionMarksGrid = mainGrid.getConstructionMarksGrid();
+		this.mapSnapshot = new AiMapSnapshot(mainGrid);
 		this.playerStatistics = new PlayerStatistic[mainGrid.getGuiInputGrid().getNumberOfPlayers()];
 		this.aiMapInformation = new AiMapInformation(this.partitionsGrid);
 		for (byte i = 0; i < mainGrid.getGuiInputGrid().getNumberOfPlayers(); i++) {
@@ -102,14 +138,61 @@ public class AiStatistics {
 		}
 		sortedRiversInDefaultPartition = new AiPositions();
 		sortedCuttableObjectsInDefaultPartition = new HashMap<EMapObjectType, AiPositions>();
+		sortedCuttableObjectsInDefaultPartition.put(TREE_ADULT, new AiPositions());
+		sortedCuttableObjectsInDefaultPartition.put(STONE, new AiPositions());
 		sortedResourceTypes = new AiPositions[EResourceType.VALUES.length];
 		for (int i = 0; i < sortedResourceTypes.length; i++) {
 			sortedResourceTypes[i] = new AiPositions();
 		}
+
+		this.width = mainGrid.getWidth();
+		this.height = mainGrid.getHeight();
+		this.positionPlayers = new byte[width * height];
+		Arrays.fill(positionPlayers, (byte) -1);
+		this.positionResourceTypes = new byte[width * height];
+		this.positionFlags = new short[width * height];
+		this.positionsOfPlayers = new BitSet[playerStatistics.length];
+		this.evaluatedPartitionIdsToBuildOn = new short[playerStatistics.length];
+		for (int i = 0; i < playerStatistics.length; i++) {
+			positionsOfPlayers[i] = new BitSet();
+			evaluatedPartitionIdsToBuildOn[i] = Short.MIN_VALUE;
+		}
+
+		this.mapChanges = new MapChanges(width, height, playerStatistics.length);
+		mainGrid.addMapChangedListener(mapChanges);
+	}
+
+	/**
+	 * Applies the pending changes of all positions lists. After this call, the statistics can be read by several AIs concurrently until the next
+	 * {@link #updateStatistics()}.
+	 */
+	void prepareConcurrentReads() {
+		sortedRiversInDefaultPartition.sortPendingChanges();
+		for (AiPositions positions : sortedCuttableObjectsInDefaultPartition.values()) {
+			positions.sortPendingChanges();
+		}
+		for (AiPositions positions : sortedResourceTypes) {
+			positions.sortPendingChanges();
+		}
+		for (PlayerStatistic playerStatistic : playerStatistics) {
+			playerStatistic.stones.sortPendingChanges();
+			playerStatistic.trees.sortPendingChanges();
+			playerStatistic.rivers.sortPendingChanges();
+			playerStatistic.landToBuildOn.sortPendingChanges();
+			playerStatistic.borderLandNextToFreeLand.sortPendingChanges();
+			playerStatistic.enemyTroopsInTown.sortPendingChanges();
+		}
+	}
+
+	/**
+	 * Stops listening to the changes of the map. This statistics object must not be updated afterwards.
+	 */
+	public void dispose() {
+		mainGrid.removeMapChangedListener(mapChanges);
 	}
 
 	public byte getFlatternEffortAtPositionForBuilding(final ShortPoint2D position, final EBuildingType buildingType) {
-		byte flattenEffort = constructionMarksGrid.calculateConstructionMarkValue(position.x, position.y, buildingType.getProtectedTiles());
+		byte flattenEffort = mapSnapshot.calculateConstructionMarkValue(position.x, position.y, buildingType.getProtectedTiles());
 		if (flattenEffort == -1) {
 			return Byte.MAX_VALUE;
 		}
@@ -118,25 +201,38 @@ public class AiStatistics {
 
 	public void updateStatistics() {
 		for (PlayerStatistic playerStatistic : playerStatistics) {
-			playerStatistic.clearAll();
-		}
-		sortedRiversInDefaultPartition.clear();
-		sortedCuttableObjectsInDefaultPartition.clear();
-		for (AiPositions xCoordinatesMap : sortedResourceTypes) {
-			xCoordinatesMap.clear();
+			playerStatistic.clearBuildingsAndMovables();
 		}
 
 		updateBuildingStatistics();
 		updateMapStatistics();
+		updateMovableStatistics();
+		updatePlayerStatistics();
 	}
 
 	private void updateBuildingStatistics() {
+		buildingsByPosition.clear();
 		for (Building building : buildings) {
 			PlayerStatistic playerStatistic = playerStatistics[building.getPlayerId()];
 			EBuildingType type = building.getBuildingType();
 			updateNumberOfNotFinishedBuildings(playerStatistic, building);
 			updateBuildingsNumbers(playerStatistic, building, type);
 			updateBuildingPositions(playerStatistic, type, building);
+			buildingsByPosition.put(building.getPos(), new AiBuilding(building));
+		}
+	}
+
+	private void updatePlayerStatistics() {
+		for (byte playerId = 0; playerId < playerStatistics.length; playerId++) {
+			Player player = partitionsGrid.getPlayer(playerId);
+			if (player == null) {
+				continue;
+			}
+			PlayerStatistic playerStatistic = playerStatistics[playerId];
+			playerStatistic.combatStrength = player.getCombatStrengthInformation().getCombatStrength(false);
+			for (ESoldierType soldierType : ESoldierType.VALUES) {
+				playerStatistic.upgradePossible[soldierType.ordinal()] = player.getManaInformation().isUpgradePossible(soldierType);
+			}
 		}
 	}
 
@@ -177,82 +273,202 @@ public class AiStatistics {
 	}
 
 	private void updateMapStatistics() {
-		aiMapInformation.clear();
 		updatePartitionIdsToBuildOn();
-		short width = mainGrid.getWidth();
-		short height = mainGrid.getHeight();
-		for (short x = 0; x < width; x++) {
-			for (short y = 0; y < height; y++) {
-				Player player = partitionsGrid.getPlayerAt(x, y);
-				int mapInformationPlayerId;
-				if (player != null) {
-					mapInformationPlayerId = player.playerId;
-				} else {
-					mapInformationPlayerId = aiMapInformation.resourceAndGrassCount.length - 1;
-				}
-				if (landscapeGrid.getResourceAmountAt(x, y) > 0) {
-					EResourceType resourceType = landscapeGrid.getResourceTypeAt(x, y);
-					sortedResourceTypes[resourceType.ordinal].addNoCollission(x, y);
-					if (resourceType != EResourceType.FISH || landscapeGrid.getLandscapeTypeAt(x, y) == ELandscapeType.WATER1) {
-						aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][resourceType.ordinal]++;
-					}
-				}
-				if (landscapeGrid.getLandscapeTypeAt(x, y).isGrass()) {
-					aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][aiMapInformation.GRASS_INDEX]++;
+
+		mapSnapshot.updateTowerCounts();
+
+		if (!mapStatisticsInitialized) {
+			mapChanges.takeChangedPositions(); // the full evaluation covers all changes reported until now
+			for (short x = 0; x < width; x++) {
+				for (short y = 0; y < height; y++) {
+					updatePosition(x, y);
 				}
-				Movable movable = movableGrid.getMovableAt(x, y);
-				if (movable != null) {
-					byte movablePlayerId = movable.getPlayerId();
-					PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
-					EMovableType movableType = movable.getMovableType();
-					if (!movablePlayerStatistic.movablePositions.containsKey(movableType)) {
-						movablePlayerStatistic.movablePositions.put(movableType, new Vector<ShortPoint2D>());
-					}
-					movablePlayerStatistic.movablePositions.get(movableType).add(movable.getPos());
-					if (player != null
-							&& player.playerId != movablePlayerId
-							&& movableType.isSoldier()
-							&& getEnemiesOf(player.playerId).contains(movablePlayerId)) {
-						playerStatistics[player.playerId].enemyTroopsInTown.addNoCollission(movable.getPos().x, movable.getPos().y);
-					}
+			}
+			for (short x = 0; x < width; x++) {
+				for (short y = 0; y < height; y++) {
+					mapSnapshot.updatePlantable(new ShortPoint2D(x, y));
 				}
-				if (player == null) {
-					updateFreeLand(x, y);
-				} else if (partitionsGrid.getPartitionIdAt(x, y) == playerStatistics[player.playerId].partitionIdToBuildOn) {
-					updatePlayerLand(x, y, player);
+			}
+			mapStatisticsInitialized = true;
+		}
+
+		for (byte playerId = 0; playerId < playerStatistics.length; playerId++) {
+			short partitionIdToBuildOn = playerStatistics[playerId].partitionIdToBuildOn;
+			if (mapChanges.takePartitionsMerged(playerId) || partitionIdToBuildOn != evaluatedPartitionIdsToBuildOn[playerId]) {
+				// the partition ids of the player's positions might have changed => check all of them
+				BitSet positionsOfPlayer = positionsOfPlayers[playerId];
+				for (int index = positionsOfPlayer.nextSetBit(0); index >= 0; index = positionsOfPlayer.nextSetBit(index + 1)) {
+					updatePosition(index % width, index / width);
 				}
+				evaluatedPartitionIdsToBuildOn[playerId] = partitionIdToBuildOn;
 			}
 		}
+
+		int[] changedPositions = mapChanges.takeChangedPositions();
+		for (int index : changedPositions) {
+			updatePosition(index % width, index / width);
+		}
+		for (int index : changedPositions) {
+			mapSnapshot.updatePlantableAround(index % width, index / width);
+		}
 	}
 
-	private void updatePlayerLand(short x, short y, Player player) {
-		int playerId = player.playerId;
-		PlayerStatistic playerStatistic = playerStatistics[playerId];
-		updateBorderlandNextToFreeLand(playerStatistic, x, y);
-		playerStatistic.landToBuildOn.addNoCollission(x, y);
+	/**
+	 * Evaluates the given position and updates the statistics by the difference to the last evaluation of the position.
+	 */
+	private void updatePosition(int x, int y) {
+		mapSnapshot.updatePosition(x, y);
+
+		int index = x + y * width;
+		Player player = partitionsGrid.getPlayerAt(x, y);
+		byte newPlayerId = player != null ? player.playerId : -1;
+		byte newResourceType = 0;
+		int newFlags = 0;
+
+		ELandscapeType landscape = landscapeGrid.getLandscapeTypeAt(x, y);
+		if (landscapeGrid.getResourceAmountAt(x, y) > 0) {
+			EResourceType resourceType = landscapeGrid.getResourceTypeAt(x, y);
+			newResourceType = resourceType.ordinal;
+			newFlags |= RESOURCE;
+			if (resourceType != EResourceType.FISH || landscape == ELandscapeType.WATER1) {
+				newFlags |= RESOURCE_COUNTED;
+			}
+		}
+		if (landscape.isGrass()) {
+			newFlags |= GRASS;
+		}
+		if (player == null) {
+			newFlags |= calculateFreeLandFlags(x, y, landscape);
+		} else if (partitionsGrid.getPartitionIdAt(x, y) == playerStatistics[newPlayerId].partitionIdToBuildOn) {
+			newFlags |= calculatePlayerLandFlags(x, y, newPlayerId, landscape);
+		}
+
+		byte oldPlayerId = positionPlayers[index];
+		byte oldResourceType = positionResourceTypes[index];
+		int oldFlags = positionFlags[index];
+		if (oldFlags == newFlags && oldPlayerId == newPlayerId && oldResourceType == newResourceType) {
+			return;
+		}
+
+		boolean playerChanged = oldPlayerId != newPlayerId;
+		boolean resourceTypeChanged = oldResourceType != newResourceType;
+
+		if (isChanged(oldFlags, newFlags, RESOURCE, resourceTypeChanged)) {
+			if ((oldFlags & RESOURCE) != 0) {
+				sortedResourceTypes[oldResourceType].removeNoCollission(x, y);
+			}
+			if ((newFlags & RESOURCE) != 0) {
+				sortedResourceTypes[newResourceType].addNoCollission(x, y);
+			}
+		}
+		if (isChanged(oldFlags, newFlags, RESOURCE_COUNTED, resourceTypeChanged || playerChanged)) {
+			if ((oldFlags & RESOURCE_COUNTED) != 0) {
+				aiMapInformation.resourceAndGrassCount[getMapInformationPlayerId(oldPlayerId)][oldResourceType]--;
+			}
+			if ((newFlags & RESOURCE_COUNTED) != 0) {
+				aiMapInformation.resourceAndGrassCount[getMapInformationPlayerId(newPlayerId)][newResourceType]++;
+			}
+		}
+		if (isChanged(oldFlags, newFlags, GRASS, playerChanged)) {
+			if ((oldFlags & GRASS) != 0) {
+				aiMapInformation.resourceAndGrassCount[getMapInformationPlayerId(oldPlayerId)][AiMapInformation.GRASS_INDEX]--;
+			}
+			if ((newFlags & GRASS) != 0) {
+				aiMapInformation.resourceAndGrassCount[getMapInformationPlayerId(newPlayerId)][AiMapInformation.GRASS_INDEX]++;
+			}
+		}
+
+		updatePositions(x, y, oldFlags, newFlags, FREE_TREE, sortedCuttableObjectsInDefaultPartition.get(TREE_ADULT), null, false);
+		updatePositions(x, y, oldFlags, newFlags, FREE_STONE, sortedCuttableObjectsInDefaultPartition.get(STONE), null, false);
+		updatePositions(x, y, oldFlags, newFlags, FREE_RIVER, sortedRiversInDefaultPartition, null, false);
+
+		PlayerStatistic oldStatistic = oldPlayerId >= 0 ? playerStatistics[oldPlayerId] : null;
+		PlayerStatistic newStatistic = newPlayerId >= 0 ? playerStatistics[newPlayerId] : null;
+		updatePositions(x, y, oldFlags, newFlags, LAND,
+				oldStatistic != null ? oldStatistic.landToBuildOn : null, newStatistic != null ? newStatistic.landToBuildOn : null, playerChanged);
+		updatePositions(x, y, oldFlags, newFlags, BORDER_LAND,
+				oldStatistic != null ? oldStatistic.borderLandNextToFreeLand : null,
+				newStatistic != null ? newStatistic.borderLandNextToFreeLand : null, playerChanged);
+		updatePositions(x, y, oldFlags, newFlags, STONE_OF_PLAYER,
+				oldStatistic != null ? oldStatistic.stones : null, newStatistic != null ? newStatistic.stones : null, playerChanged);
+		updatePositions(x, y, oldFlags, newFlags, TREE_OF_PLAYER,
+				oldStatistic != null ? oldStatistic.trees : null, newStatistic != null ? newStatistic.trees : null, playerChanged);
+		updatePositions(x, y, oldFlags, newFlags, RIVER_OF_PLAYER,
+				oldStatistic != null ? oldStatistic.rivers : null, newStatistic != null ? newStatistic.rivers : null, playerChanged);
+		if (isChanged(oldFlags, newFlags, WINE_OF_PLAYER, playerChanged)) {
+			if ((oldFlags & WINE_OF_PLAYER) != 0) {
+				oldStatistic.wineCount--;
+			}
+			if ((newFlags & WINE_OF_PLAYER) != 0) {
+				newStatistic.wineCount++;
+			}
+		}
+
+		if (playerChanged) {
+			if (oldPlayerId >= 0) {
+				positionsOfPlayers[oldPlayerId].clear(index);
+			}
+			if (newPlayerId >= 0) {
+				positionsOfPlayers[newPlayerId].set(index);
+			}
+		}
+
+		positionPlayers[index] = newPlayerId;
+		positionResourceTypes[index] = newResourceType;
+		positionFlags[index] = (short) newFlags;
+	}
+
+	private static boolean isChanged(int oldFlags, int newFlags, int flag, boolean keyChanged) {
+		return (oldFlags & flag) != (newFlags & flag) || keyChanged && ((oldFlags | newFlags) & flag) != 0;
+	}
+
+	private static void updatePositions(int x, int y, int oldFlags, int newFlags, int flag, AiPositions oldPositions, AiPositions newPositions,
+			boolean playerChanged) {
+		if (newPositions == null) {
+			newPositions = oldPositions;
+		}
+		if (isChanged(oldFlags, newFlags, flag, playerChanged)) {
+			if ((oldFlags & flag) != 0) {
+				oldPositions.removeNoCollission(x, y);
+			}
+			if ((newFlags & flag) != 0) {
+				newPositions.addNoCollission(x, y);
+			}
+		}
+	}
+
+	private int getMapInformationPlayerId(byte playerId) {
+		return playerId >= 0 ? playerId : aiMapInformation.resourceAndGrassCount.length - 1;
+	}
+
+	private int calculatePlayerLandFlags(int x, int y, byte playerId, ELandscapeType landscape) {
+		int flags = LAND;
+		if (isBorderLandNextToFreeLand(x, y)) {
+			flags |= BORDER_LAND;
+		}
 		AbstractHexMapObject o = objectsGrid.getObjectsAt(x, y);
 		if (o != null) {
-			if (o.hasCuttableObject(STONE) && isCuttableByPlayer(x, y, player.playerId)) {
-				playerStatistic.stones.addNoCollission(x, y);
-			} else if (o.hasCuttableObject(TREE_ADULT) && isCuttableByPlayer(x, y, player.playerId)) {
-				playerStatistic.trees.addNoCollission(x, y);
+			if (o.hasCuttableObject(STONE) && isCuttableByPlayer(x, y, playerId)) {
+				flags |= STONE_OF_PLAYER;
+			} else if (o.hasCuttableObject(TREE_ADULT) && isCuttableByPlayer(x, y, playerId)) {
+				flags |= TREE_OF_PLAYER;
 			}
 		}
-		ELandscapeType landscape = landscapeGrid.getLandscapeTypeAt(x, y);
 		if (landscape.isRiver()) {
-			playerStatistic.rivers.addNoCollission(x, y);
+			flags |= RIVER_OF_PLAYER;
 		}
 		if (objectsGrid.hasMapObjectType(x, y, EMapObjectType.WINE_GROWING, EMapObjectType.WINE_HARVESTABLE)) {
-			playerStatistic.wineCount++;
+			flags |= WINE_OF_PLAYER;
 		}
+		return flags;
 	}
 
-	private boolean isCuttableByPlayer(short x, short y, byte playerId) {
+	private boolean isCuttableByPlayer(int x, int y, byte playerId) {
 		byte[] playerIds = new byte[4];
-		playerIds[0] = partitionsGrid.getPlayerIdAt(x - 2, y - 2);
-		playerIds[1] = partitionsGrid.getPlayerIdAt(x - 2, y + 2);
-		playerIds[2] = partitionsGrid.getPlayerIdAt(x + 2, y - 2);
-		playerIds[3] = partitionsGrid.getPlayerIdAt(x + 2, y + 2);
+		playerIds[0] = partitionsGrid.getPlayerIdAt(x - CUTTABLE_CHECK_DISTANCE, y - CUTTABLE_CHECK_DISTANCE);
+		playerIds[1] = partitionsGrid.getPlayerIdAt(x - CUTTABLE_CHECK_DISTANCE, y + CUTTABLE_CHECK_DISTANCE);
+		playerIds[2] = partitionsGrid.getPlayerIdAt(x + CUTTABLE_CHECK_DISTANCE, y - CUTTABLE_CHECK_DISTANCE);
+		playerIds[3] = partitionsGrid.getPlayerIdAt(x + CUTTABLE_CHECK_DISTANCE, y + CUTTABLE_CHECK_DISTANCE);
 		for (byte positionPlayerId : playerIds) {
 			if (positionPlayerId != playerId) {
 				return false;
@@ -261,26 +477,65 @@ public class AiStatistics {
 		return true;
 	}
 
-	private void updateFreeLand(short x, short y) {
+	private int calculateFreeLandFlags(int x, int y, ELandscapeType landscape) {
+		int flags = 0;
 		if (objectsGrid.hasCuttableObject(x, y, TREE_ADULT)) {
-			AiPositions trees = sortedCuttableObjectsInDefaultPartition.get(TREE_ADULT);
-			if (trees == null) {
-				trees = new AiPositions();
-				sortedCuttableObjectsInDefaultPartition.put(TREE_ADULT, trees);
-			}
-			trees.addNoCollission(x, y);
+			flags |= FREE_TREE;
 		}
 		if (objectsGrid.hasCuttableObject(x, y, STONE)) {
-			AiPositions stones = sortedCuttableObjectsInDefaultPartition.get(STONE);
-			if (stones == null) {
-				stones = new AiPositions();
-				sortedCuttableObjectsInDefaultPartition.put(STONE, stones);
-			}
-			stones.addNoCollission(x, y);
+			flags |= FREE_STONE;
 		}
-		ELandscapeType landscape = landscapeGrid.getLandscapeTypeAt(x, y);
 		if (landscape.isRiver()) {
-			sortedRiversInDefaultPartition.addNoCollission(x, y);
+			flags |= FREE_RIVER;
+		}
+		return flags;
+	}
+
+	private void updateMovableStatistics() {
+		boolean[][] enemies = new boolean[playerStatistics.length][playerStatistics.length];
+		for (byte playerId = 0; playerId < playerStatistics.length; playerId++) {
+			for (byte enemyId : getEnemiesOf(playerId)) {
+				enemies[playerId][enemyId] = true;
+			}
+		}
+
+		movableIdsByPosition.clear();
+
+		// collect the movables standing on the grid, sorted the same way as a scan over the map would find them
+		List<Movable> movables = new ArrayList<Movable>();
+		List<ShortPoint2D> positions = new ArrayList<ShortPoint2D>();
+		long[] sortKeys = new long[16];
+		for (Movable movable : Movable.getAllMovables()) {
+			ShortPoint2D position = movable.getPos();
+			if (position != null && mainGrid.isInBounds(position.x, position.y) && movableGrid.getMovableAt(position.x, position.y) == movable) {
+				if (sortKeys.length == movables.size()) {
+					sortKeys = Arrays.copyOf(sortKeys, sortKeys.length * 2);
+				}
+				sortKeys[movables.size()] = ((long) (position.x * height + position.y) << 32) | movables.size();
+				movables.add(movable);
+				positions.add(position);
+			}
+		}
+		Arrays.sort(sortKeys, 0, movables.size());
+
+		for (int i = 0; i < movables.size(); i++) {
+			int movableIndex = (int) sortKeys[i];
+			Movable movable = movables.get(movableIndex);
+			ShortPoint2D position = positions.get(movableIndex);
+
+			byte movablePlayerId = movable.getPlayerId();
+			PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
+			EMovableType movableType = movable.getMovableType();
+			if (!movablePlayerStatistic.movablePositions.containsKey(movableType)) {
+				movablePlayerStatistic.movablePositions.put(movableType, new Vector<ShortPoint2D>());
+			}
+			movablePlayerStatistic.movablePositions.get(movableType).add(position);
+			movableIdsByPosition.put(position, movable.getID());
+
+			byte playerId = partitionsGrid.getPlayerIdAt(position.x, position.y);
+			if (playerId >= 0 && playerId != movablePlayerId && movableType.isSoldier() && enemies[playerId][movablePlayerId]) {
+				playerStatistics[playerId].enemyTroopsInTown.addNoCollission(position.x, position.y);
+			}
 		}
 	}
 
@@ -297,38 +552,43 @@ public class AiStatistics {
 			if (referencePosition != null) {
 				playerStatistics[playerId].referencePosition = referencePosition;
 				playerStatistics[playerId].partitionIdToBuildOn = partitionsGrid.getPartitionIdAt(referencePosition.x, referencePosition.y);
-				playerStatistics[playerId].materialProduction = partitionsGrid.getMaterialProductionAt(referencePosition.x, referencePosition.y);
-				playerStatistics[playerId].materials = partitionsGrid.getPartitionDataForManagerAt(referencePosition.x, referencePosition.y);
+				playerStatistics[playerId].materialProduction = new MaterialProductionSettings(
+						partitionsGrid.getMaterialProductionAt(referencePosition.x, referencePosition.y));
+				IPartitionData materials = partitionsGrid.getPartitionDataForManagerAt(referencePosition.x, referencePosition.y);
+				int[] materialAmounts = playerStatistics[playerId].materialAmounts;
+				for (EMaterialType materialType : EMaterialType.VALUES) {
+					materialAmounts[materialType.ordinal] = materials.getAmountOf(materialType);
+				}
+				playerStatistics[playerId].hasMaterials = true;
 			}
 		}
 	}
 
-	private void updateBorderlandNextToFreeLand(PlayerStatistic playerStatistic, short x, short y) {
+	private boolean isBorderLandNextToFreeLand(int x, int y) {
 		for (EDirection dir : EDirection.VALUES) {
 			int lx = x + dir.gridDeltaX * BORDER_LAND_WIDTH;
 			int ly = y + dir.gridDeltaY * BORDER_LAND_WIDTH;
 			if (mainGrid.isInBounds(lx, ly)) {
 				if (partitionsGrid.isDefaultPartition(partitionsGrid.getPartitionIdAt(lx, ly))) {
-					playerStatistic.borderLandNextToFreeLand.addNoCollission(x, y);
-					break;
+					return true;
 				}
 			}
 		}
+		return false;
 	}
 
 	public List<ShortPoint2D> getHinterlandMilitaryBuildingPositionsOfPlayer(byte playerId) {
 		List<ShortPoint2D> hinterlandMilitaryBuildingPositions = new ArrayList<ShortPoint2D>();
 		for (ShortPoint2D militaryBuildingPosition : getBuildingPositionsOfTypesForPlayer(EBuildingType.getMilitaryBuildings(), playerId)) {
-			Building militaryBuilding = getBuildingAt(militaryBuildingPosition);
-			if (isMilitaryBuildingInHinterland(militaryBuilding, playerId)) {
+			if (isMilitaryBuildingInHinterland(militaryBuildingPosition, playerId)) {
 				hinterlandMilitaryBuildingPositions.add(militaryBuildingPosition);
 			}
 		}
 		return hinterlandMilitaryBuildingPositions;
 	}
 
-	private boolean isMilitaryBuildingInHinterland(Building militaryBuilding, byte playerId) {
-		for (ShortPoint2D influencedPositions : new MapCircle(militaryBuilding.getPos(), CommonConstants.TOWER_RADIUS + TOWER_RADIUS_OVERLAP)) {
+	private boolean isMilitaryBuildingInHinterland(ShortPoint2D militaryBuildingPosition, byte playerId) {
+		for (ShortPoint2D influencedPositions : new MapCircle(militaryBuildingPosition, CommonConstants.TOWER_RADIUS + TOWER_RADIUS_OVERLAP)) {
 			if (!mainGrid.isInBounds(influencedPositions.x, influencedPositions.y)) {
 				continue;
 			}
@@ -341,16 +601,23 @@ public class AiStatistics {
 	}
 
 	private boolean positionIsOtherPlayersLand(ShortPoint2D position, byte playerId) {
-		return mainGrid.getPartitionsGrid().getPartitionIdAt(position.x, position.y) != playerStatistics[playerId].partitionIdToBuildOn;
+		return mapSnapshot.getPartitionIdAt(position.x, position.y) != playerStatistics[playerId].partitionIdToBuildOn;
 	}
 
 	private boolean positionIsBorderLandAndIsProtectedOnlyFromOneTower(byte playerId, ShortPoint2D occupiedPosition) {
 		return getBorderLandNextToFreeLandForPlayer(playerId).contains(occupiedPosition)
-				&& partitionsGrid.getTowerCountAt(occupiedPosition.x, occupiedPosition.y) == 1;
+				&& mapSnapshot.getTowerCountAt(occupiedPosition.x, occupiedPosition.y) == 1;
 	}
 
-	public Building getBuildingAt(ShortPoint2D point) {
-		return (Building) objectsGrid.getMapObjectAt(point.x, point.y, EMapObjectType.BUILDING);
+	public AiBuilding getBuildingAt(ShortPoint2D point) {
+		return buildingsByPosition.get(point);
+	}
+
+	/**
+	 * @return The id of the movable at the given position. The position must be one of the movable positions of these statistics.
+	 */
+	public int getMovableIdAt(ShortPoint2D position) {
+		return movableIdsByPosition.get(position);
 	}
 
 	public ShortPoint2D getNearestResourcePointForPlayer(ShortPoint2D point, EResourceType resourceType, byte playerId, int searchDistance) {
@@ -380,7 +647,7 @@ public class AiStatistics {
 		return sortedPoints.getNearestPoint(point, searchDistance, new AiPositionFilter() {
 			@Override
 			public boolean contains(int x, int y) {
-				return partitionsGrid.getPartitionAt(x, y).getPlayerId() == playerId;
+				return mapSnapshot.getPlayerIdAt(x, y) == playerId;
 			}
 		});
 	}
@@ -479,13 +746,13 @@ public class AiStatistics {
 
 	private boolean pointIsFreeForPlayer(short x, short y, byte playerId) {
 		return mainGrid.isInBounds(x, y)
-				&& partitionsGrid.getPlayerIdAt(x, y) == playerId
-				&& !objectsGrid.isBuildingAt(x, y)
-				&& !flagsGrid.isProtected(x, y)
-				&& landscapeGrid.areAllNeighborsOf(x, y, 0, 2, ELandscapeType.GRASS, ELandscapeType.EARTH);
+				&& mapSnapshot.getPlayerIdAt(x, y) == playerId
+				&& !mapSnapshot.isBuildingAt(x, y)
+				&& !mapSnapshot.isProtected(x, y)
+				&& mapSnapshot.areAllNeighborsOf(x, y, 0, 2, ELandscapeType.GRASS, ELandscapeType.EARTH);
 	}
 
-	public IMovable getNearestSwordsmanOf(ShortPoint2D targetPosition, byte playerId) {
+	public ShortPoint2D getNearestSwordsmanPositionOf(ShortPoint2D targetPosition, byte playerId) {
 		List<ShortPoint2D> soldierPositions = getMovablePositionsByTypeForPlayer(SWORDSMAN_L3, playerId);
 		if (soldierPositions.size() == 0) {
 			soldierPositions = getMovablePositionsByTypeForPlayer(SWORDSMAN_L2, playerId);
@@ -497,8 +764,7 @@ public class AiStatistics {
 			return null;
 		}
 
-		ShortPoint2D nearestSoldierPosition = detectNearestPointFromList(targetPosition, soldierPositions);
-		return movableGrid.getMovableAt(nearestSoldierPosition.x, nearestSoldierPosition.y);
+		return detectNearestPointFromList(targetPosition, soldierPositions);
 	}
 
 	public static ShortPoint2D detectNearestPointFromList(ShortPoint2D referencePoint, List<ShortPoint2D> points) {
@@ -530,15 +796,15 @@ public class AiStatistics {
 	}
 
 	public int getNumberOfMaterialTypeForPlayer(EMaterialType type, byte playerId) {
-		if (playerStatistics[playerId].materials == null) {
+		if (!playerStatistics[playerId].hasMaterials) {
 			return 0;
 		}
 
-		return playerStatistics[playerId].materials.getAmountOf(type);
+		return playerStatistics[playerId].materialAmounts[type.ordinal];
 	}
 
-	public MainGrid getMainGrid() {
-		return mainGrid;
+	public AiMapSnapshot getMapSnapshot() {
+		return mapSnapshot;
 	}
 
 	public ShortPoint2D getNearestRiverPointInDefaultPartitionFor(ShortPoint2D referencePoint, int searchDistance) {
@@ -593,6 +859,14 @@ public class AiStatistics {
 		return playerStatistics[playerId].materialProduction;
 	}
 
+	public float getCombatStrength(byte playerId) {
+		return playerStatistics[playerId].combatStrength;
+	}
+
+	public boolean isUpgradePossible(byte playerId, ESoldierType soldierType) {
+		return playerStatistics[playerId].upgradePossible[soldierType.ordinal()];
+	}
+
 	public ShortPoint2D getPositionOfPartition(byte playerId) {
 		return playerStatistics[playerId].referencePosition;
 	}
@@ -605,6 +879,78 @@ public class AiStatistics {
 		return aiMapInformation;
 	}
 
+	/**
+	 * Collects the positions reported by the {@link IMapChangedListener} events until they are evaluated by the next update. Every position is
+	 * only collected once. A change of the partition also marks the positions whose statistics depend on the partitions in their surrounding.
+	 */
+	private static final class MapChanges implements IMapChangedListener {
+		private final short width;
+		private final short height;
+		private final BitSet changed;
+		private final boolean[] mergedPartitions;
+		private int[] changedPositions = new int[64];
+		private int numberOfChangedPositions = 0;
+
+		MapChanges(short width, short height, int numberOfPlayers) {
+			this.width = width;
+			this.height = height;
+			this.changed = new BitSet(width * height);
+			this.mergedPartitions = new boolean[numberOfPlayers];
+		}
+
+		@Override
+		public synchronized void mapChangedAt(int x, int y) {
+			markChanged(x, y);
+		}
+
+		@Override
+		public synchronized void partitionChangedAt(int x, int y) {
+			markChanged(x, y);
+			for (EDirection dir : EDirection.VALUES) { // positions checking for border land
+				markChanged(x - dir.gridDeltaX * BORDER_LAND_WIDTH, y - dir.gridDeltaY * BORDER_LAND_WIDTH);
+			}
+			// positions checking if a tree or stone can be cut by the player
+			markChanged(x - CUTTABLE_CHECK_DISTANCE, y - CUTTABLE_CHECK_DISTANCE);
+			markChanged(x - CUTTABLE_CHECK_DISTANCE, y + CUTTABLE_CHECK_DISTANCE);
+			markChanged(x + CUTTABLE_CHECK_DISTANCE, y - CUTTABLE_CHECK_DISTANCE);
+			markChanged(x + CUTTABLE_CHECK_DISTANCE, y + CUTTABLE_CHECK_DISTANCE);
+		}
+
+		@Override
+		public synchronized void partitionsMerged(byte playerId) {
+			mergedPartitions[playerId] = true;
+		}
+
+		private void markChanged(int x, int y) {
+			if (x < 0 || y < 0 || x >= width || y >= height) {
+				return;
+			}
+			int index = x + y * width;
+			if (!changed.get(index)) {
+				changed.set(index);
+				if (numberOfChangedPositions == changedPositions.length) {
+					changedPositions = Arrays.copyOf(changedPositions, changedPositions.length * 2);
+				}
+				changedPositions[numberOfChangedPositions++] = index;
+			}
+		}
+
+		synchronized int[] takeChangedPositions() {
+			int[] result = Arrays.copyOf(changedPositions, numberOfChangedPositions);
+			for (int index : result) {
+				changed.clear(index);
+			}
+			numberOfChangedPositions = 0;
+			return result;
+		}
+
+		synchronized boolean takePartitionsMerged(byte playerId) {
+			boolean merged = mergedPartitions[playerId];
+			mergedPartitions[playerId] = false;
+			return merged;
+		}
+	}
+
 	private static class PlayerStatistic {
 		ShortPoint2D referencePosition;
 		boolean isAlive;
@@ -614,7 +960,8 @@ public class AiStatistics {
 		List<ShortPoint2D> farmWorkAreas;
 		List<ShortPoint2D> wineGrowerWorkAreas;
 		short partitionIdToBuildOn;
-		IPartitionData materials;
+		boolean hasMaterials;
+		int[] materialAmounts;
 		AiPositions landToBuildOn;
 		AiPositions borderLandNextToFreeLand;
 		Map<EMovableType, List<ShortPoint2D>> movablePositions;
@@ -627,6 +974,8 @@ public class AiStatistics {
 		int numberOfNotOccupiedMilitaryBuildings;
 		int wineCount;
 		IMaterialProductionSettings materialProduction;
+		float combatStrength;
+		boolean[] upgradePossible;
 
 		PlayerStatistic() {
 			buildingPositions = new HashMap<EBuildingType, List<ShortPoint2D>>();
@@ -641,19 +990,20 @@ public class AiStatistics {
 			buildingsNumbers = new int[EBuildingType.NUMBER_OF_BUILDINGS];
 			farmWorkAreas = new Vector<ShortPoint2D>();
 			wineGrowerWorkAreas = new Vector<ShortPoint2D>();
+			materialAmounts = new int[EMaterialType.NUMBER_OF_MATERIALS];
+			upgradePossible = new boolean[ESoldierType.NUMBER_OF_VALUES];
 			clearIntegers();
 		}
 
-		public void clearAll() {
+		/**
+		 * Clears the statistics that are calculated completely on every update. The statistics of the map positions are updated incrementally and
+		 * therefore not cleared.
+		 */
+		public void clearBuildingsAndMovables() {
 			isAlive = false;
-			materials = null;
+			hasMaterials = false;
 			buildingPositions.clear();
 			enemyTroopsInTown.clear();
-			stones.clear();
-			trees.clear();
-			rivers.clear();
-			landToBuildOn.clear();
-			borderLandNextToFreeLand.clear();
 			movablePositions.clear();
 			farmWorkAreas.clear();
 			wineGrowerWorkAreas.clear();
@@ -666,7 +1016,6 @@ public class AiStatistics {
 			numberOfNotFinishedBuildings = 0;
 			numberOfTotalBuildings = 0;
 			numberOfNotOccupiedMilitaryBuildings = 0;
-			wineCount = 0;
 			partitionIdToBuildOn = Short.MIN_VALUE;
 		}
 
@@ -57,7 +57,6 @@ import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.movable.EMovableType;
-import jsettlers.common.movable.IMovable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.input.tasks.ConstructBuildingTask;
 import jsettlers.input.tasks.ConvertGuiTask;
@@ -65,9 +64,7 @@ import jsettlers.input.tasks.DestroyBuildingGuiTask;
 import jsettlers.input.tasks.EGuiAction;
 import jsettlers.input.tasks.MoveToGuiTask;
 import jsettlers.input.tasks.WorkAreaGuiTask;
-import jsettlers.logic.buildings.military.OccupyingBuilding;
-import jsettlers.logic.map.grid.MainGrid;
-import jsettlers.logic.movable.Movable;
+import jsettlers.logic.constants.ExtendedRandom;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 
 import static jsettlers.ai.highlevel.AiBuildingConstants.COAL_MINE_TO_IRONORE_MINE_RATIO;
@@ -98,7 +95,6 @@ public class WhatToDoAi implements IWhatToDoAi {
 	public static final int NUMBER_OF_BEARERSS_PER_HOUSE = 3;
 	public static final int MAXIMUM_STONECUTTER_WORK_RADIUS_FACTOR = 2;
 	public static final float WEAPON_SMITH_FACTOR = 7F;
-	private final MainGrid mainGrid;
 	private final byte playerId;
 	private final ITaskScheduler taskScheduler;
 	private final AiStatistics aiStatistics;
@@ -108,15 +104,14 @@ public class WhatToDoAi implements IWhatToDoAi {
 	private boolean isEndGame = false;
 	private ArrayList<Object> failedConstructingBuildings;
 
-	public WhatToDoAi(byte playerId, AiStatistics aiStatistics, EconomyMinister economyMinister, ArmyGeneral armyGeneral, MainGrid mainGrid,
-			ITaskScheduler taskScheduler) {
+	public WhatToDoAi(byte playerId, AiStatistics aiStatistics, EconomyMinister economyMinister, ArmyGeneral armyGeneral,
+			ITaskScheduler taskScheduler, ExtendedRandom random) {
 		this.playerId = playerId;
-		this.mainGrid = mainGrid;
 		this.taskScheduler = taskScheduler;
 		this.aiStatistics = aiStatistics;
 		this.armyGeneral = armyGeneral;
 		this.economyMinister = economyMinister;
-		bestConstructionPositionFinderFactory = new BestConstructionPositionFinderFactory();
+		bestConstructionPositionFinderFactory = new BestConstructionPositionFinderFactory(random);
 	}
 
 	@Override
@@ -140,14 +135,14 @@ public class WhatToDoAi implements IWhatToDoAi {
 		int bearersCount = bearersPositions.size();
 		int stoneCutterCount = aiStatistics.getNumberOfBuildingTypeForPlayer(STONECUTTER, playerId);
 		if (geologistsCount == 0 && stoneCutterCount >= 1 && bearersCount - 3 > MINIMUM_NUMBER_OF_BEARERS) {
-			Movable coalGeologist = getBearerAt(bearersPositions.get(0));
-			Movable ironGeologist = getBearerAt(bearersPositions.get(1));
-			Movable goldGeologist = getBearerAt(bearersPositions.get(2));
+			int coalGeologist = aiStatistics.getMovableIdAt(bearersPositions.get(0));
+			int ironGeologist = aiStatistics.getMovableIdAt(bearersPositions.get(1));
+			int goldGeologist = aiStatistics.getMovableIdAt(bearersPositions.get(2));
 
 			List<Integer> targetGeologists = new ArrayList<>();
-			targetGeologists.add(coalGeologist.getID());
-			targetGeologists.add(ironGeologist.getID());
-			targetGeologists.add(goldGeologist.getID());
+			targetGeologists.add(coalGeologist);
+			targetGeologists.add(ironGeologist);
+			targetGeologists.add(goldGeologist);
 			taskScheduler.scheduleTask(new ConvertGuiTask(playerId, targetGeologists, EMovableType.GEOLOGIST));
 
 			sendGeologistToNearest(coalGeologist, EResourceType.COAL);
@@ -157,7 +152,7 @@ public class WhatToDoAi implements IWhatToDoAi {
 		}
 	}
 
-	private void sendGeologistToNearest(Movable geologist, EResourceType resourceType) {
+	private void sendGeologistToNearest(int geologistId, EResourceType resourceType) {
 		ShortPoint2D resourcePoint = aiStatistics.getNearestResourcePointForPlayer(aiStatistics.getPositionOfPartition(playerId), resourceType,
 				playerId, Integer.MAX_VALUE);
 		if (resourcePoint == null) {
@@ -165,33 +160,27 @@ public class WhatToDoAi implements IWhatToDoAi {
 					aiStatistics.getPositionOfPartition(playerId), resourceType, Integer.MAX_VALUE);
 		}
 		if (resourcePoint != null) {
-			sendMovableTo(geologist, resourcePoint);
+			sendMovableTo(geologistId, resourcePoint);
 		}
 	}
 
-	private Movable getBearerAt(ShortPoint2D point) {
-		return mainGrid.getMovableGrid().getMovableAt(point.x, point.y);
-	}
-
 	private void occupyMilitaryBuildings() {
 		for (ShortPoint2D militaryBuildingPosition : aiStatistics.getBuildingPositionsOfTypesForPlayer(
 				EBuildingType.getMilitaryBuildings(), playerId)) {
 
-			OccupyingBuilding militaryBuilding = (OccupyingBuilding) aiStatistics.getBuildingAt(militaryBuildingPosition);
+			AiBuilding militaryBuilding = aiStatistics.getBuildingAt(militaryBuildingPosition);
 			if (militaryBuilding.getStateProgress() == 1 && !militaryBuilding.isOccupied()) {
 				ShortPoint2D door = militaryBuilding.getDoor();
-				IMovable soldier = aiStatistics.getNearestSwordsmanOf(door, playerId);
-				if (soldier != null && militaryBuilding.getPos().getOnGridDistTo(soldier.getPos()) > TOWER_SEARCH_RADIUS) {
-					sendMovableTo(soldier, door);
+				ShortPoint2D soldierPosition = aiStatistics.getNearestSwordsmanPositionOf(door, playerId);
+				if (soldierPosition != null && militaryBuilding.getPos().getOnGridDistTo(soldierPosition) > TOWER_SEARCH_RADIUS) {
+					sendMovableTo(aiStatistics.getMovableIdAt(soldierPosition), door);
 				}
 			}
 		}
 	}
 
-	private void sendMovableTo(IMovable movable, ShortPoint2D target) {
-		if (movable != null) {
-			taskScheduler.scheduleTask(new MoveToGuiTask(playerId, target, Collections.singletonList(movable.getID())));
-		}
+	private void sendMovableTo(int movableId, ShortPoint2D target) {
+		taskScheduler.scheduleTask(new MoveToGuiTask(playerId, target, Collections.singletonList(movableId)));
 	}
 
 	private void destroyBuildings() {
@@ -409,13 +398,13 @@ public class WhatToDoAi implements IWhatToDoAi {
 		}
 		ShortPoint2D position = bestConstructionPositionFinderFactory
 				.getBestConstructionPositionFinderFor(type)
-				.findBestConstructionPosition(aiStatistics, mainGrid.getConstructionMarksGrid(), playerId);
+				.findBestConstructionPosition(aiStatistics, aiStatistics.getMapSnapshot(), playerId);
 		if (position != null) {
 			taskScheduler.scheduleTask(new ConstructBuildingTask(EGuiAction.BUILD, playerId, position, type));
 			if (type.isMilitaryBuilding()) {
-				IMovable soldier = aiStatistics.getNearestSwordsmanOf(position, playerId);
-				if (soldier != null) {
-					sendMovableTo(soldier, position);
+				ShortPoint2D soldierPosition = aiStatistics.getNearestSwordsmanPositionOf(position, playerId);
+				if (soldierPosition != null) {
+					sendMovableTo(aiStatistics.getMovableIdAt(soldierPosition), position);
 				}
 			}
 			return true;
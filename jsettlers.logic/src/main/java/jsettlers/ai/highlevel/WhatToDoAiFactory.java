@@ -20,8 +20,7 @@ import jsettlers.ai.economy.BuildingListEconomyMinister;
 import jsettlers.ai.economy.EconomyMinister;
 import jsettlers.common.ai.EPlayerType;
 import jsettlers.common.player.ECivilisation;
-import jsettlers.logic.map.grid.MainGrid;
-import jsettlers.logic.map.grid.movable.MovableGrid;
+import jsettlers.logic.constants.ExtendedRandom;
 import jsettlers.logic.player.Player;
 import jsettlers.network.client.interfaces.ITaskScheduler;
 
@@ -37,12 +36,11 @@ public class WhatToDoAiFactory {
 			ECivilisation civilisation,
 			AiStatistics aiStatistics,
 			Player player,
-			MainGrid mainGrid,
-			MovableGrid movableGrid,
-			ITaskScheduler taskScheduler) {
-		ArmyGeneral general = determineArmyGeneral(type, civilisation, aiStatistics, player, movableGrid, taskScheduler);
+			ITaskScheduler taskScheduler,
+			ExtendedRandom random) {
+		ArmyGeneral general = determineArmyGeneral(type, civilisation, aiStatistics, player, taskScheduler);
 		EconomyMinister minister = determineMinister(type, civilisation, aiStatistics, player);
-		return new WhatToDoAi(player.playerId, aiStatistics, minister, general, mainGrid, taskScheduler);
+		return new WhatToDoAi(player.playerId, aiStatistics, minister, general, taskScheduler, random);
 	}
 
 	private EconomyMinister determineMinister(
@@ -60,8 +58,8 @@ public class WhatToDoAiFactory {
 	}
 
 	private ArmyGeneral determineArmyGeneral(EPlayerType type, ECivilisation civilisation, AiStatistics aiStatistics, Player player,
-			MovableGrid movableGrid, ITaskScheduler taskScheduler) {
+			ITaskScheduler taskScheduler) {
 		// TODO: use civilisation to determine different general when there is more than ROMAN
-		return new ConfigurableGeneral(aiStatistics, player, movableGrid, taskScheduler, ATTACKER_COUNT_FACTOR[type.ordinal()]);
+		return new ConfigurableGeneral(aiStatistics, player, taskScheduler, ATTACKER_COUNT_FACTOR[type.ordinal()]);
 	}
 }
@@ -14,13 +14,14 @@
  *******************************************************************************/
 package jsettlers.algorithms.borders;
 
-import java.util.concurrent.LinkedBlockingQueue;
-
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 
 /**
  * This thread calculates the positions that represent the border between the areas occupied by different players.
+ * <p>
+ * Positions that need to be checked are marked in a bitmap. The thread drains the marked positions in row-major batches, so every position is
+ * checked at most once per batch, no matter how often it has been marked.
  * 
  * @author Andreas Eberle
  * 
@@ -28,19 +29,47 @@ import jsettlers.common.position.ShortPoint2D;
 public class BordersThread implements Runnable {
 
 	private final IBordersThreadGrid grid;
-	private final LinkedBlockingQueue<ShortPoint2D> positionsQueue = new LinkedBlockingQueue<ShortPoint2D>();
+	private final short width;
+	private final short height;
 	private final Thread bordersThread;
 
-	private boolean canceled = false;
+	/**
+	 * Bit y * width + x is set, if the position (x, y) needs to be checked. Guarded by this.
+	 */
+	private long[] dirtyBits;
+	/**
+	 * The bitmap of the batch currently processed. Only accessed by the thread draining the batches.
+	 */
+	private long[] batchBits;
+	private int dirtyCount = 0;
+	private int dirtyMinY = Integer.MAX_VALUE;
+	private int dirtyMaxY = Integer.MIN_VALUE;
+	private long firstDirtyNanos;
+
+	private volatile int batchSize;
+	private volatile long lastBatchLatencyNanos;
+	private volatile long maxBatchLatencyNanos;
+	private volatile long processedPositions;
+	private volatile long processedBatches;
+
+	private volatile boolean canceled = false;
 
 	/**
-	 * This constructor creates a new instance of {@link BordersThread} and automatically launches a thread for it called "bordersThread".
+	 * This constructor creates a new instance of {@link BordersThread} and prepares a thread for it called "bordersThread".
 	 * 
 	 * @param grid
 	 *            the grid on that the {@link BordersThread} will be operating
+	 * @param width
+	 *            width of the grid
+	 * @param height
+	 *            height of the grid
 	 */
-	public BordersThread(IBordersThreadGrid grid) {
+	public BordersThread(IBordersThreadGrid grid, short width, short height) {
 		this.grid = grid;
+		this.width = width;
+		this.height = height;
+		this.dirtyBits = new long[(width * height + 63) / 64];
+		this.batchBits = new long[dirtyBits.length];
 		this.bordersThread = new Thread(this);
 		this.bordersThread.setName("BordersThread");
 		this.bordersThread.setDaemon(true);
@@ -49,23 +78,80 @@ public class BordersThread implements Runnable {
 	@Override
 	public void run() {
 		while (!canceled) {
-			ShortPoint2D position = null;
-			while (position == null && !canceled) {
-				try {
-					position = positionsQueue.take();
-				} catch (InterruptedException e) {
+			try {
+				synchronized (this) {
+					while (dirtyCount == 0 && !canceled) {
+						wait();
+					}
 				}
+			} catch (InterruptedException e) {
+				continue;
 			}
 			if (!canceled) {
-				calculateForPosition(position);
+				processBatch();
 			}
 		}
 	}
 
-	private void calculateForPosition(ShortPoint2D position) {
-		short x = position.x;
-		short y = position.y;
+	/**
+	 * Checks all positions marked so far in row-major order.
+	 * 
+	 * @return The number of checked positions.
+	 */
+	int processBatch() {
+		int minY;
+		int maxY;
+		int count;
+		long startNanos;
+
+		synchronized (this) {
+			if (dirtyCount == 0) {
+				return 0;
+			}
+			long[] temp = batchBits;
+			batchBits = dirtyBits;
+			dirtyBits = temp;
+
+			minY = dirtyMinY;
+			maxY = dirtyMaxY;
+			count = dirtyCount;
+			startNanos = firstDirtyNanos;
+
+			dirtyCount = 0;
+			dirtyMinY = Integer.MAX_VALUE;
+			dirtyMaxY = Integer.MIN_VALUE;
+			batchSize = count;
+		}
+
+		long[] bits = batchBits;
+		int firstWord = (minY * width) >> 6;
+		int lastWord = (maxY * width + width - 1) >> 6;
+		for (int wordIdx = firstWord; wordIdx <= lastWord && !canceled; wordIdx++) {
+			long word = bits[wordIdx];
+			if (word == 0) {
+				continue;
+			}
+			bits[wordIdx] = 0;
+
+			while (word != 0) {
+				int idx = (wordIdx << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				calculateForPosition((short) (idx % width), (short) (idx / width));
+			}
+		}
+
+		long latency = System.nanoTime() - startNanos;
+		lastBatchLatencyNanos = latency;
+		if (latency > maxBatchLatencyNanos) {
+			maxBatchLatencyNanos = latency;
+		}
+		processedPositions += count;
+		processedBatches++;
+		batchSize = 0;
+		return count;
+	}
 
+	private void calculateForPosition(short x, short y) {
 		byte player = grid.getPlayerIdAt(x, y);
 		boolean isBorder = false;
 
@@ -109,20 +195,71 @@ public class BordersThread implements Runnable {
 	}
 
 	public void checkPosition(ShortPoint2D position) {
-		this.positionsQueue.offer(position);
+		checkPosition(position.x, position.y);
+	}
+
+	public synchronized void checkPosition(int x, int y) {
+		markDirty(x, y);
+		notify();
 	}
 
-	public void checkArea(int x, int y, short width, short height) {
-		int endX = x + width;
-		int endY = y + height;
+	public synchronized void checkArea(int x, int y, short width, short height) {
+		int startX = x < 0 ? x & 1 : x; // the first position in bounds that keeps the sampling parity
+		int endX = Math.min(this.width, x + width);
+		int endY = Math.min(this.height, y + height);
+
+		for (y = y < 0 ? y & 1 : y; y < endY; y += 2) {
+			for (int currX = startX; currX < endX; currX += 2) {
+				markDirty(currX, y);
+			}
+		}
+		notify();
+	}
 
-		for (; y < endY; y += 2) {
-			for (int currX = x; currX < endX; currX += 2) {
-				this.positionsQueue.offer(new ShortPoint2D(currX, y));
+	private void markDirty(int x, int y) {
+		int idx = y * width + x;
+		long mask = 1L << idx;
+		long word = dirtyBits[idx >> 6];
+		if ((word & mask) == 0) {
+			dirtyBits[idx >> 6] = word | mask;
+			if (dirtyCount == 0) {
+				firstDirtyNanos = System.nanoTime();
 			}
+			dirtyCount++;
+			dirtyMinY = Math.min(dirtyMinY, y);
+			dirtyMaxY = Math.max(dirtyMaxY, y);
 		}
 	}
 
+	/**
+	 * @return The number of positions waiting to be checked, including the ones of the batch currently processed.
+	 */
+	public synchronized int getQueueDepth() {
+		return dirtyCount + batchSize;
+	}
+
+	/**
+	 * @return The time in nanoseconds from marking the first position of the last batch until the batch was processed.
+	 */
+	public long getLastBatchLatencyNanos() {
+		return lastBatchLatencyNanos;
+	}
+
+	/**
+	 * @return The longest time in nanoseconds from marking the first position of a batch until the batch was processed.
+	 */
+	public long getMaxBatchLatencyNanos() {
+		return maxBatchLatencyNanos;
+	}
+
+	public long getProcessedPositions() {
+		return processedPositions;
+	}
+
+	public long getProcessedBatches() {
+		return processedBatches;
+	}
+
 	public void cancel() {
 		this.canceled = true;
 		bordersThread.interrupt();
@@ -14,9 +14,11 @@
  *******************************************************************************/
 package jsettlers.algorithms.construction;
 
+import jsettlers.common.buildings.BuildingAreaBitSet;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.position.RelativePoint;
+import jsettlers.logic.constants.Constants;
 
 import java.util.Set;
 
@@ -77,7 +79,53 @@ public abstract class AbstractConstructionMarkableMap {
 
 	public abstract boolean isInBounds(int x, int y);
 
-	public abstract boolean canConstructAt(short x, short y, EBuildingType type, byte playerId);
+	public abstract byte getHeightAt(int x, int y);
 
-	public abstract byte calculateConstructionMarkValue(int mapX, int mapY, final RelativePoint[] flattenPositions);
+	public boolean canConstructAt(short x, short y, EBuildingType buildingType, byte playerId) {
+		RelativePoint[] buildingArea = buildingType.getBuildingArea();
+		BuildingAreaBitSet areaBitSet = buildingType.getBuildingAreaBitSet();
+		if (!isInBounds(areaBitSet.minX + x, areaBitSet.minY + y) || !isInBounds(areaBitSet.maxX + x, areaBitSet.maxY + y)) {
+			return false;
+		}
+
+		short partitionId = getPartitionIdAt(areaBitSet.aPosition.calculateX(x), areaBitSet.aPosition.calculateY(y));
+
+		if (!canPlayerConstructOnPartition(playerId, partitionId)) {
+			return false;
+		}
+		for (RelativePoint curr : buildingArea) {
+			int currX = curr.calculateX(x);
+			int currY = curr.calculateY(y);
+
+			if (!canUsePositionForConstruction(currX, currY, buildingType.getRequiredGroundTypeAt(currX, currY), partitionId)) {
+				return false;
+			}
+		}
+		return !buildingType.needsFlattenedGround() || calculateConstructionMarkValue(x, y, buildingArea) >= 0;
+	}
+
+	public byte calculateConstructionMarkValue(int mapX, int mapY, final RelativePoint[] flattenPositions) {
+		int sum = 0;
+
+		for (RelativePoint currPos : flattenPositions) {
+			sum += getHeightAt(currPos.calculateX(mapX), currPos.calculateY(mapY));
+		}
+
+		float avg = ((float) sum) / flattenPositions.length;
+		float diff = 0;
+
+		for (RelativePoint currPos : flattenPositions) {
+			float currDiff = Math.abs(getHeightAt(currPos.calculateX(mapX), currPos.calculateY(mapY)) - avg);
+			diff += currDiff;
+		}
+
+		int result = (int) (Constants.CONSTRUCTION_MARK_SCALE_FACTOR * Math.pow(diff, Constants.CONSTRUCTION_MARK_POW_FACTOR)
+				/ flattenPositions.length);
+
+		if (result <= Byte.MAX_VALUE) {
+			return (byte) result;
+		} else {
+			return -1;
+		}
+	}
 }
@@ -17,37 +17,41 @@ package jsettlers.algorithms.fogofwar;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
-import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.player.IPlayerable;
-import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 
 /**
  * This class holds the fog of war for a given map and player.
+ * <p>
+ * The sight is updated incrementally by a {@link SightUpdater}.
  * 
  * @author Andreas Eberle
  */
 public final class FogOfWar implements Serializable {
-	private static final long serialVersionUID = 1877994785778678510L;
+	private static final long serialVersionUID = -6457018216093829123L;
 	/**
 	 * Longest distance any unit may look
 	 */
 	static final byte MAX_VIEWDISTANCE = 65;
 	static final int PADDING = 10;
+	static final byte DIM_DOWN_SPEED = 10;
 
 	private final byte player;
 
 	final short width;
 	final short height;
-	byte[][] sight;
+	/**
+	 * The sight of position (x, y) is stored at index y * width + x.
+	 */
+	final byte[] sight;
 
 	private transient boolean enabled = Constants.FOG_OF_WAR_DEFAULT_ENABLED;
 	private transient IFogOfWarGrid grid;
 	private transient boolean canceled;
+	transient SightUpdater updater;
 
 	public FogOfWar(short width, short height) {
 		this(width, height, (byte) 0);
@@ -57,7 +61,7 @@ public final class FogOfWar implements Serializable {
 		this.width = width;
 		this.height = height;
 		this.player = player;
-		this.sight = new byte[width][height];
+		this.sight = new byte[width * height];
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
@@ -82,7 +86,7 @@ public final class FogOfWar implements Serializable {
 	 */
 	public final byte getVisibleStatus(int x, int y) {
 		if (enabled) {
-			return (byte) Math.min(sight[x][y], CommonConstants.FOG_OF_WAR_VISIBLE);
+			return (byte) Math.min(sight[y * width + x], CommonConstants.FOG_OF_WAR_VISIBLE);
 		} else {
 			return CommonConstants.FOG_OF_WAR_VISIBLE;
 		}
@@ -100,16 +104,29 @@ public final class FogOfWar implements Serializable {
 		this.enabled = enabled;
 	}
 
-	final class NewFoWThread extends Thread {
-		private static final byte DIM_DOWN_SPEED = 10;
-		private final CircleDrawer drawer;
-		private byte[][] buffer;
+	/**
+	 * Applies the changes of the view sources since the last call and dims the positions that are no longer seen. This is what the fog of war
+	 * thread does every 800 ms.
+	 * 
+	 * @param grid
+	 *            The grid supplying the view sources.
+	 */
+	final void updateSight(IFogOfWarGrid grid) {
+		if (updater == null) {
+			updater = new SightUpdater(width, height, 1, sight) {
+				@Override
+				protected int getPlayer(IViewDistancable source) {
+					return isPlayerOK(source) ? 0 : -1;
+				}
+			};
+		}
+		updater.update(grid);
+	}
 
+	final class NewFoWThread extends Thread {
 		NewFoWThread() {
 			super("FoWThread");
 			super.setDaemon(true);
-			this.buffer = new byte[width][height];
-			drawer = new CircleDrawer();
 		}
 
 		@Override
@@ -120,7 +137,7 @@ public final class FogOfWar implements Serializable {
 				// StopWatch watch = new MilliStopWatch();
 				// watch.restart();
 				if (enabled) {
-					rebuildSight();
+					updateSight(grid);
 				}
 				// watch.stop("NewFoWThread needed: ");
 
@@ -128,50 +145,6 @@ public final class FogOfWar implements Serializable {
 			}
 		}
 
-		private final void rebuildSight() {
-			drawer.setBuffer(buffer);
-
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte currSight = sight[x][y];
-
-					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
-						byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
-						if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
-							buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
-						} else {
-							buffer[x][y] = newSight;
-						}
-					} else {
-						buffer[x][y] = sight[x][y];
-					}
-				}
-			}
-
-			ConcurrentLinkedQueue<? extends IViewDistancable> buildings = grid.getBuildingViewDistancables();
-			applyViewDistances(buildings);
-
-			ConcurrentLinkedQueue<? extends IViewDistancable> movables = grid.getMovableViewDistancables();
-			applyViewDistances(movables);
-
-			byte[][] temp = sight;
-			sight = buffer;
-			buffer = temp;
-		}
-
-		private final void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
-			for (IViewDistancable curr : objects) {
-				if (isPlayerOK(curr)) {
-					short distance = curr.getViewDistance();
-					if (distance > 0) {
-						ShortPoint2D pos = curr.getPos();
-						if (pos != null)
-							drawer.drawCircleToBuffer(pos.x, pos.y, distance);
-					}
-				}
-			}
-		}
-
 		private final void mySleep(int ms) {
 			try {
 				Thread.sleep(ms);
@@ -179,49 +152,6 @@ public final class FogOfWar implements Serializable {
 				e.printStackTrace();
 			}
 		}
-
-	}
-
-	final class CircleDrawer {
-		private byte[][] buffer;
-		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[MAX_VIEWDISTANCE];
-
-		public final void setBuffer(byte[][] buffer) {
-			this.buffer = buffer;
-		}
-
-		/**
-		 * Draws a circle to the buffer line. Each point is only brightened and onlydrawn if its x coordinate is in [0, mapWidth - 1] and its computed
-		 * y coordinate is bigger than 0.
-		 */
-		final void drawCircleToBuffer(int bufferX, int bufferY, int viewDistance) {
-			CachedViewCircle circle = getCachedCircle(viewDistance);
-			CachedViewCircleIterator iterator = circle.iterator(bufferX, bufferY);
-
-			while (iterator.hasNext()) {
-				final int x = iterator.getCurrX();
-				final int y = iterator.getCurrY();
-
-				if (x >= 0 && x < width && y > 0 && y < height) {
-					byte oldSight = buffer[x][y];
-					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
-						byte newSight = iterator.getCurrSight();
-						if (oldSight < newSight) {
-							buffer[x][y] = newSight;
-						}
-					}
-				}
-			}
-		}
-
-		private CachedViewCircle getCachedCircle(int viewDistance) {
-			int radius = Math.min(viewDistance + PADDING, MAX_VIEWDISTANCE - 1);
-			if (cachedCircles[radius] == null) {
-				cachedCircles[radius] = new CachedViewCircle(radius);
-			}
-
-			return cachedCircles[radius];
-		}
 	}
 
 	public void cancel() {
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Calculates which positions all players currently see in a single pass. This is used by spectators and replay tools that need the view of every
+ * player at once.
+ * <p>
+ * Every player has one bitplane with a bit per position that is set if one of the player's view sources sees the position. A pass clears the
+ * planes and ORs the visible circle of every view source into the plane of its player row by row, so it costs about as much as a single player
+ * rebuild. The planes are double buffered, so readers always see the result of a complete pass.
+ */
+public final class MultiPlayerFogOfWar {
+	private static final int WORD_SHIFT = 6;
+	private static final long ALL_BITS = -1L;
+
+	private final short width;
+	private final short height;
+	private final byte numberOfPlayers;
+	private final ViewCircleBands circles = new ViewCircleBands();
+	/**
+	 * Bit (y * width + x) of plane p is set if player p sees position (x, y).
+	 */
+	private volatile long[][] visible;
+	private long[][] buffer;
+
+	private boolean canceled;
+
+	public MultiPlayerFogOfWar(short width, short height, byte numberOfPlayers) {
+		if (numberOfPlayers > CommonConstants.MAX_PLAYERS) {
+			throw new IllegalArgumentException("At most " + CommonConstants.MAX_PLAYERS + " players are supported.");
+		}
+		this.width = width;
+		this.height = height;
+		this.numberOfPlayers = numberOfPlayers;
+		int words = ((width * height - 1) >> WORD_SHIFT) + 1;
+		this.visible = new long[numberOfPlayers][words];
+		this.buffer = new long[numberOfPlayers][words];
+	}
+
+	public void start(final IFogOfWarGrid grid) {
+		Thread thread = new Thread("MultiPlayerFoWThread") {
+			@Override
+			public void run() {
+				mySleep(500);
+
+				while (!canceled) {
+					updateSight(grid);
+					mySleep(800);
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void cancel() {
+		this.canceled = true;
+	}
+
+	public byte getNumberOfPlayers() {
+		return numberOfPlayers;
+	}
+
+	/**
+	 * Gets the visible status of a map point for the given player.
+	 * 
+	 * @param player
+	 *            The player in 0..(numberOfPlayers - 1)
+	 * @param x
+	 *            The x coordinate of the point in 0..(mapWidth - 1)
+	 * @param y
+	 *            The y coordinate of the point in 0..(mapHeight - 1)
+	 * @return {@link CommonConstants#FOG_OF_WAR_VISIBLE} if the player currently sees the point, 0 otherwise.
+	 */
+	public byte getVisibleStatus(byte player, int x, int y) {
+		return (byte) (isVisible(visible[player], y * width + x) ? CommonConstants.FOG_OF_WAR_VISIBLE : 0);
+	}
+
+	/**
+	 * @return A bit mask containing bit p if player p currently sees the given map point.
+	 */
+	public int getVisiblePlayers(int x, int y) {
+		long[][] planes = visible;
+		int idx = y * width + x;
+		int players = 0;
+		for (int player = 0; player < numberOfPlayers; player++) {
+			if (isVisible(planes[player], idx)) {
+				players |= 1 << player;
+			}
+		}
+		return players;
+	}
+
+	/**
+	 * Calculates the bitplanes of all players from the current view sources. This is what the fog of war thread does every 800 ms.
+	 * 
+	 * @param grid
+	 *            The grid supplying the view sources.
+	 */
+	void updateSight(IFogOfWarGrid grid) {
+		for (long[] plane : buffer) {
+			Arrays.fill(plane, 0);
+		}
+		drawSources(grid.getBuildingViewDistancables());
+		drawSources(grid.getMovableViewDistancables());
+
+		long[][] temp = visible;
+		visible = buffer;
+		buffer = temp;
+	}
+
+	private void drawSources(ConcurrentLinkedQueue<? extends IViewDistancable> sources) {
+		for (IViewDistancable source : sources) {
+			ShortPoint2D pos = source.getPos();
+			byte player = source.getPlayerId();
+			short viewDistance = source.getViewDistance();
+			if (pos != null && player >= 0 && player < numberOfPlayers && viewDistance > 0) {
+				drawCircle(buffer[player], circles.get(viewDistance)[0], pos.x, pos.y);
+			}
+		}
+	}
+
+	private void drawCircle(long[] plane, ViewCircleSpans circle, int x, int y) {
+		int minY = Math.max(0, y - circle.rowRadius);
+		int maxY = Math.min(height - 1, y + circle.rowRadius);
+		for (int currY = minY; currY <= maxY; currY++) {
+			int minDx = circle.getMinDx(currY - y);
+			if (minDx == Integer.MAX_VALUE) {
+				continue; // empty row
+			}
+			int minX = Math.max(0, x + minDx);
+			int maxX = Math.min(width - 1, x + circle.getMaxDx(currY - y));
+			if (minX <= maxX) {
+				setBits(plane, currY * width + minX, currY * width + maxX);
+			}
+		}
+	}
+
+	/**
+	 * Sets the bits from the first to the last index, both inclusive.
+	 */
+	private static void setBits(long[] plane, int first, int last) {
+		int firstWord = first >> WORD_SHIFT;
+		int lastWord = last >> WORD_SHIFT;
+		long firstMask = ALL_BITS << first; // shifts only use the lower six bits of the index
+		long lastMask = ALL_BITS >>> -(last + 1);
+
+		if (firstWord == lastWord) {
+			plane[firstWord] |= firstMask & lastMask;
+		} else {
+			plane[firstWord] |= firstMask;
+			for (int word = firstWord + 1; word < lastWord; word++) {
+				plane[word] = ALL_BITS;
+			}
+			plane[lastWord] |= lastMask;
+		}
+	}
+
+	private static boolean isVisible(long[] plane, int idx) {
+		return (plane[idx >> WORD_SHIFT] & (1L << idx)) != 0;
+	}
+
+	private static void mySleep(int ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.algorithms.fogofwar.ViewCoverage.ICoverageChangedListener;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Incrementally updates the sight of one or more players. The view sources are compared with their state of the last update and only the rims of
+ * the view circles that entered, left or moved are changed. Positions that are no longer seen are dimmed down until they are only explored. All
+ * other positions are not touched at all.
+ * <p>
+ * The sight of player p at the position with index idx is stored at idx * numberOfPlayers + p.
+ */
+abstract class SightUpdater implements ICoverageChangedListener {
+	private final int numberOfPlayers;
+	private final byte[] sight;
+	private final ViewCoverage coverage;
+	private final IdentityHashMap<IViewDistancable, ViewSource> sources = new IdentityHashMap<IViewDistancable, ViewSource>();
+
+	/**
+	 * Positions that need to be updated in the current pass. The marks contain the number of the pass the position has been added in to prevent
+	 * duplicates.
+	 */
+	private final int[] activeMarks;
+	private int[] activePositions = new int[1024];
+	private int activeCount = 0;
+	private int[] nextActivePositions = new int[1024];
+	private int nextActiveCount = 0;
+	private int pass = 1;
+
+	SightUpdater(short width, short height, int numberOfPlayers, byte[] sight) {
+		this.numberOfPlayers = numberOfPlayers;
+		this.sight = sight;
+		this.coverage = new ViewCoverage(width, height, numberOfPlayers, this);
+		this.activeMarks = new int[width * height];
+
+		// positions loaded from a savegame might still need to be dimmed down
+		for (int idx = 0; idx < activeMarks.length; idx++) {
+			for (int player = 0; player < numberOfPlayers; player++) {
+				if (sight[idx * numberOfPlayers + player] > CommonConstants.FOG_OF_WAR_EXPLORED) {
+					coverageChanged(idx);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param source
+	 *            A view source.
+	 * @return The player in 0..(numberOfPlayers - 1) whose sight is given by the source or -1 if the source should be ignored.
+	 */
+	protected abstract int getPlayer(IViewDistancable source);
+
+	void update(IFogOfWarGrid grid) {
+		updateSources(grid.getBuildingViewDistancables());
+		updateSources(grid.getMovableViewDistancables());
+		removeVanishedSources();
+
+		updateActivePositions();
+	}
+
+	private void updateSources(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
+		for (IViewDistancable curr : objects) {
+			ShortPoint2D pos = curr.getPos();
+			int player = getPlayer(curr);
+			short viewDistance = player >= 0 ? curr.getViewDistance() : 0;
+			if (viewDistance <= 0 || pos == null) {
+				continue; // the source will be removed if it has been seen before.
+			}
+
+			ViewSource source = sources.get(curr);
+			if (source == null) {
+				source = new ViewSource(pos.x, pos.y, viewDistance, player);
+				sources.put(curr, source);
+				coverage.addCircle(pos.x, pos.y, viewDistance, player);
+
+			} else if (source.viewDistance != viewDistance || source.player != player) {
+				coverage.removeCircle(source.x, source.y, source.viewDistance, source.player);
+				coverage.addCircle(pos.x, pos.y, viewDistance, player);
+				source.set(pos.x, pos.y, viewDistance, player);
+
+			} else if (source.x != pos.x || source.y != pos.y) {
+				coverage.moveCircle(source.x, source.y, pos.x, pos.y, viewDistance, player);
+				source.set(pos.x, pos.y, viewDistance, player);
+			}
+			source.lastSeenPass = pass;
+		}
+	}
+
+	private void removeVanishedSources() {
+		Iterator<ViewSource> iterator = sources.values().iterator();
+		while (iterator.hasNext()) {
+			ViewSource source = iterator.next();
+			if (source.lastSeenPass != pass) {
+				coverage.removeCircle(source.x, source.y, source.viewDistance, source.player);
+				iterator.remove();
+			}
+		}
+	}
+
+	private void updateActivePositions() {
+		int nextPass = pass + 1;
+
+		for (int i = 0; i < activeCount; i++) {
+			int idx = activePositions[i];
+			boolean dimming = false;
+
+			for (int player = 0; player < numberOfPlayers; player++) {
+				int sightIdx = idx * numberOfPlayers + player;
+				byte currSight = sight[sightIdx];
+				byte coveredSight = coverage.getSight(idx, player);
+
+				byte newSight = currSight;
+				if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+					newSight = (byte) Math.max(CommonConstants.FOG_OF_WAR_EXPLORED, currSight - FogOfWar.DIM_DOWN_SPEED);
+				}
+				if (newSight < coveredSight) {
+					newSight = coveredSight;
+				}
+				sight[sightIdx] = newSight;
+
+				dimming |= newSight > CommonConstants.FOG_OF_WAR_EXPLORED && newSight > coveredSight;
+			}
+
+			if (dimming) { // still needs to be dimmed down
+				activeMarks[idx] = nextPass;
+				if (nextActiveCount == nextActivePositions.length) {
+					nextActivePositions = grow(nextActivePositions);
+				}
+				nextActivePositions[nextActiveCount++] = idx;
+			}
+		}
+
+		int[] temp = activePositions;
+		activePositions = nextActivePositions;
+		nextActivePositions = temp;
+		activeCount = nextActiveCount;
+		nextActiveCount = 0;
+		pass = nextPass;
+	}
+
+	@Override
+	public void coverageChanged(int idx) {
+		if (activeMarks[idx] != pass) {
+			activeMarks[idx] = pass;
+			if (activeCount == activePositions.length) {
+				activePositions = grow(activePositions);
+			}
+			activePositions[activeCount++] = idx;
+		}
+	}
+
+	int getNumberOfSources() {
+		return sources.size();
+	}
+
+	int getNumberOfActivePositions() {
+		return activeCount;
+	}
+
+	private static int[] grow(int[] array) {
+		int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	/**
+	 * The state of a view source when it has been applied to the {@link ViewCoverage}.
+	 */
+	private static final class ViewSource {
+		int x;
+		int y;
+		short viewDistance;
+		int player;
+		int lastSeenPass;
+
+		ViewSource(int x, int y, short viewDistance, int player) {
+			set(x, y, viewDistance, player);
+		}
+
+		void set(int x, int y, short viewDistance, int player) {
+			this.x = x;
+			this.y = y;
+			this.viewDistance = viewDistance;
+			this.player = player;
+		}
+	}
+}
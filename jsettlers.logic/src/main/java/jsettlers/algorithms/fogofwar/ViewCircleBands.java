@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import jsettlers.common.CommonConstants;
+
+/**
+ * Caches the nested circles of the view bands for every view distance. The positions inside the first band are visible. Every following band is
+ * one position wider and darker, so the sight falls off linearly over the dimming ring of {@link FogOfWar#PADDING} positions.
+ */
+final class ViewCircleBands {
+	static final int BANDS = FogOfWar.PADDING + 1;
+	private static final byte[] BAND_SIGHT = new byte[BANDS];
+
+	static {
+		BAND_SIGHT[0] = CommonConstants.FOG_OF_WAR_VISIBLE;
+		for (int band = 1; band < BANDS; band++) { // the sight in the middle of the band
+			BAND_SIGHT[band] = (byte) (CommonConstants.FOG_OF_WAR_VISIBLE - (band - 0.5f) / FogOfWar.PADDING * CommonConstants.FOG_OF_WAR_VISIBLE);
+		}
+	}
+
+	private final ViewCircleSpans[][] circles = new ViewCircleSpans[FogOfWar.MAX_VIEWDISTANCE][];
+
+	/**
+	 * @return The sight of the given band.
+	 */
+	static byte getSight(int band) {
+		return BAND_SIGHT[band];
+	}
+
+	/**
+	 * @return One circle per band. Each circle contains the circles of the lower bands.
+	 */
+	ViewCircleSpans[] get(int viewDistance) {
+		int radiusIdx = Math.min(viewDistance, FogOfWar.MAX_VIEWDISTANCE - 1);
+		if (circles[radiusIdx] == null) {
+			// the view distance plus a dimming ring of PADDING, limited to MAX_VIEWDISTANCE
+			float radius = Math.min(viewDistance + FogOfWar.PADDING, FogOfWar.MAX_VIEWDISTANCE - 1) - FogOfWar.PADDING / 2;
+			ViewCircleSpans[] bands = new ViewCircleSpans[BANDS];
+			for (int band = 0; band < BANDS; band++) {
+				bands[band] = new ViewCircleSpans(radius + band);
+			}
+			circles[radiusIdx] = bands;
+		}
+		return circles[radiusIdx];
+	}
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import jsettlers.common.map.shapes.MapCircle;
+
+/**
+ * Stores a circle as one span of x offsets per row. This allows to update only the rims when a circle is moved.
+ */
+final class ViewCircleSpans {
+	final int rowRadius;
+	private final short[] minDx;
+	private final short[] maxDx;
+
+	/**
+	 * Creates the spans of all positions with a distance smaller than the given radius.
+	 * 
+	 * @param radius
+	 *            Radius of the circle.
+	 */
+	ViewCircleSpans(float radius) {
+		this.rowRadius = (int) Math.ceil(radius / MapCircle.Y_SCALE); // rows are closer together than columns
+		this.minDx = new short[2 * rowRadius + 1];
+		this.maxDx = new short[2 * rowRadius + 1];
+
+		float squaredRadius = radius * radius;
+		int maxOffset = 2 * rowRadius + 1;
+		for (int dy = -rowRadius; dy <= rowRadius; dy++) {
+			short min = 0;
+			short max = -1; // empty row
+			for (int dx = -maxOffset; dx <= maxOffset; dx++) {
+				if (MapCircle.getSquaredDistance(dx, dy) < squaredRadius) {
+					if (max < min) {
+						min = (short) dx;
+					}
+					max = (short) dx;
+				}
+			}
+			minDx[dy + rowRadius] = min;
+			maxDx[dy + rowRadius] = max;
+		}
+	}
+
+	/**
+	 * @return The smallest x offset of the given row or {@link Integer#MAX_VALUE} if the row is empty or not part of the circle.
+	 */
+	int getMinDx(int dy) {
+		if (dy < -rowRadius || dy > rowRadius || maxDx[dy + rowRadius] < minDx[dy + rowRadius]) {
+			return Integer.MAX_VALUE;
+		}
+		return minDx[dy + rowRadius];
+	}
+
+	/**
+	 * @return The biggest x offset of the given row or {@link Integer#MIN_VALUE} if the row is empty or not part of the circle.
+	 */
+	int getMaxDx(int dy) {
+		if (dy < -rowRadius || dy > rowRadius || maxDx[dy + rowRadius] < minDx[dy + rowRadius]) {
+			return Integer.MIN_VALUE;
+		}
+		return maxDx[dy + rowRadius];
+	}
+}
@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+/**
+ * Counts for every position and player how many view circles of the player cover it. A view circle consists of the nested bands of
+ * {@link ViewCircleBands}. Besides the count, only the innermost band covering the position and how many circles cover it with that band are
+ * stored, packed into a single byte. The data of all players of a position is stored next to each other.
+ * <p>
+ * The counts are updated incrementally when view circles are added, removed or moved. Moving a circle only touches the positions on the rims of its
+ * bands. If the circle giving the innermost band of a position leaves it, the band is marked stale and calculated again from the nearby circles
+ * when the sight is requested.
+ */
+final class ViewCoverage {
+	/**
+	 * Listener informed when the sight given by the coverage of a position might have changed.
+	 */
+	interface ICoverageChangedListener {
+		void coverageChanged(int idx);
+	}
+
+	private static final int BANDS = ViewCircleBands.BANDS;
+	private static final int MAX_BAND_COUNT = 0x0F;
+	private static final int STALE = 0xF0;
+
+	private static final int ENTER = 0;
+	private static final int LEAVE = 1;
+	private static final int IMPROVE = 2;
+	private static final int WORSEN = 3;
+
+	private final short width;
+	private final short height;
+	private final int numberOfPlayers;
+	/**
+	 * The number of view circles covering a position.
+	 */
+	private final short[] counts;
+	/**
+	 * The innermost band covering a position plus one in the upper four bits and the number of circles covering it with that band in the lower four
+	 * bits. The number saturates at {@link #MAX_BAND_COUNT}, so it might be too low afterwards, which only leads to an earlier recalculation. 0 if
+	 * the position is not covered and {@link #STALE} if the band needs to be calculated again.
+	 */
+	private final byte[] innermostBands;
+	private final ViewCircleBands circles = new ViewCircleBands();
+	private final CircleBuckets buckets;
+	private final ICoverageChangedListener listener;
+
+	ViewCoverage(short width, short height, int numberOfPlayers, ICoverageChangedListener listener) {
+		this.width = width;
+		this.height = height;
+		this.numberOfPlayers = numberOfPlayers;
+		this.listener = listener;
+		this.counts = new short[width * height * numberOfPlayers];
+		this.innermostBands = new byte[width * height * numberOfPlayers];
+		this.buckets = new CircleBuckets(width, height, circles);
+	}
+
+	/**
+	 * @return The sight the view circles of the player give the position with the given index or 0 if no circle covers it.
+	 */
+	byte getSight(int idx, int player) {
+		int countIdx = idx * numberOfPlayers + player;
+		if (counts[countIdx] == 0) {
+			return 0;
+		}
+		if ((innermostBands[countIdx] & 0xFF) == STALE) {
+			recalculateBand(idx, player, countIdx);
+		}
+		return ViewCircleBands.getSight(getBand(innermostBands[countIdx] & 0xFF));
+	}
+
+	void addCircle(int x, int y, int viewDistance, int player) {
+		ViewCircleSpans[] bands = circles.get(viewDistance);
+		buckets.add(x, y, viewDistance, player);
+		changeRings(bands, x, y, player, ENTER);
+	}
+
+	void removeCircle(int x, int y, int viewDistance, int player) {
+		ViewCircleSpans[] bands = circles.get(viewDistance);
+		buckets.remove(x, y, viewDistance, player);
+		changeRings(bands, x, y, player, LEAVE);
+	}
+
+	/**
+	 * Moves a view circle from the old to the new position. Only the positions that are covered by exactly one of both circles of a band are
+	 * updated. The bands are processed from the inside out, so a position that leaves several bands gets worse band by band.
+	 */
+	void moveCircle(int oldX, int oldY, int newX, int newY, int viewDistance, int player) {
+		ViewCircleSpans[] bands = circles.get(viewDistance);
+		buckets.move(oldX, oldY, newX, newY, viewDistance, player);
+
+		for (int band = 0; band < BANDS; band++) {
+			ViewCircleSpans circle = bands[band];
+			int radius = circle.rowRadius;
+			int minY = Math.max(0, Math.min(oldY, newY) - radius);
+			int maxY = Math.min(height - 1, Math.max(oldY, newY) + radius);
+			int leave = band == BANDS - 1 ? LEAVE : WORSEN;
+			int enter = band == BANDS - 1 ? ENTER : IMPROVE;
+
+			for (int y = minY; y <= maxY; y++) {
+				int oldMin = saturatedAdd(oldX, circle.getMinDx(y - oldY));
+				int oldMax = saturatedAdd(oldX, circle.getMaxDx(y - oldY));
+				int newMin = saturatedAdd(newX, circle.getMinDx(y - newY));
+				int newMax = saturatedAdd(newX, circle.getMaxDx(y - newY));
+
+				if (oldMax < newMin || newMax < oldMin) { // no overlap
+					changeRow(band, y, oldMin, oldMax, player, leave);
+					changeRow(band, y, newMin, newMax, player, enter);
+				} else {
+					changeRow(band, y, oldMin, Math.min(oldMax, newMin - 1), player, leave);
+					changeRow(band, y, Math.max(oldMin, newMax + 1), oldMax, player, leave);
+					changeRow(band, y, newMin, Math.min(newMax, oldMin - 1), player, enter);
+					changeRow(band, y, Math.max(newMin, oldMax + 1), newMax, player, enter);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies the change to every position of the circle with the band of the circle at that position.
+	 */
+	private void changeRings(ViewCircleSpans[] bands, int x, int y, int player, int change) {
+		int radius = bands[BANDS - 1].rowRadius;
+		int minY = Math.max(0, y - radius);
+		int maxY = Math.min(height - 1, y + radius);
+		for (int currY = minY; currY <= maxY; currY++) {
+			int dy = currY - y;
+			int innerMin = Integer.MAX_VALUE;
+			int innerMax = Integer.MIN_VALUE;
+			for (int band = 0; band < BANDS; band++) {
+				int min = saturatedAdd(x, bands[band].getMinDx(dy));
+				int max = saturatedAdd(x, bands[band].getMaxDx(dy));
+				if (innerMax < innerMin) { // the inner bands do not cover this row
+					changeRow(band, currY, min, max, player, change);
+				} else {
+					changeRow(band, currY, min, innerMin - 1, player, change);
+					changeRow(band, currY, innerMax + 1, max, player, change);
+				}
+				innerMin = min;
+				innerMax = max;
+			}
+		}
+	}
+
+	private void changeRow(int band, int y, int minX, int maxX, int player, int change) {
+		minX = Math.max(0, minX);
+		maxX = Math.min(width - 1, maxX);
+
+		int idx = y * width + minX;
+		int countIdx = idx * numberOfPlayers + player;
+		for (int x = minX; x <= maxX; x++, idx++, countIdx += numberOfPlayers) {
+			byte oldBand = innermostBands[countIdx];
+			switch (change) {
+			case ENTER:
+				counts[countIdx]++;
+				improve(countIdx, band);
+				break;
+			case LEAVE:
+				counts[countIdx]--;
+				worsen(countIdx, band, true);
+				break;
+			case IMPROVE:
+				improve(countIdx, band);
+				break;
+			case WORSEN:
+				worsen(countIdx, band, false);
+				break;
+			}
+			if (innermostBands[countIdx] != oldBand) { // the sight might have changed
+				listener.coverageChanged(idx);
+			}
+		}
+	}
+
+	/**
+	 * A circle now covers the position with the given band. Its former band, if any, was worse.
+	 */
+	private void improve(int countIdx, int band) {
+		int value = innermostBands[countIdx] & 0xFF;
+		if (value == STALE) {
+			return;
+		}
+		int innermostBand = value == 0 ? BANDS : getBand(value);
+		if (band < innermostBand) {
+			innermostBands[countIdx] = encode(band, 1);
+		} else if (band == innermostBand && (value & MAX_BAND_COUNT) < MAX_BAND_COUNT) {
+			innermostBands[countIdx]++;
+		}
+	}
+
+	/**
+	 * A circle no longer covers the position with the given band. It either covers it with the next band or, if it left, not at all.
+	 */
+	private void worsen(int countIdx, int band, boolean left) {
+		if (counts[countIdx] == 0) {
+			innermostBands[countIdx] = 0;
+			return;
+		}
+		int value = innermostBands[countIdx] & 0xFF;
+		if (value == STALE || band != getBand(value)) {
+			return;
+		}
+		int bandCount = value & MAX_BAND_COUNT;
+		if (bandCount > 1) {
+			innermostBands[countIdx]--;
+		} else if (counts[countIdx] == 1 && !left) { // the circle is the only one
+			innermostBands[countIdx] = encode(band + 1, 1);
+		} else { // the next innermost band is not known
+			innermostBands[countIdx] = (byte) STALE;
+		}
+	}
+
+	private void recalculateBand(int idx, int player, int countIdx) {
+		int x = idx % width;
+		int y = idx / width;
+		int innermostBand = BANDS;
+		int bandCount = 0;
+
+		int reachX = buckets.reachX;
+		int reachY = buckets.reachY;
+		for (int bucketY = buckets.getBucketY(y - reachY); bucketY <= buckets.getBucketY(y + reachY); bucketY++) {
+			for (int bucketX = buckets.getBucketX(x - reachX); bucketX <= buckets.getBucketX(x + reachX); bucketX++) {
+				int bucket = buckets.getBucket(bucketX, bucketY);
+				long[] entries = buckets.entries[bucket];
+				for (int i = 0; i < buckets.sizes[bucket]; i++) {
+					long entry = entries[i];
+					if (CircleBuckets.getPlayer(entry) != player) {
+						continue;
+					}
+					ViewCircleSpans[] bands = circles.get(CircleBuckets.getViewDistance(entry));
+					int band = getBand(bands, x - CircleBuckets.getX(entry), y - CircleBuckets.getY(entry));
+					if (band < innermostBand) {
+						innermostBand = band;
+						bandCount = 1;
+					} else if (band == innermostBand && bandCount < MAX_BAND_COUNT) {
+						bandCount++;
+					}
+				}
+			}
+		}
+
+		innermostBands[countIdx] = innermostBand < BANDS ? encode(innermostBand, bandCount) : 0;
+	}
+
+	private static int getBand(ViewCircleSpans[] bands, int dx, int dy) {
+		for (int band = 0; band < BANDS; band++) {
+			if (bands[band].getMinDx(dy) <= dx && dx <= bands[band].getMaxDx(dy)) {
+				return band;
+			}
+		}
+		return BANDS;
+	}
+
+	private static int getBand(int value) {
+		return (value >> 4) - 1;
+	}
+
+	private static byte encode(int band, int bandCount) {
+		return (byte) ((band + 1) << 4 | bandCount);
+	}
+
+	private static int saturatedAdd(int position, int offset) {
+		if (offset == Integer.MAX_VALUE || offset == Integer.MIN_VALUE) {
+			return offset;
+		}
+		return position + offset;
+	}
+
+	/**
+	 * The view circles sorted into square buckets by their centers, so the circles covering a position can be found quickly.
+	 */
+	private static final class CircleBuckets {
+		private static final int BUCKET_SHIFT = 5;
+
+		final int reachX;
+		final int reachY;
+		final long[][] entries;
+		final int[] sizes;
+		private final int bucketsX;
+		private final int bucketsY;
+
+		CircleBuckets(short width, short height, ViewCircleBands circles) {
+			// the outermost band of the biggest circle
+			ViewCircleSpans biggest = circles.get(FogOfWar.MAX_VIEWDISTANCE)[BANDS - 1];
+			this.reachY = biggest.rowRadius;
+			this.reachX = 2 * biggest.rowRadius + 1;
+			this.bucketsX = ((width - 1) >> BUCKET_SHIFT) + 1;
+			this.bucketsY = ((height - 1) >> BUCKET_SHIFT) + 1;
+			this.entries = new long[bucketsX * bucketsY][];
+			this.sizes = new int[bucketsX * bucketsY];
+		}
+
+		void add(int x, int y, int viewDistance, int player) {
+			int bucket = getBucket(getBucketX(x), getBucketY(y));
+			long[] bucketEntries = entries[bucket];
+			if (bucketEntries == null) {
+				bucketEntries = entries[bucket] = new long[4];
+			} else if (sizes[bucket] == bucketEntries.length) {
+				long[] newEntries = new long[bucketEntries.length * 2];
+				System.arraycopy(bucketEntries, 0, newEntries, 0, bucketEntries.length);
+				bucketEntries = entries[bucket] = newEntries;
+			}
+			bucketEntries[sizes[bucket]++] = encode(x, y, viewDistance, player);
+		}
+
+		void remove(int x, int y, int viewDistance, int player) {
+			int bucket = getBucket(getBucketX(x), getBucketY(y));
+			long entry = encode(x, y, viewDistance, player);
+			long[] bucketEntries = entries[bucket];
+			for (int i = 0; i < sizes[bucket]; i++) {
+				if (bucketEntries[i] == entry) {
+					bucketEntries[i] = bucketEntries[--sizes[bucket]];
+					return;
+				}
+			}
+			throw new IllegalStateException("The view circle at " + x + "|" + y + " has not been added.");
+		}
+
+		void move(int oldX, int oldY, int newX, int newY, int viewDistance, int player) {
+			remove(oldX, oldY, viewDistance, player);
+			add(newX, newY, viewDistance, player);
+		}
+
+		int getBucketX(int x) {
+			return Math.max(0, Math.min(bucketsX - 1, x >> BUCKET_SHIFT));
+		}
+
+		int getBucketY(int y) {
+			return Math.max(0, Math.min(bucketsY - 1, y >> BUCKET_SHIFT));
+		}
+
+		int getBucket(int bucketX, int bucketY) {
+			return bucketY * bucketsX + bucketX;
+		}
+
+		private static long encode(int x, int y, int viewDistance, int player) {
+			return ((long) (x & 0xFFFF) << 48) | ((long) (y & 0xFFFF) << 32) | ((long) (viewDistance & 0xFFFF) << 16) | (player & 0xFFFF);
+		}
+
+		static int getX(long entry) {
+			return (short) (entry >> 48);
+		}
+
+		static int getY(long entry) {
+			return (short) (entry >> 32);
+		}
+
+		static int getViewDistance(long entry) {
+			return (short) (entry >> 16);
+		}
+
+		static int getPlayer(long entry) {
+			return (short) entry;
+		}
+	}
+}
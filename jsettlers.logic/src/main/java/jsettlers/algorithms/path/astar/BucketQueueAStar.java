@@ -14,8 +14,6 @@
  *******************************************************************************/
 package jsettlers.algorithms.path.astar;
 
-import java.util.BitSet;
-
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.InvalidStartPositionException;
 import jsettlers.algorithms.path.Path;
@@ -26,6 +24,9 @@ import jsettlers.common.position.ShortPoint2D;
 
 /**
  * AStar algorithm to find paths from A to B on a hex grid
+ * <p>
+ * The open and closed state of the nodes is stamped with the id of the current search. Therefore no cleanup of the map sized arrays is needed
+ * between two searches and the costs of a search only depend on the number of touched nodes.
  * 
  * @author Andreas Eberle
  * 
@@ -39,8 +40,17 @@ public final class BucketQueueAStar extends AbstractAStar {
 	private final short height;
 	private final short width;
 
-	private final BitSet openBitSet;
-	private final BitSet closedBitSet;
+	/**
+	 * State of every node: {@link #openMark} if it's open, {@link #openMark} + 1 if it's closed. Every other value means the node hasn't been
+	 * touched by the current search.
+	 */
+	private final int[] nodeStates;
+	private int openMark = 0;
+
+	private int searchedMinX;
+	private int searchedMaxX;
+	private int searchedMinY;
+	private int searchedMaxY;
 
 	final float[] costs;
 
@@ -55,8 +65,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 
 		this.open = new ListMinBucketQueue(width * height);
 
-		this.openBitSet = new BitSet(width * height);
-		this.closedBitSet = new BitSet(width * height);
+		this.nodeStates = new int[width * height];
 		this.costs = new float[width * height];
 
 		this.depthParentHeap = new int[width * height * 2];
@@ -85,8 +94,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 
 		final int targetFlatIdx = getFlatIdx(tx, ty);
 
-		closedBitSet.clear();
-		openBitSet.clear();
+		startNewSearch();
 
 		open.clear();
 		boolean found = false;
@@ -114,10 +122,10 @@ public final class BucketQueueAStar extends AbstractAStar {
 				if (isValidPosition(requester, x, y, neighborX, neighborY, blockedAtStartPartition)) {
 					final int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
 
-					if (!closedBitSet.get(flatNeighborIdx)) {
+					if (!isClosed(flatNeighborIdx)) {
 						final float newCosts = currPositionCosts + map.getCost(x, y, neighborX, neighborY);
 
-						if (openBitSet.get(flatNeighborIdx)) {
+						if (isOpen(flatNeighborIdx)) {
 							final float oldCosts = costs[flatNeighborIdx];
 
 							if (oldCosts > newCosts) {
@@ -133,7 +141,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 							costs[flatNeighborIdx] = newCosts;
 							depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
 							depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
-							openBitSet.set(flatNeighborIdx);
+							setOpen(flatNeighborIdx);
 							open.insert(flatNeighborIdx, newCosts + getHeuristicCost(neighborX, neighborY, tx, ty));
 
 							map.markAsOpen(neighborX, neighborY);
@@ -170,9 +178,73 @@ public final class BucketQueueAStar extends AbstractAStar {
 		return 2 * flatIdx + 1;
 	}
 
+	private final void startNewSearch() {
+		openMark += 2;
+
+		searchedMinX = Integer.MAX_VALUE;
+		searchedMaxX = Integer.MIN_VALUE;
+		searchedMinY = Integer.MAX_VALUE;
+		searchedMaxY = Integer.MIN_VALUE;
+
+		if (openMark >= Integer.MAX_VALUE - 1) { // reset the stamps when the marks overflow
+			for (int i = 0; i < nodeStates.length; i++) {
+				nodeStates[i] = 0;
+			}
+			openMark = 2;
+		}
+	}
+
+	private final boolean isOpen(int flatIdx) {
+		return nodeStates[flatIdx] == openMark;
+	}
+
+	private final boolean isClosed(int flatIdx) {
+		return nodeStates[flatIdx] == openMark + 1;
+	}
+
+	private final void setOpen(int flatIdx) {
+		nodeStates[flatIdx] = openMark;
+	}
+
 	private final void setClosed(int x, int y) {
-		closedBitSet.set(getFlatIdx(x, y));
+		nodeStates[getFlatIdx(x, y)] = openMark + 1;
 		map.markAsClosed(x, y);
+
+		searchedMinX = Math.min(searchedMinX, x);
+		searchedMaxX = Math.max(searchedMaxX, x);
+		searchedMinY = Math.min(searchedMinY, y);
+		searchedMaxY = Math.max(searchedMaxY, y);
+	}
+
+	/**
+	 * The bounding box of the positions closed by the last search that passed the initial checks. The result of the search only depends on
+	 * these positions and their direct neighbors.
+	 * 
+	 * @return The minimal x coordinate of the closed positions.
+	 */
+	public int getSearchedMinX() {
+		return searchedMinX;
+	}
+
+	/**
+	 * @see #getSearchedMinX()
+	 */
+	public int getSearchedMaxX() {
+		return searchedMaxX;
+	}
+
+	/**
+	 * @see #getSearchedMinX()
+	 */
+	public int getSearchedMinY() {
+		return searchedMinY;
+	}
+
+	/**
+	 * @see #getSearchedMinX()
+	 */
+	public int getSearchedMaxY() {
+		return searchedMaxY;
 	}
 
 	private final void initStartNode(int sx, int sy, int tx, int ty) {
@@ -182,7 +254,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 		costs[flatIdx] = 0;
 
 		open.insert(flatIdx, 0 + getHeuristicCost(sx, sy, tx, ty));
-		openBitSet.set(flatIdx);
+		setOpen(flatIdx);
 	}
 
 	private final boolean isValidPosition(IPathCalculatable requester, int fromX, int fromY, int toX, int toY, short blockedAtStartPartition) {
@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * A bounded LRU cache of the paths found by a {@link BucketQueueAStar}. The entries are keyed by start, target and the path relevant traits of
+ * the requester (if it needs to walk on its player's ground and its player).
+ * <p>
+ * Every entry remembers the area the search depended on. When the blocking or the player of a position changes, all entries whose area
+ * contains the position are dropped. Therefore a cached path is always the same path the {@link BucketQueueAStar} would find now, which keeps
+ * the game deterministic.
+ */
+public final class PathCache extends AbstractAStar {
+	public static final int DEFAULT_CAPACITY = 2048;
+
+	/**
+	 * Size of the regions the entries are registered in for the invalidation.
+	 */
+	private static final int REGION_SIZE = 32;
+	/**
+	 * Paths whose search touched more regions than this are not cached, because they are invalidated too often to be worth it.
+	 */
+	private static final int MAX_REGIONS_PER_ENTRY = 16;
+	/**
+	 * Region lists are cleaned up from removed entries when they grow larger than this.
+	 */
+	private static final int REGION_CLEANUP_SIZE = 64;
+
+	private final BucketQueueAStar aStar;
+	private final short width;
+	private final short height;
+	private final int regionsWidth;
+
+	private final LinkedHashMap<Long, Entry> entries;
+	private final ArrayList<Entry>[] regions;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long invalidations = 0;
+
+	public PathCache(BucketQueueAStar aStar, short width, short height) {
+		this(aStar, width, height, DEFAULT_CAPACITY);
+	}
+
+	@SuppressWarnings("unchecked")
+	public PathCache(BucketQueueAStar aStar, short width, short height, final int capacity) {
+		this.aStar = aStar;
+		this.width = width;
+		this.height = height;
+
+		this.regionsWidth = (width + REGION_SIZE - 1) / REGION_SIZE;
+		int regionsHeight = (height + REGION_SIZE - 1) / REGION_SIZE;
+		this.regions = (ArrayList<Entry>[]) new ArrayList<?>[regionsWidth * regionsHeight];
+
+		this.entries = new LinkedHashMap<Long, Entry>(capacity * 4 / 3 + 1, 0.75f, true) {
+			private static final long serialVersionUID = 3473935410869113716L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+				if (size() > capacity) {
+					eldest.getValue().removed = true;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (!isInBounds(sx, sy) || !isInBounds(tx, ty)) {
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		byte player = requester.needsPlayersGround() ? requester.getPlayerId() : -1;
+		Long key = getKey(sx, sy, tx, ty, player);
+
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			hits++;
+			return entry.createPath();
+		}
+
+		misses++;
+		Path path = aStar.findPath(requester, sx, sy, tx, ty);
+		if (path == null) {
+			return null;
+		}
+
+		entry = new Entry(key, player, path, aStar.getSearchedMinX() - 1, aStar.getSearchedMinY() - 1, aStar.getSearchedMaxX() + 1,
+				aStar.getSearchedMaxY() + 1);
+
+		if (getNumberOfRegions(entry) <= MAX_REGIONS_PER_ENTRY) {
+			entries.put(key, entry);
+			addToRegions(entry);
+		}
+
+		return entry.createPath();
+	}
+
+	/**
+	 * Drops all entries depending on the given position. This needs to be called on every blocking change.
+	 * 
+	 * @param x
+	 *            x coordinate of the changed position.
+	 * @param y
+	 *            y coordinate of the changed position.
+	 */
+	public void invalidate(int x, int y) {
+		invalidate(x, y, false);
+	}
+
+	/**
+	 * Drops all entries of requesters that need to walk on their player's ground and depend on the given position. This needs to be called every
+	 * time the player of a position changes.
+	 * 
+	 * @param x
+	 *            x coordinate of the changed position.
+	 * @param y
+	 *            y coordinate of the changed position.
+	 */
+	public void invalidatePlayerDependent(int x, int y) {
+		invalidate(x, y, true);
+	}
+
+	private void invalidate(int x, int y, boolean onlyPlayerDependent) {
+		ArrayList<Entry> regionEntries = regions[getRegionIdx(x, y)];
+		if (regionEntries == null) {
+			return;
+		}
+
+		Iterator<Entry> iterator = regionEntries.iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.removed) {
+				iterator.remove();
+			} else if (entry.contains(x, y) && (!onlyPlayerDependent || entry.player >= 0)) {
+				entry.removed = true;
+				entries.remove(entry.key);
+				iterator.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+	public int getSize() {
+		return entries.size();
+	}
+
+	public void resetStatistics() {
+		hits = 0;
+		misses = 0;
+		invalidations = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "PathCache [size=" + entries.size() + ", hits=" + hits + ", misses=" + misses + ", invalidations=" + invalidations + "]";
+	}
+
+	private void addToRegions(Entry entry) {
+		for (int regionY = getRegionY(entry.minY); regionY <= getRegionY(entry.maxY); regionY++) {
+			for (int regionX = getRegionX(entry.minX); regionX <= getRegionX(entry.maxX); regionX++) {
+				int regionIdx = regionY * regionsWidth + regionX;
+				ArrayList<Entry> regionEntries = regions[regionIdx];
+				if (regionEntries == null) {
+					regionEntries = new ArrayList<Entry>();
+					regions[regionIdx] = regionEntries;
+				} else if (regionEntries.size() >= REGION_CLEANUP_SIZE) {
+					removeDroppedEntries(regionEntries);
+				}
+				regionEntries.add(entry);
+			}
+		}
+	}
+
+	private static void removeDroppedEntries(ArrayList<Entry> regionEntries) {
+		Iterator<Entry> iterator = regionEntries.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().removed) {
+				iterator.remove();
+			}
+		}
+	}
+
+	private int getNumberOfRegions(Entry entry) {
+		return (getRegionX(entry.maxX) - getRegionX(entry.minX) + 1) * (getRegionY(entry.maxY) - getRegionY(entry.minY) + 1);
+	}
+
+	private int getRegionIdx(int x, int y) {
+		return getRegionY(y) * regionsWidth + getRegionX(x);
+	}
+
+	private int getRegionX(int x) {
+		return Math.max(0, Math.min(width - 1, x)) / REGION_SIZE;
+	}
+
+	private int getRegionY(int y) {
+		return Math.max(0, Math.min(height - 1, y)) / REGION_SIZE;
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private Long getKey(short sx, short sy, short tx, short ty, byte player) {
+		long startIdx = sy * width + sx;
+		long targetIdx = ty * width + tx;
+		return (startIdx << 36) | (targetIdx << 8) | (player & 0xFF);
+	}
+
+	private static final class Entry {
+		final Long key;
+		final byte player;
+		final short[] pathX;
+		final short[] pathY;
+		final int minX;
+		final int minY;
+		final int maxX;
+		final int maxY;
+		boolean removed = false;
+
+		Entry(Long key, byte player, Path path, int minX, int minY, int maxX, int maxY) {
+			this.key = key;
+			this.player = player;
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+
+			this.pathX = new short[path.getLength()];
+			this.pathY = new short[path.getLength()];
+			for (int i = 0; i < pathX.length; i++) {
+				pathX[i] = path.nextX();
+				pathY[i] = path.nextY();
+				path.goToNextStep();
+			}
+		}
+
+		boolean contains(int x, int y) {
+			return minX <= x && x <= maxX && minY <= y && y <= maxY;
+		}
+
+		Path createPath() {
+			Path path = new Path(pathX.length);
+			for (int i = 0; i < pathX.length; i++) {
+				path.insertAt(i, pathX[i], pathY[i]);
+			}
+			return path;
+		}
+	}
+}
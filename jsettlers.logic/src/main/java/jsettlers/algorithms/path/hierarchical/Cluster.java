@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.hierarchical;
+
+/**
+ * The precalculated data of a single cluster of the {@link ClusterGraph}.
+ * <p>
+ * Every entrance is a transition from a tile of this cluster to a neighbor tile in another cluster (the partner tile). A tile can be part of
+ * multiple entrances if it has transitions to different clusters.
+ */
+final class Cluster {
+	static final float UNREACHABLE = Float.MAX_VALUE;
+
+	private final int[] entranceTiles;
+	private final int[] partnerTiles;
+	private final float[] distances;
+
+	Cluster(int[] entranceTiles, int[] partnerTiles, float[] distances) {
+		this.entranceTiles = entranceTiles;
+		this.partnerTiles = partnerTiles;
+		this.distances = distances;
+	}
+
+	int getNumberOfEntrances() {
+		return entranceTiles.length;
+	}
+
+	/**
+	 * @param entranceIdx
+	 *            Index of the entrance.
+	 * @return The flat index of the tile of the entrance inside this cluster.
+	 */
+	int getEntranceTile(int entranceIdx) {
+		return entranceTiles[entranceIdx];
+	}
+
+	/**
+	 * @param entranceIdx
+	 *            Index of the entrance.
+	 * @return The flat index of the tile in the neighbor cluster the entrance leads to.
+	 */
+	int getPartnerTile(int entranceIdx) {
+		return partnerTiles[entranceIdx];
+	}
+
+	/**
+	 * @return The costs to walk from the first to the second entrance inside of this cluster or {@link #UNREACHABLE}.
+	 */
+	float getDistance(int fromEntranceIdx, int toEntranceIdx) {
+		return distances[fromEntranceIdx * entranceTiles.length + toEntranceIdx];
+	}
+
+	/**
+	 * @param tile
+	 *            Flat index of a tile.
+	 * @return The index of the first entrance located on the given tile or -1 if there is none.
+	 */
+	int getEntranceIdx(int tile) {
+		for (int i = 0; i < entranceTiles.length; i++) {
+			if (entranceTiles[i] == tile) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
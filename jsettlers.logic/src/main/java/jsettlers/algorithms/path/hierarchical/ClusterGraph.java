@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.hierarchical;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+
+/**
+ * The abstract graph of the {@link HierarchicalAStar}. The map is split into square clusters of {@value #CLUSTER_SIZE}x{@value #CLUSTER_SIZE}
+ * tiles. For every cluster, the entrances to the neighbor clusters and the distances between the entrances are calculated.
+ * <p>
+ * The data of a cluster only depends on the blocking state of the cluster and its neighbor tiles. Therefore a cluster is simply dropped when
+ * the blocking changes and recalculated the next time it's needed. This makes the graph independent of the order of blocking changes and
+ * requests.
+ */
+final class ClusterGraph {
+	static final int CLUSTER_SIZE = 16;
+	/**
+	 * Long runs of free transitions between two clusters get an entrance every {@value #ENTRANCE_SPACING} transitions.
+	 */
+	private static final int ENTRANCE_SPACING = 8;
+	/**
+	 * Upper bound of the entrances of a cluster: the transitions to all of its (max. six) neighbor clusters.
+	 */
+	static final int MAX_ENTRANCES = 6 * 2 * CLUSTER_SIZE;
+
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	/**
+	 * Cluster offsets of the neighbors that are right or below of a cluster. The other three neighbors are handled from their perspective.
+	 */
+	private static final int[] FORWARD_NEIGHBOR_DX = { 1, 0, 1 };
+	private static final int[] FORWARD_NEIGHBOR_DY = { 0, 1, 1 };
+
+	private final IAStarPathMap map;
+	private final IBlockingProvider blockingProvider;
+	private final short width;
+	private final short height;
+	private final int clustersWidth;
+	private final int clustersHeight;
+
+	private final Cluster[] clusters;
+
+	private final int[] transitionsA = new int[2 * CLUSTER_SIZE];
+	private final int[] transitionsB = new int[2 * CLUSTER_SIZE];
+	private final boolean[] transitionsFree = new boolean[2 * CLUSTER_SIZE];
+	private final int[] entranceTilesBuffer = new int[MAX_ENTRANCES];
+	private final int[] partnerTilesBuffer = new int[MAX_ENTRANCES];
+	private int numberOfEntrances;
+
+	private final float[] localCosts = new float[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final int[] localStamps = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final IntFloatMinHeap localOpen = new IntFloatMinHeap(CLUSTER_SIZE * CLUSTER_SIZE);
+	private int localStamp = 0;
+
+	ClusterGraph(IAStarPathMap map, IBlockingProvider blockingProvider, short width, short height) {
+		this.map = map;
+		this.blockingProvider = blockingProvider;
+		this.width = width;
+		this.height = height;
+
+		this.clustersWidth = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		this.clustersHeight = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		this.clusters = new Cluster[clustersWidth * clustersHeight];
+	}
+
+	int getClusterIdx(int x, int y) {
+		return (y / CLUSTER_SIZE) * clustersWidth + x / CLUSTER_SIZE;
+	}
+
+	int getClusterIdx(int flatIdx) {
+		return getClusterIdx(flatIdx % width, flatIdx / width);
+	}
+
+	/**
+	 * Gets the cluster with the given index. If the cluster has been invalidated, it is recalculated.
+	 * 
+	 * @param clusterIdx
+	 *            Index of the cluster.
+	 * @return The up to date cluster.
+	 */
+	Cluster getCluster(int clusterIdx) {
+		Cluster cluster = clusters[clusterIdx];
+		if (cluster == null) {
+			cluster = calculateCluster(clusterIdx % clustersWidth, clusterIdx / clustersWidth);
+			clusters[clusterIdx] = cluster;
+		}
+		return cluster;
+	}
+
+	/**
+	 * Invalidates all clusters whose data depends on the given position.
+	 * 
+	 * @param x
+	 *            x coordinate of the changed position.
+	 * @param y
+	 *            y coordinate of the changed position.
+	 */
+	void invalidate(int x, int y) {
+		int clusterIdx = getClusterIdx(x, y);
+		clusters[clusterIdx] = null;
+
+		for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+			int neighborX = x + xDeltaArray[i];
+			int neighborY = y + yDeltaArray[i];
+			if (isInBounds(neighborX, neighborY)) {
+				clusters[getClusterIdx(neighborX, neighborY)] = null;
+			}
+		}
+	}
+
+	void invalidateAll() {
+		for (int i = 0; i < clusters.length; i++) {
+			clusters[i] = null;
+		}
+	}
+
+	/**
+	 * Calculates the costs from the given position to all entrances of the given cluster (or from all entrances to the given position if
+	 * reversed is true). Only paths inside of the cluster are considered.
+	 * 
+	 * @param clusterIdx
+	 *            Index of the cluster containing the position.
+	 * @param x
+	 *            x coordinate of the position.
+	 * @param y
+	 *            y coordinate of the position.
+	 * @param reversed
+	 *            If true, the costs to reach the position from the entrances are calculated.
+	 * @param result
+	 *            Array receiving the cost of every entrance or {@link Cluster#UNREACHABLE}.
+	 */
+	void calculateEntranceCosts(int clusterIdx, int x, int y, boolean reversed, float[] result) {
+		Cluster cluster = getCluster(clusterIdx);
+		int minX = (clusterIdx % clustersWidth) * CLUSTER_SIZE;
+		int minY = (clusterIdx / clustersWidth) * CLUSTER_SIZE;
+
+		calculateLocalCosts(minX, minY, x, y, reversed);
+
+		for (int i = 0; i < cluster.getNumberOfEntrances(); i++) {
+			result[i] = getLocalCost(minX, minY, cluster.getEntranceTile(i));
+		}
+	}
+
+	private Cluster calculateCluster(int clusterX, int clusterY) {
+		numberOfEntrances = 0;
+
+		for (int i = 0; i < FORWARD_NEIGHBOR_DX.length; i++) { // borders to the clusters on the upper left side
+			int neighborX = clusterX - FORWARD_NEIGHBOR_DX[i];
+			int neighborY = clusterY - FORWARD_NEIGHBOR_DY[i];
+			if (neighborX >= 0 && neighborY >= 0) {
+				addBorderEntrances(neighborX, neighborY, FORWARD_NEIGHBOR_DX[i], FORWARD_NEIGHBOR_DY[i], false);
+			}
+		}
+		for (int i = 0; i < FORWARD_NEIGHBOR_DX.length; i++) { // borders to the clusters on the lower right side
+			if (clusterX + FORWARD_NEIGHBOR_DX[i] < clustersWidth && clusterY + FORWARD_NEIGHBOR_DY[i] < clustersHeight) {
+				addBorderEntrances(clusterX, clusterY, FORWARD_NEIGHBOR_DX[i], FORWARD_NEIGHBOR_DY[i], true);
+			}
+		}
+
+		int[] entranceTiles = new int[numberOfEntrances];
+		int[] partnerTiles = new int[numberOfEntrances];
+		System.arraycopy(entranceTilesBuffer, 0, entranceTiles, 0, numberOfEntrances);
+		System.arraycopy(partnerTilesBuffer, 0, partnerTiles, 0, numberOfEntrances);
+
+		int minX = clusterX * CLUSTER_SIZE;
+		int minY = clusterY * CLUSTER_SIZE;
+		float[] distances = new float[numberOfEntrances * numberOfEntrances];
+		for (int from = 0; from < numberOfEntrances; from++) {
+			int fromTile = entranceTiles[from];
+			calculateLocalCosts(minX, minY, fromTile % width, fromTile / width, false);
+
+			for (int to = 0; to < numberOfEntrances; to++) {
+				distances[from * numberOfEntrances + to] = getLocalCost(minX, minY, entranceTiles[to]);
+			}
+		}
+
+		return new Cluster(entranceTiles, partnerTiles, distances);
+	}
+
+	/**
+	 * Adds the entrances of the border between cluster A and its neighbor B at the given offset. The transitions are always enumerated from the
+	 * perspective of cluster A, so that both clusters select the same entrances.
+	 * 
+	 * @param clusterAX
+	 *            x index of cluster A
+	 * @param clusterAY
+	 *            y index of cluster A
+	 * @param dx
+	 *            x offset of cluster B
+	 * @param dy
+	 *            y offset of cluster B
+	 * @param ownSideA
+	 *            true if the entrances are added for cluster A, false if they are added for cluster B.
+	 */
+	private void addBorderEntrances(int clusterAX, int clusterAY, int dx, int dy, boolean ownSideA) {
+		int clusterB = (clusterAY + dy) * clustersWidth + clusterAX + dx;
+		int minX = clusterAX * CLUSTER_SIZE;
+		int minY = clusterAY * CLUSTER_SIZE;
+		int maxX = Math.min(width, minX + CLUSTER_SIZE) - 1;
+		int maxY = Math.min(height, minY + CLUSTER_SIZE) - 1;
+
+		int numberOfTransitions = 0;
+		int startX = dx > 0 ? maxX : minX;
+		int startY = dy > 0 ? maxY : minY;
+		int endX = dy > 0 && dx == 0 ? maxX : startX;
+		int endY = dx > 0 && dy == 0 ? maxY : startY;
+
+		for (int y = startY; y <= endY; y++) {
+			for (int x = startX; x <= endX; x++) {
+				for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+					int neighborX = x + xDeltaArray[i];
+					int neighborY = y + yDeltaArray[i];
+					if (isInBounds(neighborX, neighborY) && getClusterIdx(neighborX, neighborY) == clusterB) {
+						transitionsA[numberOfTransitions] = getFlatIdx(x, y);
+						transitionsB[numberOfTransitions] = getFlatIdx(neighborX, neighborY);
+						transitionsFree[numberOfTransitions] = !blockingProvider.isBlocked(x, y) && !blockingProvider.isBlocked(neighborX, neighborY);
+						numberOfTransitions++;
+					}
+				}
+			}
+		}
+
+		int runStart = 0;
+		while (runStart < numberOfTransitions) {
+			if (!transitionsFree[runStart]) {
+				runStart++;
+				continue;
+			}
+
+			int runEnd = runStart;
+			while (runEnd < numberOfTransitions && transitionsFree[runEnd]) {
+				runEnd++;
+			}
+
+			int runLength = runEnd - runStart;
+			for (int i = runStart + Math.min(runLength, ENTRANCE_SPACING) / 2; i < runEnd; i += ENTRANCE_SPACING) {
+				entranceTilesBuffer[numberOfEntrances] = ownSideA ? transitionsA[i] : transitionsB[i];
+				partnerTilesBuffer[numberOfEntrances] = ownSideA ? transitionsB[i] : transitionsA[i];
+				numberOfEntrances++;
+			}
+
+			runStart = runEnd;
+		}
+	}
+
+	/**
+	 * Runs a dijkstra search from the given start position that is restricted to the cluster starting at (minX|minY).
+	 */
+	private void calculateLocalCosts(int minX, int minY, int startX, int startY, boolean reversed) {
+		localStamp++;
+		if (localStamp == Integer.MAX_VALUE) {
+			for (int i = 0; i < localStamps.length; i++) {
+				localStamps[i] = 0;
+			}
+			localStamp = 1;
+		}
+
+		int maxX = Math.min(width, minX + CLUSTER_SIZE);
+		int maxY = Math.min(height, minY + CLUSTER_SIZE);
+
+		int startIdx = (startY - minY) * CLUSTER_SIZE + startX - minX;
+		localStamps[startIdx] = localStamp;
+		localCosts[startIdx] = 0;
+		localOpen.clear();
+		localOpen.insert(startIdx, 0);
+
+		while (!localOpen.isEmpty()) {
+			float currCosts = localOpen.getMinRank();
+			int currIdx = localOpen.deleteMin();
+			if (currCosts > localCosts[currIdx]) {
+				continue; // this is an outdated entry
+			}
+
+			int x = minX + currIdx % CLUSTER_SIZE;
+			int y = minY + currIdx / CLUSTER_SIZE;
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				int neighborX = x + xDeltaArray[i];
+				int neighborY = y + yDeltaArray[i];
+
+				if (minX <= neighborX && neighborX < maxX && minY <= neighborY && neighborY < maxY && !blockingProvider.isBlocked(neighborX, neighborY)) {
+					int neighborIdx = (neighborY - minY) * CLUSTER_SIZE + neighborX - minX;
+					float newCosts = currCosts + (reversed ? map.getCost(neighborX, neighborY, x, y) : map.getCost(x, y, neighborX, neighborY));
+
+					if (localStamps[neighborIdx] != localStamp || newCosts < localCosts[neighborIdx]) {
+						localStamps[neighborIdx] = localStamp;
+						localCosts[neighborIdx] = newCosts;
+						localOpen.insert(neighborIdx, newCosts);
+					}
+				}
+			}
+		}
+	}
+
+	private float getLocalCost(int minX, int minY, int tile) {
+		int localIdx = (tile / width - minY) * CLUSTER_SIZE + tile % width - minX;
+		return localStamps[localIdx] == localStamp ? localCosts[localIdx] : Cluster.UNREACHABLE;
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+}
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.hierarchical;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.AbstractAStar;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.grid.flags.IBlockingChangedListener;
+
+/**
+ * Hierarchical A* (HPA*) to find long distance paths. The path is first searched on the abstract graph of cluster entrances (see
+ * {@link ClusterGraph}). Afterwards, the segments between the found entrances are refined with the given local {@link AbstractAStar}.
+ * <p>
+ * Short paths, paths starting on blocked positions and paths the hierarchical search can not find or refine (e.g. because the requester needs
+ * to stay on its player's ground) are calculated with the local {@link AbstractAStar} only.
+ */
+public final class HierarchicalAStar extends AbstractAStar implements IBlockingChangedListener {
+	/**
+	 * Paths with an on grid distance below this value are directly calculated by the local A*. It must be bigger than the maximum distance
+	 * inside of a single cluster.
+	 */
+	private static final int MIN_HIERARCHICAL_DISTANCE = 2 * ClusterGraph.CLUSTER_SIZE;
+
+	private final IAStarPathMap map;
+	private final AbstractAStar localAStar;
+	private final short width;
+	private final short height;
+
+	private final ClusterGraph graph;
+
+	private final IntFloatMinHeap open = new IntFloatMinHeap(ClusterGraph.MAX_ENTRANCES);
+	private final int[] stamps;
+	private final boolean[] closed;
+	private final float[] costs;
+	private final int[] parents;
+	private int stamp = 0;
+
+	private final float[] startEntranceCosts = new float[ClusterGraph.MAX_ENTRANCES];
+	private final float[] targetEntranceCosts = new float[ClusterGraph.MAX_ENTRANCES];
+
+	private int[] waypoints = new int[64];
+	private short[] pathX = new short[256];
+	private short[] pathY = new short[256];
+	private int pathLength;
+
+	/**
+	 * Creates a new hierarchical path finder.
+	 * 
+	 * @param map
+	 *            The map used for the path costs.
+	 * @param blockingProvider
+	 *            The requester independent blocking used to build the abstract graph.
+	 * @param localAStar
+	 *            The {@link AbstractAStar} that is used to refine the paths and to calculate short paths.
+	 * @param width
+	 *            Width of the map.
+	 * @param height
+	 *            Height of the map.
+	 */
+	public HierarchicalAStar(IAStarPathMap map, IBlockingProvider blockingProvider, AbstractAStar localAStar, short width, short height) {
+		this.map = map;
+		this.localAStar = localAStar;
+		this.width = width;
+		this.height = height;
+
+		this.graph = new ClusterGraph(map, blockingProvider, width, height);
+
+		this.stamps = new int[width * height];
+		this.closed = new boolean[width * height];
+		this.costs = new float[width * height];
+		this.parents = new int[width * height];
+	}
+
+	@Override
+	public void blockingChanged(int x, int y, boolean newBlockingValue) {
+		graph.invalidate(x, y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (!isInBounds(sx, sy) || !isInBounds(tx, ty)
+				|| ShortPoint2D.getOnGridDist(tx - sx, ty - sy) < MIN_HIERARCHICAL_DISTANCE
+				|| graph.getClusterIdx(sx, sy) == graph.getClusterIdx(tx, ty)
+				|| map.isBlocked(requester, sx, sy) || map.isBlocked(requester, tx, ty)
+				|| map.getBlockedPartition(sx, sy) != map.getBlockedPartition(tx, ty)) {
+			return localAStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		if (findAbstractPath(sx, sy, tx, ty)) {
+			Path path = refineAbstractPath(requester, getFlatIdx(sx, sy), getFlatIdx(tx, ty));
+			if (path != null) {
+				return path;
+			}
+		}
+
+		return localAStar.findPath(requester, sx, sy, tx, ty);
+	}
+
+	/**
+	 * Searches the path on the abstract graph. If a path is found, the parents array contains the path from the target to the start.
+	 * 
+	 * @return true if a path has been found.
+	 */
+	private boolean findAbstractPath(int sx, int sy, int tx, int ty) {
+		final int startTile = getFlatIdx(sx, sy);
+		final int targetTile = getFlatIdx(tx, ty);
+		final int startClusterIdx = graph.getClusterIdx(sx, sy);
+		final int targetClusterIdx = graph.getClusterIdx(tx, ty);
+
+		nextSearch();
+		open.clear();
+
+		graph.calculateEntranceCosts(startClusterIdx, sx, sy, false, startEntranceCosts);
+		graph.calculateEntranceCosts(targetClusterIdx, tx, ty, true, targetEntranceCosts);
+
+		stamps[startTile] = stamp;
+		costs[startTile] = 0;
+		closed[startTile] = true;
+
+		Cluster startCluster = graph.getCluster(startClusterIdx);
+		for (int i = 0; i < startCluster.getNumberOfEntrances(); i++) {
+			int entranceTile = startCluster.getEntranceTile(i);
+			if (entranceTile == startTile) {
+				int partnerTile = startCluster.getPartnerTile(i);
+				visit(partnerTile, getCost(startTile, partnerTile), startTile, tx, ty);
+			} else if (startEntranceCosts[i] != Cluster.UNREACHABLE) {
+				visit(entranceTile, startEntranceCosts[i], startTile, tx, ty);
+			}
+		}
+
+		while (!open.isEmpty()) {
+			final int currTile = open.deleteMin();
+			if (currTile == targetTile) {
+				return true;
+			}
+			if (closed[currTile]) {
+				continue; // this is an outdated entry
+			}
+			closed[currTile] = true;
+
+			final float currCosts = costs[currTile];
+			final int clusterIdx = graph.getClusterIdx(currTile);
+			final Cluster cluster = graph.getCluster(clusterIdx);
+			final int currEntranceIdx = cluster.getEntranceIdx(currTile);
+
+			for (int i = 0; i < cluster.getNumberOfEntrances(); i++) {
+				int entranceTile = cluster.getEntranceTile(i);
+				if (entranceTile == currTile) {
+					int partnerTile = cluster.getPartnerTile(i);
+					visit(partnerTile, currCosts + getCost(currTile, partnerTile), currTile, tx, ty);
+				} else {
+					float distance = cluster.getDistance(currEntranceIdx, i);
+					if (distance != Cluster.UNREACHABLE) {
+						visit(entranceTile, currCosts + distance, currTile, tx, ty);
+					}
+				}
+			}
+
+			if (clusterIdx == targetClusterIdx && targetEntranceCosts[currEntranceIdx] != Cluster.UNREACHABLE) {
+				visit(targetTile, currCosts + targetEntranceCosts[currEntranceIdx], currTile, tx, ty);
+			}
+		}
+
+		return false;
+	}
+
+	private void visit(int tile, float newCosts, int parent, int tx, int ty) {
+		if (stamps[tile] != stamp) {
+			stamps[tile] = stamp;
+			closed[tile] = false;
+		} else if (closed[tile] || costs[tile] <= newCosts) {
+			return;
+		}
+
+		costs[tile] = newCosts;
+		parents[tile] = parent;
+		open.insert(tile, newCosts + ShortPoint2D.getOnGridDist(tx - getX(tile), ty - getY(tile)));
+	}
+
+	private void nextSearch() {
+		stamp++;
+		if (stamp == Integer.MAX_VALUE) {
+			for (int i = 0; i < stamps.length; i++) {
+				stamps[i] = 0;
+			}
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * Refines the abstract path found by {@link #findAbstractPath(int, int, int, int)} with the local A*.
+	 * 
+	 * @return The refined path or null if one of the segments can not be refined for the given requester.
+	 */
+	private Path refineAbstractPath(IPathCalculatable requester, int startTile, int targetTile) {
+		int numberOfWaypoints = 0;
+		for (int tile = targetTile; tile != startTile; tile = parents[tile]) {
+			if (numberOfWaypoints >= waypoints.length) {
+				int[] newWaypoints = new int[waypoints.length * 2];
+				System.arraycopy(waypoints, 0, newWaypoints, 0, waypoints.length);
+				waypoints = newWaypoints;
+			}
+			waypoints[numberOfWaypoints++] = tile;
+		}
+
+		pathLength = 0;
+		int fromTile = startTile;
+		for (int i = numberOfWaypoints - 1; i >= 0; i--) {
+			int toTile = waypoints[i];
+			short fromX = (short) getX(fromTile), fromY = (short) getY(fromTile);
+			short toX = (short) getX(toTile), toY = (short) getY(toTile);
+
+			if (EDirection.getDirection(toX - fromX, toY - fromY) != null) { // transition between two clusters
+				if (map.isBlocked(requester, toX, toY)) {
+					return null;
+				}
+				appendToPath(toX, toY);
+			} else {
+				Path segment = localAStar.findPath(requester, fromX, fromY, toX, toY);
+				if (segment == null) {
+					return null;
+				}
+				for (int step = 0; step < segment.getLength(); step++) {
+					appendToPath(segment.nextX(), segment.nextY());
+					segment.goToNextStep();
+				}
+			}
+
+			fromTile = toTile;
+		}
+
+		Path path = new Path(pathLength);
+		for (int i = 0; i < pathLength; i++) {
+			path.insertAt(i, pathX[i], pathY[i]);
+		}
+		return path;
+	}
+
+	private void appendToPath(short x, short y) {
+		if (pathLength >= pathX.length) {
+			short[] newPathX = new short[pathX.length * 2];
+			short[] newPathY = new short[pathY.length * 2];
+			System.arraycopy(pathX, 0, newPathX, 0, pathLength);
+			System.arraycopy(pathY, 0, newPathY, 0, pathLength);
+			pathX = newPathX;
+			pathY = newPathY;
+		}
+		pathX[pathLength] = x;
+		pathY[pathLength] = y;
+		pathLength++;
+	}
+
+	private float getCost(int fromTile, int toTile) {
+		return map.getCost(getX(fromTile), getY(fromTile), getX(toTile), getY(toTile));
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	private int getX(int flatIdx) {
+		return flatIdx % width;
+	}
+
+	private int getY(int flatIdx) {
+		return flatIdx / width;
+	}
+}
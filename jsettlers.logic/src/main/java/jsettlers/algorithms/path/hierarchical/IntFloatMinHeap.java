@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.hierarchical;
+
+/**
+ * A simple binary min heap of int elements with float ranks. Elements are not updated in place; a decreased rank is realized by inserting the
+ * element again. Therefore the user has to skip elements that have already been handled.
+ */
+final class IntFloatMinHeap {
+	private int[] elements;
+	private float[] ranks;
+	private int size = 0;
+
+	IntFloatMinHeap(int initialCapacity) {
+		this.elements = new int[initialCapacity];
+		this.ranks = new float[initialCapacity];
+	}
+
+	void insert(int element, float rank) {
+		if (size >= elements.length) {
+			grow();
+		}
+
+		int idx = size++;
+		while (idx > 0) {
+			int parentIdx = (idx - 1) / 2;
+			if (!isSmaller(element, rank, elements[parentIdx], ranks[parentIdx])) {
+				break;
+			}
+			elements[idx] = elements[parentIdx];
+			ranks[idx] = ranks[parentIdx];
+			idx = parentIdx;
+		}
+		elements[idx] = element;
+		ranks[idx] = rank;
+	}
+
+	/**
+	 * @return The rank of the minimal element. NOTE: The heap must not be empty!
+	 */
+	float getMinRank() {
+		return ranks[0];
+	}
+
+	/**
+	 * Deletes the minimal element of the heap. NOTE: The heap must not be empty!
+	 * 
+	 * @return The deleted element.
+	 */
+	int deleteMin() {
+		int result = elements[0];
+		size--;
+
+		int element = elements[size];
+		float rank = ranks[size];
+		int idx = 0;
+		while (true) {
+			int childIdx = 2 * idx + 1;
+			if (childIdx >= size) {
+				break;
+			}
+			if (childIdx + 1 < size && isSmaller(elements[childIdx + 1], ranks[childIdx + 1], elements[childIdx], ranks[childIdx])) {
+				childIdx++;
+			}
+			if (!isSmaller(elements[childIdx], ranks[childIdx], element, rank)) {
+				break;
+			}
+			elements[idx] = elements[childIdx];
+			ranks[idx] = ranks[childIdx];
+			idx = childIdx;
+		}
+		elements[idx] = element;
+		ranks[idx] = rank;
+
+		return result;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Equal ranks are ordered by the element to make the order independent of the insertion order.
+	 */
+	private static boolean isSmaller(int element, float rank, int otherElement, float otherRank) {
+		return rank < otherRank || (rank == otherRank && element < otherElement);
+	}
+
+	private void grow() {
+		int newLength = elements.length * 2;
+		int[] newElements = new int[newLength];
+		float[] newRanks = new float[newLength];
+		System.arraycopy(elements, 0, newElements, 0, size);
+		System.arraycopy(ranks, 0, newRanks, 0, size);
+		elements = newElements;
+		ranks = newRanks;
+	}
+}
@@ -47,6 +47,14 @@ public class MaterialProductionSettings implements IMaterialProductionSettings,
 		ratios[EMaterialType.BOW.ordinal] = 0.7f;
 	}
 
+	/**
+	 * Creates a copy of the given settings.
+	 */
+	public MaterialProductionSettings(MaterialProductionSettings settings) {
+		System.arraycopy(settings.ratios, 0, ratios, 0, ratios.length);
+		System.arraycopy(settings.numberOfFutureProducedMaterials, 0, numberOfFutureProducedMaterials, 0, numberOfFutureProducedMaterials.length);
+	}
+
 	@Override
 	public float configuredRatioOfMaterial(EMaterialType type) {
 		return ratios[type.ordinal];
@@ -45,6 +45,28 @@ public final class MatchConstants {
 	 */
 	public static boolean ENABLE_DEBUG_COLORS = true;
 
+	/**
+	 * NOTE: this value has only an effect if it's changed before the MainGrid is created! All participants of a game need to use the same value.
+	 * <br>
+	 * if true, long distance paths are calculated with the hierarchical path finder.
+	 */
+	public static boolean ENABLE_HIERARCHICAL_PATHFINDING = false;
+
+	/**
+	 * Number of threads used to prepare the timer events of a tick in parallel (think phase) before they are executed serially (commit phase).
+	 * The results are the same as with a serial execution, so the participants of a game can use different values. <br>
+	 * 0 disables the parallel think phase.
+	 */
+	public static int PARALLEL_THINKING_THREADS = 0;
+
+	/**
+	 * NOTE: All participants of a game need to use the same value. <br>
+	 * Maximum number of transport jobs the materials manager of a partition assigns per material type and tick. 1 is the original behavior.
+	 * With higher values, the requests of a material type are matched with its offers as a batch, so large partitions with many jobless bearers
+	 * drain their requests faster.
+	 */
+	public static int MATERIAL_DISTRIBUTION_BATCH_SIZE = 1;
+
 	private MatchConstants() {
 	}
 
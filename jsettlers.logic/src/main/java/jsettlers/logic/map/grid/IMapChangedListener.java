@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid;
+
+/**
+ * An implementor of this interface is informed about changes of the map that are relevant for map statistics. This includes changes of the
+ * landscape, the resources, the map objects, the protected state and the partitions of a position.
+ * <p />
+ * NOTE: The methods of this interface are called by the game threads. Implementors must not block and must handle concurrent calls.
+ */
+public interface IMapChangedListener {
+	/**
+	 * This is a default implementation doing nothing on calls to the methods of {@link IMapChangedListener}.
+	 */
+	public static final IMapChangedListener DEFAULT_IMPLEMENTATION = new IMapChangedListener() {
+		@Override
+		public void mapChangedAt(int x, int y) {
+		}
+
+		@Override
+		public void partitionChangedAt(int x, int y) {
+		}
+
+		@Override
+		public void partitionsMerged(byte playerId) {
+		}
+	};
+
+	/**
+	 * This method is called when the landscape, the height, the resources, the map objects or the protected state of a position changed.
+	 * 
+	 * @param x
+	 *            x coordinate of the position.
+	 * @param y
+	 *            y coordinate of the position.
+	 */
+	void mapChangedAt(int x, int y);
+
+	/**
+	 * This method is called when the partition of a position changed. This includes changes of the player of the position.
+	 * 
+	 * @param x
+	 *            x coordinate of the position.
+	 * @param y
+	 *            y coordinate of the position.
+	 */
+	void partitionChangedAt(int x, int y);
+
+	/**
+	 * This method is called when two partitions of the given player have been merged. This changes the partition id of all positions of the
+	 * smaller partition without calls to {@link #partitionChangedAt(int, int)}.
+	 * 
+	 * @param playerId
+	 *            The id of the player owning the merged partitions.
+	 */
+	void partitionsMerged(byte playerId);
+}
@@ -22,6 +22,7 @@ import java.util.BitSet;
 import java.util.Date;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import jsettlers.algorithms.borders.BordersThread;
 import jsettlers.algorithms.borders.IBordersThreadGrid;
@@ -29,8 +30,10 @@ import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
 import jsettlers.algorithms.fogofwar.FogOfWar;
 import jsettlers.algorithms.fogofwar.IFogOfWarGrid;
 import jsettlers.algorithms.fogofwar.IViewDistancable;
+import jsettlers.algorithms.fogofwar.MultiPlayerFogOfWar;
 import jsettlers.algorithms.landmarks.EnclosedBlockedAreaFinderAlgorithm;
 import jsettlers.algorithms.landmarks.IEnclosedBlockedAreaFinderGrid;
+import jsettlers.algorithms.partitions.IBlockingProvider;
 import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.area.IInAreaFinderMap;
@@ -38,11 +41,12 @@ import jsettlers.algorithms.path.area.InAreaFinder;
 import jsettlers.algorithms.path.astar.AbstractAStar;
 import jsettlers.algorithms.path.astar.BucketQueueAStar;
 import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.algorithms.path.astar.PathCache;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
+import jsettlers.algorithms.path.hierarchical.HierarchicalAStar;
 import jsettlers.algorithms.previewimage.PreviewImageCreator;
 import jsettlers.common.Color;
-import jsettlers.common.buildings.BuildingAreaBitSet;
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.buildings.IBuilding;
 import jsettlers.common.landscape.ELandscapeType;
@@ -87,6 +91,7 @@ import jsettlers.logic.buildings.workers.WorkerBuilding;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.flags.FlagsGrid;
+import jsettlers.logic.map.grid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.grid.landscape.LandscapeGrid;
 import jsettlers.logic.map.grid.movable.MovableGrid;
 import jsettlers.logic.map.grid.objects.AbstractHexMapObject;
@@ -139,11 +144,13 @@ public final class MainGrid implements Serializable {
 	final BuildingsGrid buildingsGrid;
 
 	transient FogOfWar fogOfWar;
+	transient MultiPlayerFogOfWar multiPlayerFogOfWar;
 	transient GraphicsGrid graphicsGrid;
 	transient ConstructionMarksGrid constructionMarksGrid;
 	transient BordersThread bordersThread;
 	transient IGuiInputGrid guiInputGrid;
 	private transient IEnclosedBlockedAreaFinderGrid enclosedBlockedAreaFinderGrid;
+	private transient MapChangedListeners mapChangedListeners;
 
 	public MainGrid(String mapId, String mapName, short width, short height, PlayerSetting[] playerSettings) {
 		this.mapId = mapId;
@@ -177,11 +184,16 @@ public final class MainGrid implements Serializable {
 	private void initAdditional() {
 		this.graphicsGrid = new GraphicsGrid();
 		this.constructionMarksGrid = new ConstructionMarksGrid();
-		this.bordersThread = new BordersThread(new BordersThreadGrid());
+		this.bordersThread = new BordersThread(new BordersThreadGrid(), width, height);
 		this.guiInputGrid = new GuiInputGrid();
 
 		this.partitionsGrid.setPlayerChangedListener(new PlayerChangedListener());
+		this.mapChangedListeners = new MapChangedListeners();
+		this.partitionsGrid.setMapChangedListener(mapChangedListeners);
+		this.landscapeGrid.setMapChangedListener(mapChangedListeners);
+		this.objectsGrid.setMapChangedListener(mapChangedListeners);
 		this.enclosedBlockedAreaFinderGrid = new EnclosedBlockedAreaFinderGrid();
+		this.flagsGrid.setPathfinderBlockingChangedListener(movablePathfinderGrid);
 	}
 
 	public final short getHeight() {
@@ -200,6 +212,34 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
+	/**
+	 * Enables the calculation of the fog of war of all players at once, e.g. for spectators or replay analysis. Must be called before the
+	 * threads are started.
+	 * 
+	 * @return The fog of war of all players.
+	 */
+	public MultiPlayerFogOfWar initMultiPlayerFogOfWar() {
+		if (multiPlayerFogOfWar == null) {
+			multiPlayerFogOfWar = new MultiPlayerFogOfWar(width, height, partitionsGrid.getNumberOfPlayers());
+		}
+		return multiPlayerFogOfWar;
+	}
+
+	/**
+	 * Registers a listener that is informed about changes of the landscape, the resources, the map objects and the partitions. Listeners are
+	 * not serialized and need to be registered again after loading a game.
+	 * 
+	 * @param listener
+	 *            The listener to be added.
+	 */
+	public void addMapChangedListener(IMapChangedListener listener) {
+		mapChangedListeners.listeners.add(listener);
+	}
+
+	public void removeMapChangedListener(IMapChangedListener listener) {
+		mapChangedListeners.listeners.remove(listener);
+	}
+
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
 		initAdditional();
@@ -211,6 +251,9 @@ public final class MainGrid implements Serializable {
 		if (fogOfWar != null) {
 			fogOfWar.start(new FogOfWarGrid());
 		}
+		if (multiPlayerFogOfWar != null) {
+			multiPlayerFogOfWar.start(new FogOfWarGrid());
+		}
 	}
 
 	public void stopThreads() {
@@ -218,6 +261,9 @@ public final class MainGrid implements Serializable {
 		if (fogOfWar != null) {
 			fogOfWar.cancel();
 		}
+		if (multiPlayerFogOfWar != null) {
+			multiPlayerFogOfWar.cancel();
+		}
 	}
 
 	public MainGrid(String mapId, String mapName, IMapData mapGrid, PlayerSetting[] playerSettings) {
@@ -380,6 +426,13 @@ public final class MainGrid implements Serializable {
 		return movablePathfinderGrid.pathfinderGrid;
 	}
 
+	/**
+	 * @return The cache of the paths calculated for the movables. It can be used to read the cache's statistics.
+	 */
+	public PathCache getPathCache() {
+		return movablePathfinderGrid.pathCache;
+	}
+
 	public final boolean isInBounds(int x, int y) {
 		return x >= 0 && x < width && y >= 0 && y < height;
 	}
@@ -695,6 +748,44 @@ public final class MainGrid implements Serializable {
 
 	}
 
+	/**
+	 * {@link IAStarPathMap} that doesn't set the debug colors, so that it can be used by multiple threads in parallel.
+	 */
+	private static final class NonDebuggingAStarMap implements IAStarPathMap {
+		private final IAStarPathMap map;
+
+		NonDebuggingAStarMap(IAStarPathMap map) {
+			this.map = map;
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return map.isBlocked(requester, x, y);
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return map.getCost(sx, sy, tx, ty);
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return map.getBlockedPartition(x, y);
+		}
+	}
+
 	final class GraphicsGrid implements IGraphicsGrid {
 		private transient BitSet bordersGrid = new BitSet(width * height);
 
@@ -837,6 +928,11 @@ public final class MainGrid implements Serializable {
 			return objectsGrid.removeMapObject(x, y, mapObject);
 		}
 
+		@Override
+		public final void mapObjectChangedAt(int x, int y) {
+			objectsGrid.mapObjectChangedAt(x, y);
+		}
+
 		@Override
 		public final AbstractHexMapObject getMapObject(int x, int y, EMapObjectType mapObjectType) {
 			return objectsGrid.getMapObjectAt(x, y, mapObjectType);
@@ -958,30 +1054,6 @@ public final class MainGrid implements Serializable {
 			return height;
 		}
 
-		@Override
-		public boolean canConstructAt(short x, short y, EBuildingType buildingType, byte playerId) {
-			RelativePoint[] buildingArea = buildingType.getBuildingArea();
-			BuildingAreaBitSet areaBitSet = buildingType.getBuildingAreaBitSet();
-			if (!isInBounds(areaBitSet.minX + x, areaBitSet.minY + y) || !isInBounds(areaBitSet.maxX + x, areaBitSet.maxY + y)) {
-				return false;
-			}
-
-			short partitionId = getPartitionIdAt(areaBitSet.aPosition.calculateX(x), areaBitSet.aPosition.calculateY(y));
-
-			if (!canPlayerConstructOnPartition(playerId, partitionId)) {
-				return false;
-			}
-			for (RelativePoint curr : buildingArea) {
-				int currX = curr.calculateX(x);
-				int currY = curr.calculateY(y);
-
-				if (!canUsePositionForConstruction(currX, currY, buildingType.getRequiredGroundTypeAt(currX, currY), partitionId)) {
-					return false;
-				}
-			}
-			return !buildingType.needsFlattenedGround() || calculateConstructionMarkValue(x, y, buildingArea) >= 0;
-		}
-
 		@Override
 		public boolean canUsePositionForConstruction(int x, int y, Set<ELandscapeType> allowedGroundTypes, short partitionId) {
 			return isInBounds(x, y)
@@ -991,29 +1063,8 @@ public final class MainGrid implements Serializable {
 		}
 
 		@Override
-		public byte calculateConstructionMarkValue(int mapX, int mapY, final RelativePoint[] flattenPositions) {
-			int sum = 0;
-
-			for (RelativePoint currPos : flattenPositions) {
-				sum += landscapeGrid.getHeightAt(currPos.calculateX(mapX), currPos.calculateY(mapY));
-			}
-
-			float avg = ((float) sum) / flattenPositions.length;
-			float diff = 0;
-
-			for (RelativePoint currPos : flattenPositions) {
-				float currDiff = Math.abs(landscapeGrid.getHeightAt(currPos.calculateX(mapX), currPos.calculateY(mapY)) - avg);
-				diff += currDiff;
-			}
-
-			int result = (int) (Constants.CONSTRUCTION_MARK_SCALE_FACTOR * Math.pow(diff, Constants.CONSTRUCTION_MARK_POW_FACTOR)
-					/ flattenPositions.length);
-
-			if (result <= Byte.MAX_VALUE) {
-				return (byte) result;
-			} else {
-				return -1;
-			}
+		public byte getHeightAt(int x, int y) {
+			return landscapeGrid.getHeightAt(x, y);
 		}
 
 		@Override
@@ -1033,13 +1084,17 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
-	final class MovablePathfinderGrid extends AbstractMovableGrid {
+	final class MovablePathfinderGrid extends AbstractMovableGrid implements IBlockingChangedListener {
 
 		private static final long serialVersionUID = 4006228724969442801L;
 
 		private transient PathfinderGrid pathfinderGrid;
 
 		private transient AbstractAStar aStar;
+		private transient PathCache pathCache;
+		private transient ThreadLocal<BucketQueueAStar> preparingAStars;
+		private transient int pathfinderVersion = 0;
+		private transient HierarchicalAStar hierarchicalAStar; // null if the hierarchical path finding is disabled
 		transient DijkstraAlgorithm dijkstra; // not private, because it's used by BuildingsGrid
 		private transient InAreaFinder inAreaFinder;
 
@@ -1055,11 +1110,46 @@ public final class MainGrid implements Serializable {
 		private final void initPathfinders() {
 			pathfinderGrid = new PathfinderGrid();
 
-			aStar = new BucketQueueAStar(pathfinderGrid, width, height);
-			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height);
+			BucketQueueAStar bucketQueueAStar = new BucketQueueAStar(pathfinderGrid, width, height);
+			pathCache = new PathCache(bucketQueueAStar, width, height);
+			aStar = pathCache;
+
+			if (MatchConstants.ENABLE_HIERARCHICAL_PATHFINDING) {
+				hierarchicalAStar = new HierarchicalAStar(pathfinderGrid, new IBlockingProvider() {
+					@Override
+					public boolean isBlocked(int x, int y) {
+						return flagsGrid.isBlocked(x, y);
+					}
+				}, pathCache, width, height);
+				aStar = hierarchicalAStar;
+			}
+
+			preparingAStars = new ThreadLocal<BucketQueueAStar>() {
+				@Override
+				protected BucketQueueAStar initialValue() {
+					return new BucketQueueAStar(new NonDebuggingAStarMap(pathfinderGrid), width, height);
+				}
+			};
+
+			// the dijkstra requests different targets all the time, so it doesn't use the cache
+			dijkstra = new DijkstraAlgorithm(pathfinderGrid, hierarchicalAStar != null ? hierarchicalAStar : bucketQueueAStar, width, height);
 			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height);
 		}
 
+		@Override
+		public void blockingChanged(int x, int y, boolean newBlockingValue) {
+			pathfinderVersion++;
+			pathCache.invalidate(x, y);
+			if (hierarchicalAStar != null) {
+				hierarchicalAStar.blockingChanged(x, y, newBlockingValue);
+			}
+		}
+
+		void playerChangedAt(int x, int y) {
+			pathfinderVersion++;
+			pathCache.invalidatePlayerDependent(x, y);
+		}
+
 		@Override
 		public final boolean isBlocked(short x, short y) {
 			return flagsGrid.isBlocked(x, y);
@@ -1284,6 +1374,21 @@ public final class MainGrid implements Serializable {
 			return aStar.findPath(pathRequester, targetPos);
 		}
 
+		@Override
+		public Path preparePathTo(IPathCalculatable pathRequester, ShortPoint2D targetPos) {
+			return preparingAStars.get().findPath(pathRequester, targetPos);
+		}
+
+		@Override
+		public boolean canPreparePaths() {
+			return hierarchicalAStar == null; // the hierarchical paths differ from the ones of the BucketQueueAStar
+		}
+
+		@Override
+		public int getPathfinderVersion() {
+			return pathfinderVersion;
+		}
+
 		@Override
 		public Path searchDijkstra(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType) {
 			return dijkstra.find(pathCalculateable, centerX, centerY, (short) 0, radius, searchType);
@@ -1883,6 +1988,35 @@ public final class MainGrid implements Serializable {
 		}
 	}
 
+	/**
+	 * Distributes the events of the {@link PartitionsGrid}, the {@link LandscapeGrid} and the {@link ObjectsGrid} to the registered
+	 * {@link IMapChangedListener}s.
+	 */
+	private static final class MapChangedListeners implements IMapChangedListener {
+		private final CopyOnWriteArrayList<IMapChangedListener> listeners = new CopyOnWriteArrayList<IMapChangedListener>();
+
+		@Override
+		public void mapChangedAt(int x, int y) {
+			for (IMapChangedListener listener : listeners) {
+				listener.mapChangedAt(x, y);
+			}
+		}
+
+		@Override
+		public void partitionChangedAt(int x, int y) {
+			for (IMapChangedListener listener : listeners) {
+				listener.partitionChangedAt(x, y);
+			}
+		}
+
+		@Override
+		public void partitionsMerged(byte playerId) {
+			for (IMapChangedListener listener : listeners) {
+				listener.partitionsMerged(playerId);
+			}
+		}
+	}
+
 	/**
 	 * This class implements the {@link IPlayerChangedListener} interface and executes all work that needs to be done when a position of the grid
 	 * changes it's player.
@@ -1893,8 +2027,8 @@ public final class MainGrid implements Serializable {
 
 		@Override
 		public void playerChangedAt(int x, int y, byte newPlayerId) {
-			final ShortPoint2D position = new ShortPoint2D(x, y);
-			bordersThread.checkPosition(position);
+			bordersThread.checkPosition(x, y);
+			movablePathfinderGrid.playerChangedAt(x, y);
 
 			Building building = objectsGrid.getBuildingAt(x, y);
 			if (building != null && building.getPlayerId() != newPlayerId) {
@@ -40,6 +40,7 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 
 	private IBlockingChangedListener blockingChangedListener = null;
 	private IProtectedChangedListener protectedChangedListener = null;
+	private transient IBlockingChangedListener pathfinderBlockingChangedListener = null;
 
 	private transient IContainingProvider blockedContainingProvider;
 
@@ -107,6 +108,10 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		if (blockingChangedListener != null && oldBlocked != newBlocked) {
 			this.blockedGrid.set(idx, newBlocked);
 			this.blockingChangedListener.blockingChanged(x, y, newBlocked);
+
+			if (pathfinderBlockingChangedListener != null) {
+				this.pathfinderBlockingChangedListener.blockingChanged(x, y, newBlocked);
+			}
 		}
 		if (protectedChangedListener != null && oldProtected != newProtected) {
 			this.protectedGrid.set(idx, newProtected);
@@ -140,6 +145,17 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IPartit
 		this.blockingChangedListener = listener;
 	}
 
+	/**
+	 * Sets a listener that is informed about blocking changes after the registered {@link IBlockingChangedListener}. In contrast to that
+	 * listener, this one is not serialized and needs to be set again after loading.
+	 * 
+	 * @param listener
+	 *            The listener or null to remove the listener.
+	 */
+	public void setPathfinderBlockingChangedListener(IBlockingChangedListener listener) {
+		this.pathfinderBlockingChangedListener = listener;
+	}
+
 	@Override
 	public void setProtectedChangedListener(IProtectedChangedListener protectedChangedListener) {
 		this.protectedChangedListener = protectedChangedListener;
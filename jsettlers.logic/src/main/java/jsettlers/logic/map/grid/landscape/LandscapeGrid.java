@@ -27,6 +27,7 @@ import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.IMapChangedListener;
 import jsettlers.logic.map.grid.flags.IProtectedProvider;
 import jsettlers.logic.map.grid.flags.IProtectedProvider.IProtectedChangedListener;
 
@@ -66,6 +67,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 
 	public transient int[] debugColors;
 	private transient IGraphicsBackgroundListener backgroundListener;
+	private transient IMapChangedListener mapChangedListener;
 
 	public LandscapeGrid(short width, short height, IProtectedProvider protectedProvider) {
 		this.width = width;
@@ -83,6 +85,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 
 		this.flattenedResetter = new FlattenedResetter(this);
 		setBackgroundListener(null);
+		setMapChangedListener(null);
 
 		protectedProvider.setProtectedChangedListener(this);
 	}
@@ -90,6 +93,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
 		setBackgroundListener(null);
+		setMapChangedListener(null);
 
 		initDebugColors();
 	}
@@ -159,6 +163,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 
 		this.landscapeGrid[x + y * width] = landscapeType.ordinal;
 		backgroundListener.backgroundChangedAt(x, y);
+		mapChangedListener.mapChangedAt(x, y);
 	}
 
 	public final void setHeightAt(short x, short y, byte height) {
@@ -174,6 +179,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		this.temporaryFlatened[index] = Byte.MAX_VALUE; // cancel the flattening
 
 		backgroundListener.backgroundChangedAt(x, y);
+		mapChangedListener.mapChangedAt(x, y);
 	}
 
 	public final void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
@@ -184,9 +190,24 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		}
 	}
 
+	/**
+	 * Sets the listener that is informed about changes of the landscape and the resources.
+	 * 
+	 * @param mapChangedListener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public final void setMapChangedListener(IMapChangedListener mapChangedListener) {
+		if (mapChangedListener != null) {
+			this.mapChangedListener = mapChangedListener;
+		} else {
+			this.mapChangedListener = IMapChangedListener.DEFAULT_IMPLEMENTATION;
+		}
+	}
+
 	public final void setResourceAt(short x, short y, EResourceType resourceType, byte amount) {
 		this.resourceType[x + y * width] = resourceType.ordinal;
 		this.resourceAmount[x + y * width] = (byte) Math.min(amount, Constants.MAX_RESOURCE_AMOUNT_PER_POSITION);
+		mapChangedListener.mapChangedAt(x, y);
 	}
 
 	/**
@@ -219,6 +240,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		int idx = position.x + position.y * width;
 		if (resourceType[idx] == resource.ordinal && resourceAmount[idx] > 0) {
 			resourceAmount[idx]--;
+			mapChangedListener.mapChangedAt(position.x, position.y);
 			return true;
 		} else {
 			return false;
@@ -330,6 +352,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		if (!newProtectedState) {
 			activateUnflattening(x, y);
 		}
+		mapChangedListener.mapChangedAt(x, y);
 	}
 
 }
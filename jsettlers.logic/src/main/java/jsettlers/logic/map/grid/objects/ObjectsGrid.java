@@ -31,6 +31,7 @@ import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.SerializationUtils;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.grid.IMapChangedListener;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.interfaces.IInformable;
 
@@ -48,12 +49,14 @@ public final class ObjectsGrid implements Serializable {
 
 	private transient AbstractHexMapObject[] objectsGrid;
 	private transient Building[] buildingsGrid;
+	private transient IMapChangedListener mapChangedListener;
 
 	public ObjectsGrid(short width, short height) {
 		this.width = width;
 		this.height = height;
 		this.objectsGrid = new AbstractHexMapObject[width * height];
 		this.buildingsGrid = new Building[width * height];
+		setMapChangedListener(null);
 	}
 
 	private final void writeObject(ObjectOutputStream oos) throws IOException {
@@ -83,6 +86,7 @@ public final class ObjectsGrid implements Serializable {
 
 	private final void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		setMapChangedListener(null);
 
 		buildingsGrid = SerializationUtils.readSparseArray(ois, Building.class);
 
@@ -126,6 +130,7 @@ public final class ObjectsGrid implements Serializable {
 		if (mapObjectHead != null) {
 			mapObjectHead.removeMapObjectTypes(mapObjectTypes);
 		}
+		mapChangedListener.mapChangedAt(x, y);
 	}
 
 	public final boolean removeMapObject(int x, int y, AbstractHexMapObject mapObject) {
@@ -140,6 +145,9 @@ public final class ObjectsGrid implements Serializable {
 				removed = mapObjectHead.removeMapObject(mapObject);
 			}
 
+			if (removed) {
+				mapChangedListener.mapChangedAt(x, y);
+			}
 			return removed;
 		} else
 			return false;
@@ -155,6 +163,33 @@ public final class ObjectsGrid implements Serializable {
 		} else {
 			mapObjectHead.addMapObject(mapObject);
 		}
+		mapChangedListener.mapChangedAt(x, y);
+	}
+
+	/**
+	 * Informs the map changed listener that the state of a map object at the given position changed without the object being added or removed.
+	 * 
+	 * @param x
+	 *            x coordinate of the position.
+	 * @param y
+	 *            y coordinate of the position.
+	 */
+	public final void mapObjectChangedAt(int x, int y) {
+		mapChangedListener.mapChangedAt(x, y);
+	}
+
+	/**
+	 * Sets the listener that is informed about added, removed and changed map objects.
+	 * 
+	 * @param mapChangedListener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public final void setMapChangedListener(IMapChangedListener mapChangedListener) {
+		if (mapChangedListener != null) {
+			this.mapChangedListener = mapChangedListener;
+		} else {
+			this.mapChangedListener = IMapChangedListener.DEFAULT_IMPLEMENTATION;
+		}
 	}
 
 	public final boolean hasCuttableObject(int x, int y, EMapObjectType mapObjectType) {
@@ -42,6 +42,7 @@ import jsettlers.common.utils.collections.IPredicate;
 import jsettlers.common.utils.collections.ISerializablePredicate;
 import jsettlers.common.utils.collections.IteratorFilter;
 import jsettlers.logic.buildings.MaterialProductionSettings;
+import jsettlers.logic.map.grid.IMapChangedListener;
 import jsettlers.logic.map.grid.flags.IBlockingChangedListener;
 import jsettlers.logic.map.grid.partition.PartitionsListingBorderVisitor.BorderPartitionInfo;
 import jsettlers.logic.map.grid.partition.data.PartitionDataSupplier;
@@ -82,6 +83,7 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 
 	private transient Object partitionsWriteLock;
 	private transient IPlayerChangedListener playerChangedListener = IPlayerChangedListener.DEFAULT_IMPLEMENTATION;
+	private transient IMapChangedListener mapChangedListener;
 
 	public PartitionsGrid(short width, short height, PlayerSetting[] playerSettings, IPartitionsGridBlockingProvider blockingProvider) {
 		this.width = width;
@@ -147,6 +149,7 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 
 	private void initAdditionalFields() {
 		partitionsWriteLock = new Object();
+		mapChangedListener = IMapChangedListener.DEFAULT_IMPLEMENTATION;
 	}
 
 	public boolean isDefaultPartition(short partitionId) {
@@ -212,6 +215,16 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		return towers[x + y * width];
 	}
 
+	/**
+	 * Copies the tower counts of all positions into the given array.
+	 *
+	 * @param towerCounts
+	 *            An array of the size width * height, indexed by x + y * width.
+	 */
+	public void copyTowerCountsTo(byte[] towerCounts) {
+		System.arraycopy(towers, 0, towerCounts, 0, towers.length);
+	}
+
 	public boolean isEnforcedByTower(int x, int y) {
 		return towers[x + y * width] > 0;
 	}
@@ -622,6 +635,7 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		smallerPartitionObject.stopManager();
 
 		partitionObjects[smallerPartition] = biggerPartitionObject;
+		mapChangedListener.partitionsMerged(biggerPartitionObject.playerId);
 
 		/**
 		 * Flatten all hierarchies: <br>
@@ -717,6 +731,7 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		synchronized (partitionsWriteLock) {
 			partitions[idx] = newPartition;
 		}
+		mapChangedListener.partitionChangedAt(x, y);
 
 		return newPartitionObject.playerId;
 	}
@@ -811,6 +826,20 @@ public final class PartitionsGrid implements Serializable, IBlockingChangedListe
 		}
 	}
 
+	/**
+	 * Sets the given listener. The listener will then be informed of any positions that change their partition and of merged partitions.
+	 * 
+	 * @param listener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public void setMapChangedListener(IMapChangedListener listener) {
+		if (listener == null) {
+			this.mapChangedListener = IMapChangedListener.DEFAULT_IMPLEMENTATION;
+		} else {
+			this.mapChangedListener = listener;
+		}
+	}
+
 	public byte getNumberOfPlayers() {
 		return (byte) players.length;
 	}
@@ -14,9 +14,16 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.partition.manager.datastructures;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import jsettlers.algorithms.queue.ITypeAcceptor;
 import jsettlers.common.position.ILocatable;
@@ -26,22 +33,113 @@ import jsettlers.common.utils.MathUtils;
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
  * It is also possible to find the nearest object around a given position.
+ * <p>
+ * The objects are bucketed into square cells of the map. Nearest object queries search the cells in rings around the given position and stop as
+ * soon as no closer object can be found. Ties are broken by the insertion order, so the results are the same as of a linear search over a list.
+ * <p>
+ * Objects may change their positions while they are in the list. {@link #updatePosition(ILocatable, ShortPoint2D)} has to be called when this
+ * happens. Objects implementing {@link IListedLocatable} get to know the lists they are in, so they can do this themselves.
  * 
  * @author Andreas Eberle
  * 
  * @param <T>
  */
 public class PositionableList<T extends ILocatable> implements Iterable<T>, Serializable {
-	private static final long serialVersionUID = 414099060331344505L;
+	private static final long serialVersionUID = -4166458101843812470L;
 
-	private ArrayList<T> data;
+	private static final int CELL_SHIFT = 4;
+	private static final int CELL_SIZE = 1 << CELL_SHIFT;
+	/**
+	 * Lists with less entries are searched linearly.
+	 */
+	private static final int MIN_SIZE_FOR_CELL_SEARCH = 16;
+
+	private transient HashMap<Integer, Cell<T>> cells;
+	private transient IdentityHashMap<T, Entry<T>> entriesByObject;
+	private transient Entry<T> head;
+	private transient Entry<T> tail;
+	private transient int size;
+	private transient long nextSequence;
+	private transient int minCellX;
+	private transient int minCellY;
+	private transient int maxCellX;
+	private transient int maxCellY;
+	private transient ArrayList<Entry<T>> outdatedEntries;
+	private transient ArrayList<T> loadedObjects;
 
 	public PositionableList() {
-		data = new ArrayList<T>();
+		init();
+	}
+
+	private void init() {
+		cells = new HashMap<Integer, Cell<T>>();
+		entriesByObject = new IdentityHashMap<T, Entry<T>>();
+		outdatedEntries = new ArrayList<Entry<T>>();
+		resetBounds();
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		insertLoadedObjects();
+		oos.defaultWriteObject();
+		oos.writeInt(size);
+		for (Entry<T> entry = head; entry != null; entry = entry.next) {
+			oos.writeObject(entry.object);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		init();
+		int numberOfObjects = ois.readInt();
+		loadedObjects = new ArrayList<T>(numberOfObjects);
+		for (int i = 0; i < numberOfObjects; i++) {
+			loadedObjects.add((T) ois.readObject());
+		}
+	}
+
+	/**
+	 * The objects read by {@link #readObject(ObjectInputStream)} may not be completely deserialized at that time. Therefore they are inserted on
+	 * the first access to the list.
+	 */
+	private void insertLoadedObjects() {
+		if (loadedObjects != null) {
+			ArrayList<T> objects = loadedObjects;
+			loadedObjects = null;
+			for (T object : objects) {
+				insert(object);
+			}
+		}
 	}
 
 	public void insert(T object) {
-		data.add(object);
+		insertLoadedObjects();
+		Entry<T> entry = new Entry<T>(object, object.getPos(), nextSequence++);
+
+		if (tail == null) {
+			head = entry;
+		} else {
+			tail.next = entry;
+			entry.previous = tail;
+		}
+		tail = entry;
+		size++;
+
+		Entry<T> sameObject = entriesByObject.get(object);
+		if (sameObject == null) {
+			entriesByObject.put(object, entry);
+		} else {
+			while (sameObject.nextOfSameObject != null) {
+				sameObject = sameObject.nextOfSameObject;
+			}
+			sameObject.nextOfSameObject = entry;
+		}
+
+		addToCell(entry);
+
+		if (object instanceof IListedLocatable) {
+			((IListedLocatable) object).addedToList(this);
+		}
 	}
 
 	/**
@@ -57,17 +155,43 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 
 	@Override
 	public Iterator<T> iterator() {
-		return data.iterator();
+		insertLoadedObjects();
+		return new Iterator<T>() {
+			private Entry<T> nextEntry = head;
+			private Entry<T> lastEntry;
+
+			@Override
+			public boolean hasNext() {
+				return nextEntry != null;
+			}
+
+			@Override
+			public T next() {
+				if (nextEntry == null) {
+					throw new NoSuchElementException();
+				}
+				lastEntry = nextEntry;
+				nextEntry = nextEntry.next;
+				return lastEntry.object;
+			}
+
+			@Override
+			public void remove() {
+				if (lastEntry == null) {
+					throw new IllegalStateException();
+				}
+				removeEntry(lastEntry);
+				lastEntry = null;
+			}
+		};
 	}
 
 	public T removeObjectAt(ShortPoint2D position) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				return curr;
-			}
+		insertLoadedObjects();
+		Entry<T> entry = getEntryAt(position);
+		if (entry != null) {
+			removeEntry(entry);
+			return entry.object;
 		}
 		return null;
 	}
@@ -80,12 +204,9 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	 * @return Returns the found object at the given position or null if no object has been found.
 	 */
 	public T getObjectAt(ShortPoint2D position) {
-		for (T curr : data) {
-			if (curr.getPos().equals(position)) {
-				return curr;
-			}
-		}
-		return null;
+		insertLoadedObjects();
+		Entry<T> entry = getEntryAt(position);
+		return entry != null ? entry.object : null;
 	}
 
 	/**
@@ -99,67 +220,361 @@ public class PositionableList<T extends ILocatable> implements Iterable<T>, Seri
 	 * @return accepted object that's nearest to position
 	 */
 	public T removeObjectNextTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
-		T currBest = getObjectCloseTo(position, acceptor);
+		insertLoadedObjects();
+		Entry<T> currBest = getEntryCloseTo(position, acceptor);
 
-		if (currBest != null)
-			data.remove(currBest);
+		if (currBest != null) {
+			removeEntry(currBest);
+			return currBest.object;
+		}
+		return null;
+	}
 
-		return currBest;
+	public T getObjectCloseTo(ShortPoint2D position) {
+		insertLoadedObjects();
+		Entry<T> entry = getEntryCloseTo(position, null);
+		return entry != null ? entry.object : null;
+	}
+
+	/**
+	 * Informs the list that the given object has moved. Nothing happens if the object is not in this list.
+	 * 
+	 * @param object
+	 *            The object that moved.
+	 * @param newPosition
+	 *            The new position of the object.
+	 */
+	public void updatePosition(ILocatable object, ShortPoint2D newPosition) {
+		insertLoadedObjects();
+		for (Entry<T> entry = entriesByObject.get(object); entry != null; entry = entry.nextOfSameObject) {
+			relocate(entry, newPosition);
+		}
+	}
+
+	@Override
+	public String toString() {
+		insertLoadedObjects();
+		StringBuilder builder = new StringBuilder("[");
+		for (Entry<T> entry = head; entry != null; entry = entry.next) {
+			builder.append(entry.object);
+			if (entry.next != null) {
+				builder.append(", ");
+			}
+		}
+		return builder.append(']').toString();
+	}
+
+	public void addAll(PositionableList<T> otherList) {
+		otherList.insertLoadedObjects();
+		for (Entry<T> entry = otherList.head; entry != null; entry = entry.next) {
+			insert(entry.object);
+		}
+	}
+
+	public void remove(T object) {
+		insertLoadedObjects();
+		Entry<T> entry = entriesByObject.get(object);
+		if (entry != null) {
+			removeEntry(entry);
+		}
+	}
+
+	public boolean isEmpty() {
+		return size == 0 && (loadedObjects == null || loadedObjects.isEmpty());
+	}
+
+	public void moveObjectsAtPositionTo(ShortPoint2D position, PositionableList<T> newList, IMovedVisitor<? super T> movedVisitor) {
+		insertLoadedObjects();
+		Entry<T> entry;
+		while ((entry = getEntryAt(position)) != null) {
+			removeEntry(entry);
+			movedVisitor.visit(entry.object);
+			newList.insert(entry.object);
+		}
 	}
 
-	private T getObjectCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+	/**
+	 * @return The entry at the given position that has been inserted first.
+	 */
+	private Entry<T> getEntryAt(ShortPoint2D position) {
+		Cell<T> cell = cells.get(getCellKey(position.x >> CELL_SHIFT, position.y >> CELL_SHIFT));
+		if (cell == null) {
+			return null;
+		}
+
+		Entry<T> first = null;
+		for (int i = 0; i < cell.size; i++) {
+			Entry<T> entry = cell.entries[i];
+			if (isOutdated(entry)) {
+				outdatedEntries.add(entry);
+			} else if (entry.position.equals(position) && (first == null || entry.sequence < first.sequence)) {
+				first = entry;
+			}
+		}
+
+		if (relocateOutdatedEntries()) {
+			return getEntryAt(position);
+		}
+		return first;
+	}
+
+	private Entry<T> getEntryCloseTo(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		if (size < MIN_SIZE_FOR_CELL_SEARCH) {
+			return getEntryCloseToLinear(position, acceptor);
+		}
+
+		Entry<T> result = getEntryCloseToByCells(position, acceptor);
+		if (relocateOutdatedEntries()) {
+			return getEntryCloseTo(position, acceptor);
+		} else if (result == NO_RESULT) {
+			return getEntryCloseToLinear(position, acceptor);
+		}
+		return result;
+	}
+
+	private Entry<T> getEntryCloseToLinear(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
 		int bestDistance = Integer.MAX_VALUE;
-		T currBest = null;
+		Entry<T> currBest = null;
 
-		for (T currEntry : data) {
-			if (acceptor != null && !acceptor.accepts(currEntry))
+		for (Entry<T> entry = head; entry != null; entry = entry.next) {
+			if (isOutdated(entry)) {
+				relocate(entry, entry.object.getPos());
+			}
+			if (acceptor != null && !acceptor.accepts(entry.object))
 				continue;
 
-			ShortPoint2D currPosition = currEntry.getPos();
-			int currDist = MathUtils.squareHypot(position, currPosition);
+			int currDist = MathUtils.squareHypot(position, entry.position);
 
 			if (bestDistance > currDist) {
 				bestDistance = currDist;
-				currBest = currEntry;
+				currBest = entry;
 			}
 		}
 		return currBest;
 	}
 
-	public T getObjectCloseTo(ShortPoint2D position) {
-		return getObjectCloseTo(position, null);
-	}
+	/**
+	 * Searches the cells in rings around the given position.
+	 * 
+	 * @return The best entry, null if there is none or {@link #NO_RESULT} if the search visited more cells than the list has entries. In this case
+	 *         a linear search is cheaper.
+	 */
+	@SuppressWarnings("unchecked")
+	private Entry<T> getEntryCloseToByCells(ShortPoint2D position, ITypeAcceptor<T> acceptor) {
+		int centerX = position.x >> CELL_SHIFT;
+		int centerY = position.y >> CELL_SHIFT;
+		int maxRing = Math.max(Math.max(centerX - minCellX, maxCellX - centerX), Math.max(centerY - minCellY, maxCellY - centerY));
 
-	@Override
-	public String toString() {
-		return data.toString();
+		int bestDistance = Integer.MAX_VALUE;
+		Entry<T> currBest = null;
+		int visitedCells = 0;
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			if (ring > 0) {
+				long minRingDistance = (ring - 1) * CELL_SIZE + 1;
+				if (minRingDistance * minRingDistance > bestDistance) {
+					break; // no entry of this or further rings can be closer
+				}
+			}
+
+			int startY = Math.max(minCellY, centerY - ring);
+			int endY = Math.min(maxCellY, centerY + ring);
+			for (int cellY = startY; cellY <= endY; cellY++) {
+				boolean fullRow = cellY == centerY - ring || cellY == centerY + ring;
+				int step = fullRow ? 1 : 2 * ring;
+				int startX = fullRow ? Math.max(minCellX, centerX - ring) : centerX - ring;
+				int endX = fullRow ? Math.min(maxCellX, centerX + ring) : centerX + ring;
+
+				for (int cellX = startX; cellX <= endX; cellX += step) {
+					if (cellX < minCellX || cellX > maxCellX) {
+						continue;
+					}
+					if (++visitedCells > size) {
+						return (Entry<T>) NO_RESULT;
+					}
+
+					Cell<T> cell = cells.get(getCellKey(cellX, cellY));
+					if (cell == null) {
+						continue;
+					}
+
+					for (int i = 0; i < cell.size; i++) {
+						Entry<T> entry = cell.entries[i];
+						if (isOutdated(entry)) {
+							outdatedEntries.add(entry);
+							continue;
+						}
+
+						int currDist = MathUtils.squareHypot(position, entry.position);
+						if ((currDist < bestDistance || (currDist == bestDistance && entry.sequence < currBest.sequence))
+								&& (acceptor == null || acceptor.accepts(entry.object))) {
+							bestDistance = currDist;
+							currBest = entry;
+						}
+					}
+				}
+			}
+		}
+		return currBest;
 	}
 
-	public void addAll(PositionableList<T> otherList) {
-		this.data.addAll(otherList.data);
+	private boolean isOutdated(Entry<T> entry) {
+		ShortPoint2D currentPosition = entry.object.getPos();
+		if (currentPosition == entry.position) {
+			return false;
+		} else if (currentPosition.equals(entry.position)) {
+			entry.position = currentPosition;
+			return false;
+		} else {
+			return true;
+		}
 	}
 
-	public void remove(T object) {
-		this.data.remove(object);
+	private boolean relocateOutdatedEntries() {
+		if (outdatedEntries.isEmpty()) {
+			return false;
+		}
+		for (Entry<T> entry : outdatedEntries) {
+			relocate(entry, entry.object.getPos());
+		}
+		outdatedEntries.clear();
+		return true;
 	}
 
-	public boolean isEmpty() {
-		return data.isEmpty();
+	private void relocate(Entry<T> entry, ShortPoint2D newPosition) {
+		if ((entry.position.x >> CELL_SHIFT) == (newPosition.x >> CELL_SHIFT) && (entry.position.y >> CELL_SHIFT) == (newPosition.y >> CELL_SHIFT)) {
+			entry.position = newPosition;
+		} else {
+			removeFromCell(entry);
+			entry.position = newPosition;
+			addToCell(entry);
+		}
 	}
 
-	public void moveObjectsAtPositionTo(ShortPoint2D position, PositionableList<T> newList, IMovedVisitor<? super T> movedVisitor) {
-		Iterator<T> iter = data.iterator();
-		while (iter.hasNext()) {
-			T curr = iter.next();
-			if (curr.getPos().equals(position)) {
-				iter.remove();
-				movedVisitor.visit(curr);
-				newList.data.add(curr);
+	private void removeEntry(Entry<T> entry) {
+		if (entry.previous == null) {
+			head = entry.next;
+		} else {
+			entry.previous.next = entry.next;
+		}
+		if (entry.next == null) {
+			tail = entry.previous;
+		} else {
+			entry.next.previous = entry.previous;
+		}
+		size--;
+
+		Entry<T> first = entriesByObject.get(entry.object);
+		if (first == entry) {
+			if (entry.nextOfSameObject == null) {
+				entriesByObject.remove(entry.object);
+			} else {
+				entriesByObject.put(entry.object, entry.nextOfSameObject);
 			}
+		} else {
+			while (first.nextOfSameObject != entry) {
+				first = first.nextOfSameObject;
+			}
+			first.nextOfSameObject = entry.nextOfSameObject;
+		}
+
+		removeFromCell(entry);
+		if (size == 0) {
+			resetBounds();
+		}
+
+		if (entry.object instanceof IListedLocatable) {
+			((IListedLocatable) entry.object).removedFromList(this);
+		}
+	}
+
+	private void addToCell(Entry<T> entry) {
+		int cellX = entry.position.x >> CELL_SHIFT;
+		int cellY = entry.position.y >> CELL_SHIFT;
+		Integer key = getCellKey(cellX, cellY);
+		Cell<T> cell = cells.get(key);
+		if (cell == null) {
+			cell = new Cell<T>();
+			cells.put(key, cell);
 		}
+		cell.add(entry);
+
+		minCellX = Math.min(minCellX, cellX);
+		minCellY = Math.min(minCellY, cellY);
+		maxCellX = Math.max(maxCellX, cellX);
+		maxCellY = Math.max(maxCellY, cellY);
+	}
+
+	private void removeFromCell(Entry<T> entry) {
+		Integer key = getCellKey(entry.position.x >> CELL_SHIFT, entry.position.y >> CELL_SHIFT);
+		Cell<T> cell = cells.get(key);
+		cell.remove(entry);
+		if (cell.size == 0) {
+			cells.remove(key);
+		}
+	}
+
+	private void resetBounds() {
+		minCellX = Integer.MAX_VALUE;
+		minCellY = Integer.MAX_VALUE;
+		maxCellX = Integer.MIN_VALUE;
+		maxCellY = Integer.MIN_VALUE;
+	}
+
+	private static Integer getCellKey(int cellX, int cellY) {
+		return (cellX << 16) | (cellY & 0xFFFF);
 	}
 
 	public interface IMovedVisitor<T> {
 		void visit(T moved);
 	}
+
+	/**
+	 * Interface for objects that can move while they are in a {@link PositionableList}. They have to call
+	 * {@link PositionableList#updatePosition(ILocatable, ShortPoint2D)} on every list they have been added to, when they move.
+	 */
+	public interface IListedLocatable extends ILocatable {
+		void addedToList(PositionableList<?> list);
+
+		void removedFromList(PositionableList<?> list);
+	}
+
+	private static final Entry<?> NO_RESULT = new Entry<ILocatable>(null, null, -1);
+
+	private static final class Entry<T> {
+		final T object;
+		final long sequence;
+		ShortPoint2D position;
+		Entry<T> previous;
+		Entry<T> next;
+		Entry<T> nextOfSameObject;
+		int indexInCell;
+
+		Entry(T object, ShortPoint2D position, long sequence) {
+			this.object = object;
+			this.position = position;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final class Cell<T> {
+		@SuppressWarnings("unchecked")
+		Entry<T>[] entries = (Entry<T>[]) new Entry<?>[4];
+		int size;
+
+		void add(Entry<T> entry) {
+			if (size == entries.length) {
+				entries = Arrays.copyOf(entries, size * 2);
+			}
+			entry.indexInCell = size;
+			entries[size++] = entry;
+		}
+
+		void remove(Entry<T> entry) {
+			Entry<T> last = entries[--size];
+			entries[entry.indexInCell] = last;
+			last.indexInCell = entry.indexInCell;
+			entries[size] = null;
+		}
+	}
 }
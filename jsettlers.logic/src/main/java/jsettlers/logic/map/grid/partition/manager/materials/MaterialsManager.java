@@ -15,10 +15,14 @@
 package jsettlers.logic.map.grid.partition.manager.materials;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
 
 import jsettlers.common.map.partition.IPartitionSettings;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IJoblessSupplier;
 import jsettlers.logic.map.grid.partition.manager.materials.interfaces.IManagerBearer;
 import jsettlers.logic.map.grid.partition.manager.materials.offers.MaterialOffer;
@@ -43,6 +47,11 @@ public final class MaterialsManager implements Serializable {
 
 	private final IPartitionSettings settings;
 
+	// reused by distributeJobBatchForMaterial(), created lazily because they are not serialized
+	private transient ArrayList<MaterialRequestObject> batchRequests;
+	private transient PriorityQueue<OfferCandidate> offerCandidates;
+	private transient ShortPoint2D[] matchedOffers;
+
 	/**
 	 * Creates a new {@link MaterialsManager} that uses the given {@link IJoblessSupplier} and {@link OffersList} for it's operations.
 	 * 
@@ -81,33 +90,131 @@ public final class MaterialsManager implements Serializable {
 		requestQueues[material.ordinal].insertRequest(requestObject);
 	}
 
+	/**
+	 * Distributes transport jobs to jobless bearers. The material types are handled in the order of their priorities. With a
+	 * {@link MatchConstants#MATERIAL_DISTRIBUTION_BATCH_SIZE} of 1, at most one job is assigned per material type and tick. With a larger batch
+	 * size, up to that many requests of a material type are matched with its offers at once.
+	 */
 	public void distributeJobs() {
+		int batchSize = MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE;
+
 		for (int i = 0; i < EMaterialType.NUMBER_OF_DROPPABLE_MATERIALS && !joblessSupplier.isEmpty(); i++) {
-			distributeJobForMaterial(settings.getMaterialTypeForPrio(i));
+			EMaterialType materialType = settings.getMaterialTypeForPrio(i);
+			if (batchSize > 1) {
+				distributeJobBatchForMaterial(materialType, batchSize);
+			} else {
+				distributeJobForMaterial(materialType);
+			}
 		}
 	}
 
-	private void distributeJobForMaterial(EMaterialType materialType) {
+	/**
+	 * Assigns a transport job for the given material type to the jobless closest to the offer closest to the highest request.
+	 * 
+	 * @param materialType
+	 *            The material type to be transported.
+	 * @return Returns true if a job has been handed to a jobless,<br>
+	 *         false if there is no offer, request or jobless or the jobless did not accept the job.
+	 */
+	private boolean distributeJobForMaterial(EMaterialType materialType) {
 		if (offersList.isEmpty(materialType) || joblessSupplier.isEmpty()) // no offers? or no jobless? just return
-			return;
+			return false;
 
 		AbstractMaterialRequestPriorityQueue requestQueue = requestQueues[materialType.ordinal];
 		MaterialRequestObject request = requestQueue.getHighestRequest();
 
 		if (request == null) // no request, return
-			return;
+			return false;
 
 		MaterialOffer offer = offersList.removeOfferCloseTo(materialType, request.getPos());
 
 		assert offer != null : "The offer can't be null here!";
 
-		IManagerBearer jobless = joblessSupplier.removeJoblessCloseTo(offer.getPos());
+		return deliver(materialType, offer.getPos(), request);
+	}
+
+	/**
+	 * Matches up to batchSize requests of the given material type with its offers. The requests are taken in the order of their priorities. Then
+	 * the pair of request and offer with the shortest distance is matched until all requests have an offer. The jobs are handed to the jobless in
+	 * the order of the requests.
+	 * 
+	 * @param materialType
+	 *            The material type to be transported.
+	 * @param batchSize
+	 *            The maximum number of jobs to be assigned.
+	 */
+	private void distributeJobBatchForMaterial(EMaterialType materialType, int batchSize) {
+		if (offersList.isEmpty(materialType)) {
+			return;
+		}
+		if (batchRequests == null) {
+			batchRequests = new ArrayList<MaterialRequestObject>();
+			offerCandidates = new PriorityQueue<OfferCandidate>();
+		}
+
+		// accepting a delivery for the time of the search lets the queue return the next request
+		AbstractMaterialRequestPriorityQueue requestQueue = requestQueues[materialType.ordinal];
+		int maxRequests = Math.min(batchSize, offersList.getAmountOf(materialType));
+		for (int i = 0; i < maxRequests; i++) {
+			MaterialRequestObject request = requestQueue.getHighestRequest();
+			if (request == null) {
+				break;
+			}
+			request.deliveryAccepted();
+			batchRequests.add(request);
+		}
+		for (MaterialRequestObject request : batchRequests) {
+			request.deliveryAborted();
+		}
+
+		int numberOfRequests = batchRequests.size();
+		if (matchedOffers == null || matchedOffers.length < numberOfRequests) {
+			matchedOffers = new ShortPoint2D[Math.max(numberOfRequests, batchSize)];
+		}
+
+		for (int i = 0; i < numberOfRequests; i++) {
+			addClosestOffer(materialType, i);
+		}
+		while (!offerCandidates.isEmpty()) {
+			OfferCandidate candidate = offerCandidates.poll();
+			if (offersList.removeOfferAt(candidate.offerPosition, materialType) != null) {
+				matchedOffers[candidate.requestIndex] = candidate.offerPosition;
+			} else { // the offer has been matched with a closer request
+				addClosestOffer(materialType, candidate.requestIndex);
+			}
+		}
+
+		for (int i = 0; i < numberOfRequests; i++) {
+			if (matchedOffers[i] != null) {
+				deliver(materialType, matchedOffers[i], batchRequests.get(i));
+				matchedOffers[i] = null;
+			}
+		}
+		batchRequests.clear();
+	}
+
+	private void addClosestOffer(EMaterialType materialType, int requestIndex) {
+		ShortPoint2D requestPosition = batchRequests.get(requestIndex).getPos();
+		MaterialOffer offer = offersList.getOfferCloseTo(materialType, requestPosition);
+		if (offer != null) {
+			offerCandidates.add(new OfferCandidate(requestIndex, offer.getPos(), MathUtils.squareHypot(requestPosition, offer.getPos())));
+		}
+	}
 
-		assert jobless != null : "The jobless can't be null here!";
+	/**
+	 * Hands the transport of the offered material to the given request to the jobless closest to the offer. The offer is given back if there is
+	 * no jobless or the jobless does not accept the job.
+	 * 
+	 * @return Returns true if the job has been handed to a jobless.
+	 */
+	private boolean deliver(EMaterialType materialType, ShortPoint2D offerPosition, MaterialRequestObject request) {
+		IManagerBearer jobless = joblessSupplier.isEmpty() ? null : joblessSupplier.removeJoblessCloseTo(offerPosition);
 
-		if (!jobless.deliver(materialType, offer.getPos(), request)) {
-			offersList.addOffer(offer.getPos(), materialType);
+		if (jobless == null || !jobless.deliver(materialType, offerPosition, request)) {
+			offersList.addOffer(offerPosition, materialType);
+			return false;
 		}
+		return true;
 	}
 
 	public void movePositionTo(ShortPoint2D position, MaterialsManager newManager) {
@@ -121,4 +228,27 @@ public final class MaterialsManager implements Serializable {
 			requestQueues[i].mergeInto(newManager.requestQueues[i]);
 		}
 	}
+
+	/**
+	 * A possible match of a request of a batch and an offer.
+	 */
+	private static final class OfferCandidate implements Comparable<OfferCandidate> {
+		final int requestIndex;
+		final ShortPoint2D offerPosition;
+		final int distance;
+
+		OfferCandidate(int requestIndex, ShortPoint2D offerPosition, int distance) {
+			this.requestIndex = requestIndex;
+			this.offerPosition = offerPosition;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(OfferCandidate other) {
+			if (distance != other.distance) {
+				return distance < other.distance ? -1 : 1;
+			}
+			return requestIndex - other.requestIndex;
+		}
+	}
 }
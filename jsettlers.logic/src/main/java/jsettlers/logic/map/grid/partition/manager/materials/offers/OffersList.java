@@ -103,6 +103,19 @@ public final class OffersList implements IMaterialCounts, Serializable {
 		return offer;
 	}
 
+	/**
+	 * 
+	 * @param materialType
+	 *            {@link EMaterialType} of the offer.
+	 * @param position
+	 *            The position to be used for the search.
+	 * @return Returns an offer of the given {@link EMaterialType} that's close to the given position without removing it or <br>
+	 *         null if no offer for the given {@link EMaterialType} exists.
+	 */
+	public MaterialOffer getOfferCloseTo(EMaterialType materialType, ShortPoint2D position) {
+		return offersLists[materialType.ordinal].getObjectCloseTo(position);
+	}
+
 	/**
 	 * Removes one offer of the given {@link EMaterialType} at the given position, if there are any.
 	 * 
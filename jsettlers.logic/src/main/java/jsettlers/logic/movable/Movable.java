@@ -17,6 +17,7 @@ package jsettlers.logic.movable;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -29,6 +30,7 @@ import jsettlers.common.material.ESearchType;
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.movable.EMovableAction;
 import jsettlers.common.movable.EMovableType;
+import jsettlers.common.position.ILocatable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.selectable.ESelectionType;
 import jsettlers.graphics.messages.SimpleMessage;
@@ -37,6 +39,7 @@ import jsettlers.logic.buildings.military.IBuildingOccupyableMovable;
 import jsettlers.logic.buildings.military.IOccupyableBuilding;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList;
 import jsettlers.logic.movable.interfaces.AbstractMovableGrid;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.interfaces.IAttackableMovable;
@@ -44,7 +47,7 @@ import jsettlers.logic.movable.interfaces.IDebugable;
 import jsettlers.logic.movable.strategies.FleeStrategy;
 import jsettlers.logic.movable.strategies.soldiers.SoldierStrategy;
 import jsettlers.logic.player.Player;
-import jsettlers.logic.timer.IScheduledTimerable;
+import jsettlers.logic.timer.IThinkingTimerable;
 import jsettlers.logic.timer.RescheduleTimer;
 
 /**
@@ -53,7 +56,7 @@ import jsettlers.logic.timer.RescheduleTimer;
  * @author Andreas Eberle
  *
  */
-public final class Movable implements IScheduledTimerable, IPathCalculatable, IDebugable, Serializable, IViewDistancable, IGuiMovable,
+public final class Movable implements IThinkingTimerable, IPathCalculatable, IDebugable, Serializable, IViewDistancable, IGuiMovable,
 		IAttackableMovable {
 	private static final long serialVersionUID = 2472076796407425256L;
 	private static final HashMap<Integer, Movable> movablesByID = new HashMap<Integer, Movable>();
@@ -93,6 +96,8 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 
 	private transient boolean selected = false;
 	private transient boolean soundPlayed = false;
+	private transient PreparedPath preparedPath; // prepared by think()
+	private transient ArrayList<ListedStrategy> listedStrategies; // restored by the lists when they are loaded
 
 	public Movable(AbstractMovableGrid grid, EMovableType movableType, ShortPoint2D position, Player player) {
 		this.grid = grid;
@@ -282,6 +287,57 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		return animationDuration;
 	}
 
+	@Override
+	public void think() {
+		preparedPath = null;
+		if (!grid.canPreparePaths()) {
+			return;
+		}
+
+		ShortPoint2D targetPos = getExpectedPathTarget();
+		if (targetPos != null) {
+			preparedPath = new PreparedPath(this, targetPos, grid.getPathfinderVersion(), grid.preparePathTo(this, targetPos));
+		}
+	}
+
+	/**
+	 * @return The target of the path timerEvent() will probably calculate, or null if it will probably not calculate a path.
+	 */
+	private ShortPoint2D getExpectedPathTarget() {
+		if (state == EMovableState.DEAD) {
+			return null;
+
+		} else if (requestedTargetPosition != null) { // the player wants us to move somewhere
+			return strategy.canBeControlledByPlayer() ? requestedTargetPosition : null;
+
+		} else if (state == EMovableState.PATHING && path != null && path.hasNextStep()
+				&& grid.getMovableAt(path.nextX(), path.nextY()) == null
+				&& !grid.isValidNextPathPosition(this, path.getNextPos(), path.getTargetPos())) { // the path needs to be recalculated
+			return path.getTargetPos();
+
+		} else if (state == EMovableState.DOING_NOTHING || state == EMovableState.WAITING || state == EMovableState.GOING_SINGLE_STEP
+				|| state == EMovableState.PLAYING_ACTION) { // the strategy will act
+			return strategy.getExpectedPathTarget();
+
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Calculates a path to the given target. If the path prepared in the think phase is still valid, it is used instead.
+	 */
+	private Path calculatePathTo(ShortPoint2D targetPos) {
+		PreparedPath prepared = this.preparedPath;
+		this.preparedPath = null;
+
+		if (prepared != null && prepared.isValid(this, targetPos, grid.getPathfinderVersion())) {
+			return prepared.path;
+		} else {
+			return grid.calculatePathTo(this, targetPos);
+		}
+	}
+
 	private void pathingAction() {
 		if (path == null || !path.hasNextStep() || !strategy.checkPathStepPreconditions(path.getTargetPos(), path.getStep())) {
 			// if path is finished, or canceled by strategy return from here
@@ -299,7 +355,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 			} else { // next position is invalid
 				movableAction = EMovableAction.NO_ACTION;
 				animationDuration = Constants.MOVABLE_INTERRUPT_PERIOD; // recheck shortly
-				Path newPath = grid.calculatePathTo(this, path.getTargetPos()); // try to find a new path
+				Path newPath = calculatePathTo(path.getTargetPos()); // try to find a new path
 
 				if (newPath == null) { // no path found
 					setState(EMovableState.DOING_NOTHING);
@@ -338,6 +394,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		grid.enterPosition(position, this, false);
 		this.position = position;
 		isRightstep = !isRightstep;
+		updateListedPositions();
 	}
 
 	private int doingNothingAction() {
@@ -587,7 +644,7 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 	final boolean goToPos(ShortPoint2D targetPos) {
 		assert state == EMovableState.DOING_NOTHING : "can't do goToPos() if state isn't DOING_NOTHING. curr state: " + state;
 
-		Path path = grid.calculatePathTo(this, targetPos);
+		Path path = calculatePathTo(targetPos);
 		if (path == null) {
 			return false;
 		} else {
@@ -643,6 +700,36 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		}
 
 		this.position = position;
+		updateListedPositions();
+	}
+
+	/**
+	 * Informs all {@link PositionableList}s containing a strategy of this movable about its new position. This includes strategies that have
+	 * already been replaced, because they can still be listed.
+	 */
+	private void updateListedPositions() {
+		if (listedStrategies != null) {
+			for (ListedStrategy listed : listedStrategies) {
+				listed.list.updatePosition(listed.strategy, position);
+			}
+		}
+	}
+
+	final void addedToList(PositionableList<?> list, ILocatable strategy) {
+		if (listedStrategies == null) {
+			listedStrategies = new ArrayList<ListedStrategy>(1);
+		}
+		listedStrategies.add(new ListedStrategy(list, strategy));
+	}
+
+	final void removedFromList(PositionableList<?> list, ILocatable strategy) {
+		for (int i = 0; i < listedStrategies.size(); i++) {
+			ListedStrategy listed = listedStrategies.get(i);
+			if (listed.list == list && listed.strategy == strategy) {
+				listedStrategies.remove(i);
+				return;
+			}
+		}
 	}
 
 	final void setVisible(boolean visible) {
@@ -966,4 +1053,43 @@ public final class Movable implements IScheduledTimerable, IPathCalculatable, ID
 		DEBUG_STATE
 	}
 
+
+	/**
+	 * A path calculated in the think phase and the inputs it has been calculated for.
+	 */
+	private static final class PreparedPath {
+		final ShortPoint2D start;
+		final ShortPoint2D target;
+		final boolean needsPlayersGround;
+		final byte playerId;
+		final int pathfinderVersion;
+		final Path path;
+
+		PreparedPath(Movable movable, ShortPoint2D target, int pathfinderVersion, Path path) {
+			this.start = movable.position;
+			this.target = target;
+			this.needsPlayersGround = movable.needsPlayersGround();
+			this.playerId = movable.getPlayerId();
+			this.pathfinderVersion = pathfinderVersion;
+			this.path = path;
+		}
+
+		/**
+		 * @return true if the path is the same the path finder would calculate for the given movable and target now.
+		 */
+		boolean isValid(Movable movable, ShortPoint2D target, int pathfinderVersion) {
+			return this.pathfinderVersion == pathfinderVersion && this.start.equals(movable.position) && this.target.equals(target)
+					&& this.needsPlayersGround == movable.needsPlayersGround() && this.playerId == movable.getPlayerId();
+		}
+	}
+
+	private static final class ListedStrategy {
+		final PositionableList<?> list;
+		final ILocatable strategy;
+
+		ListedStrategy(PositionableList<?> list, ILocatable strategy) {
+			this.list = list;
+			this.strategy = strategy;
+		}
+	}
 }
@@ -24,6 +24,8 @@ import jsettlers.common.movable.EDirection;
 import jsettlers.common.movable.EMovableAction;
 import jsettlers.common.movable.EMovableType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList.IListedLocatable;
 import jsettlers.logic.movable.interfaces.AbstractMovableGrid;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.strategies.BearerMovableStrategy;
@@ -43,7 +45,7 @@ import jsettlers.logic.movable.strategies.trading.DonkeyStrategy;
  * @author Andreas Eberle
  *
  */
-public abstract class MovableStrategy implements Serializable {
+public abstract class MovableStrategy implements Serializable, IListedLocatable {
 	private static final long serialVersionUID = 3135655342562634378L;
 
 	protected final Movable movable;
@@ -241,6 +243,18 @@ public abstract class MovableStrategy implements Serializable {
 	protected void informAboutAttackable(IAttackable other) {
 	}
 
+	/**
+	 * Gives the target of the path {@link #action()} will probably request with {@link #goToPos(ShortPoint2D)}, so the path can be calculated in
+	 * the parallel think phase.
+	 * <p />
+	 * NOTE: This method is called concurrently for many movables and must therefore not change any state.
+	 *
+	 * @return The expected path target or null if no path is expected.
+	 */
+	protected ShortPoint2D getExpectedPathTarget() {
+		return null;
+	}
+
 	protected boolean canBeControlledByPlayer() {
 		return false;
 	}
@@ -324,6 +338,16 @@ public abstract class MovableStrategy implements Serializable {
 	protected void pathAborted(ShortPoint2D pathTarget) {
 	}
 
+	@Override
+	public final void addedToList(PositionableList<?> list) {
+		movable.addedToList(list, this);
+	}
+
+	@Override
+	public final void removedFromList(PositionableList<?> list) {
+		movable.removedFromList(list, this);
+	}
+
 	/**
 	 * This method is called before a material is dropped during a {@link EMovableType}.DROP action.
 	 * 
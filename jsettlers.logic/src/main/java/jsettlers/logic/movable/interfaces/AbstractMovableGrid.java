@@ -57,6 +57,26 @@ public abstract class AbstractMovableGrid extends AbstractStrategyGrid {
 
 	public abstract Path calculatePathTo(IPathCalculatable pathCalculatable, ShortPoint2D targetPos);
 
+	/**
+	 * Calculates the path {@link #calculatePathTo(IPathCalculatable, ShortPoint2D)} would calculate for the current state of the grid. In contrast
+	 * to that method, this one can be called by multiple threads in parallel, as long as the grid isn't changed meanwhile.
+	 *
+	 * @param pathCalculatable The requester of the path.
+	 * @param targetPos        The target of the path.
+	 * @return The path or null if no path has been found.
+	 */
+	public abstract Path preparePathTo(IPathCalculatable pathCalculatable, ShortPoint2D targetPos);
+
+	/**
+	 * @return true if {@link #preparePathTo(IPathCalculatable, ShortPoint2D)} is supported by the used path finder.
+	 */
+	public abstract boolean canPreparePaths();
+
+	/**
+	 * @return A number that changes every time the result of {@link #calculatePathTo(IPathCalculatable, ShortPoint2D)} might change.
+	 */
+	public abstract int getPathfinderVersion();
+
 	public abstract Path searchDijkstra(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType);
 
 	public abstract Path searchInArea(IPathCalculatable pathCalculateable, short centerX, short centerY, short radius, ESearchType searchType);
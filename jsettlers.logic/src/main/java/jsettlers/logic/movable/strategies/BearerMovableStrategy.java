@@ -223,6 +223,21 @@ public final class BearerMovableStrategy extends MovableStrategy implements IMan
 		return request == null || request.isActive();
 	}
 
+	@Override
+	protected ShortPoint2D getExpectedPathTarget() {
+		switch (state) {
+		case INIT_CONVERT_WITH_TOOL_JOB:
+		case INIT_CARRY_JOB:
+			return movable.getPos().equals(offer) ? null : offer;
+		case TAKING:
+			return workerCreationRequest == null && !movable.getPos().equals(request.getPos()) ? request.getPos() : null;
+		case INIT_BECOME_SOLDIER_JOB:
+			return barrack.getDoor();
+		default:
+			return null;
+		}
+	}
+
 	@Override
 	public boolean deliver(EMaterialType materialType, ShortPoint2D offer, IMaterialRequest request) {
 		if (state == EBearerState.JOBLESS) {
@@ -61,6 +61,11 @@ public class BricklayerStrategy extends MovableStrategy implements IManageableBr
 		super.getGrid().addJobless(this);
 	}
 
+	@Override
+	protected ShortPoint2D getExpectedPathTarget() {
+		return state == EBricklayerState.INIT_JOB ? bricklayerTargetPos : null;
+	}
+
 	@Override
 	protected void action() {
 		switch (state) {
@@ -374,6 +374,14 @@ public final class BuildingWorkerStrategy extends MovableStrategy implements IMa
 		}
 	}
 
+	@Override
+	protected ShortPoint2D getExpectedPathTarget() {
+		if (isJobless() || done || currentJob.getType() != EBuildingJobType.GO_TO || !building.isNotDestroyed()) {
+			return null;
+		}
+		return getCurrentJobPos();
+	}
+
 	private void gotoAction() {
 		if (!done) {
 			this.done = true;
@@ -208,6 +208,14 @@ public abstract class SoldierStrategy extends MovableStrategy implements IBuildi
 		super.goToPos(enemy.getPos());
 	}
 
+	@Override
+	protected ShortPoint2D getExpectedPathTarget() {
+		if (state == ESoldierState.INIT_GOTO_TOWER && !movable.getPos().equals(building.getDoor())) {
+			return building.getDoor();
+		}
+		return null;
+	}
+
 	private void changeStateTo(ESoldierState state) {
 		this.state = state;
 		switch (state) {
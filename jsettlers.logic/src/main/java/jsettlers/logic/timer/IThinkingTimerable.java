@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+/**
+ * A {@link IScheduledTimerable} that can prepare its timer event in a think phase. The think phases of all timerables of a tick are executed in
+ * parallel before their timer events are executed serially.
+ */
+public interface IThinkingTimerable extends IScheduledTimerable {
+
+	/**
+	 * Prepares the next call of {@link #timerEvent()}. This method is called in parallel to the think phases of other timerables and must not
+	 * change any game state. Prepared results may only be used by {@link #timerEvent()} if they are still valid at that point, so that the game
+	 * stays the same as if the think phase had not happened.
+	 */
+	public void think();
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the think phase of the {@link IThinkingTimerable}s of a tick with a pool of worker threads.
+ */
+final class ParallelThinker {
+	private static final int CHUNK_SIZE = 8;
+
+	private final ExecutorService executor;
+	private final List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+	private final AtomicInteger nextIndex = new AtomicInteger();
+
+	private IScheduledTimerable[] timerables;
+	private int numberOfTimerables;
+
+	ParallelThinker(int numberOfThreads) {
+		this.executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+			private int threadCounter = 0;
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "ParallelThinker-" + threadCounter++);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		for (int i = 0; i < numberOfThreads; i++) {
+			workers.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					thinkChunks();
+					return null;
+				}
+			});
+		}
+	}
+
+	int getNumberOfThreads() {
+		return workers.size();
+	}
+
+	/**
+	 * Calls {@link IThinkingTimerable#think()} for all {@link IThinkingTimerable}s of the given array and waits until all of them have finished.
+	 */
+	void think(IScheduledTimerable[] timerables, int numberOfTimerables) {
+		this.timerables = timerables;
+		this.numberOfTimerables = numberOfTimerables;
+		this.nextIndex.set(0);
+
+		try {
+			executor.invokeAll(workers);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		this.timerables = null;
+	}
+
+	private void thinkChunks() {
+		int start;
+		while ((start = nextIndex.getAndAdd(CHUNK_SIZE)) < numberOfTimerables) {
+			int end = Math.min(start + CHUNK_SIZE, numberOfTimerables);
+			for (int i = start; i < end; i++) {
+				IScheduledTimerable timerable = timerables[i];
+				if (timerable instanceof IThinkingTimerable) {
+					try {
+						((IThinkingTimerable) timerable).think();
+					} catch (Throwable t) { // the timer event doesn't depend on the think phase, so we can continue
+						System.err.println("ParallelThinker catched: ");
+						t.printStackTrace();
+					}
+				}
+			}
+		}
+	}
+
+	void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -18,29 +18,114 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import jsettlers.common.map.MapLoadException;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
+/**
+ * Hierarchical timing wheel that calls the scheduled {@link IScheduledTimerable}s every {@link #TIME_SLICE} ms.
+ * <p>
+ * Level 0 has a slot for each of the next 2048 ticks (51.2 seconds), which covers nearly all delays used in the game. Every higher level has 64
+ * slots, each covering all slots of the level below. When the level 0 wheel wraps around, the next slot of the higher levels is cascaded down.
+ * Every slot stores its timerables in arrays that are reused, so no objects are allocated once the arrays have grown to the needed size.
+ * <p>
+ * If {@link MatchConstants#PARALLEL_THINKING_THREADS} is set, the {@link IThinkingTimerable}s of a tick first prepare their timer events in
+ * parallel. Afterwards, the timer events are executed serially.
+ * <p>
+ * The timerables of a tick are executed in the order they have been scheduled. The lockstep synchronization depends on this. To keep this
+ * order, the higher levels store the sequence number of every scheduling. The level 0 slots don't need it: Timerables cascaded into a level 0
+ * slot have always been scheduled before the ones directly scheduled into it, because their delay has been longer.
+ */
 public final class RescheduleTimer implements INetworkTimerable, Serializable {
-	private static final long serialVersionUID = -1962430988827211391L;
+	private static final long serialVersionUID = -4384021766234419263L;
 
-	private static final int FUTURE_TIME = 32000;
 	private static final short TIME_SLICE = 25; // ms
-	private static final int TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
 
-	private static RescheduleTimer uniIns;
+	private static final int LEVEL_0_BITS = 11;
+	private static final int LEVEL_N_BITS = 6;
+	private static final int LEVELS = 5; // 11 + 4 * 6 = 35 bits of ticks => enough for every positive int delay
+	private static final int LEVEL_0_SLOTS = 1 << LEVEL_0_BITS;
+	private static final int LEVEL_N_SLOTS = 1 << LEVEL_N_BITS;
+	private static final int NUMBER_OF_SLOTS = LEVEL_0_SLOTS + (LEVELS - 1) * LEVEL_N_SLOTS;
+	private static final int CASCADE_SLOT = NUMBER_OF_SLOTS; // collects the timerables cascaded into level 0
 
-	@SuppressWarnings("unchecked")
-	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
-	private int currTimeSlot = 0;
+	private static final int INITIAL_SLOT_CAPACITY = 16;
+	private static final int MIN_TIMERABLES_FOR_PARALLEL_THINKING = 32;
+
+	private static volatile RescheduleTimer uniIns;
+
+	// the slots are saved by writeObject(), because their arrays are mostly unused capacity
+	private transient IScheduledTimerable[][] slotTimerables;
+	private transient long[][] slotDueTicks; // only for higher level slots
+	private transient long[][] slotSequences; // only for higher level slots
+	private transient int[] slotSizes;
+
+	private long currentTick = 0;
+	private long nextSequence = 0;
+	private int size = 0;
+
+	// temporary buffers used while cascading
+	private transient int[] cascadeStarts;
+	private transient int[] cascadeTargets;
+	private transient IScheduledTimerable[] mergeTimerables;
+	private transient long[] mergeDueTicks;
+	private transient long[] mergeSequences;
+
+	private transient ParallelThinker thinker; // null if the parallel think phase is disabled
 
 	protected RescheduleTimer() {
-		for (int i = 0; i < TIME_SLOTS; i++) {
-			timerables[i] = new ArrayList<IScheduledTimerable>();
+		initSlots();
+	}
+
+	private void initSlots() {
+		slotTimerables = new IScheduledTimerable[NUMBER_OF_SLOTS + 1][];
+		slotDueTicks = new long[NUMBER_OF_SLOTS + 1][];
+		slotSequences = new long[NUMBER_OF_SLOTS + 1][];
+		slotSizes = new int[NUMBER_OF_SLOTS + 1];
+		cascadeStarts = new int[NUMBER_OF_SLOTS];
+		cascadeTargets = new int[NUMBER_OF_SLOTS];
+		Arrays.fill(cascadeStarts, -1);
+	}
+
+	/**
+	 * Writes the size of every slot followed by its timerables. The due ticks and sequence numbers are only written for the higher levels.
+	 */
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		oos.defaultWriteObject();
+		for (int slot = 0; slot <= NUMBER_OF_SLOTS; slot++) {
+			int slotSize = slotSizes[slot];
+			oos.writeInt(slotSize);
+			for (int i = 0; i < slotSize; i++) {
+				oos.writeObject(slotTimerables[slot][i]);
+				if (slot >= LEVEL_0_SLOTS) {
+					oos.writeLong(slotDueTicks[slot][i]);
+					oos.writeLong(slotSequences[slot][i]);
+				}
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ois.defaultReadObject();
+		initSlots();
+		for (int slot = 0; slot <= NUMBER_OF_SLOTS; slot++) {
+			int slotSize = ois.readInt();
+			if (slotSize == 0) {
+				continue;
+			}
+
+			IScheduledTimerable[] timerables = ensureCapacity(slot, slotSize);
+			for (int i = 0; i < slotSize; i++) {
+				timerables[i] = (IScheduledTimerable) ois.readObject();
+				if (slot >= LEVEL_0_SLOTS) {
+					slotDueTicks[slot][i] = ois.readLong();
+					slotSequences[slot][i] = ois.readLong();
+				}
+			}
+			slotSizes[slot] = slotSize;
 		}
 	}
 
@@ -49,6 +134,9 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 			if (MatchConstants.clock() != null) {
 				MatchConstants.clock().remove(uniIns);
 			}
+			if (uniIns.thinker != null) {
+				uniIns.thinker.shutdown();
+			}
 			uniIns = null;
 			try {
 				Thread.sleep(100); // stopping takes some time
@@ -75,12 +163,29 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 		int delaySlots = delay / TIME_SLICE;
 		delaySlots = delaySlots > 0 ? delaySlots : 1; // ensure at least one slot delay
 
-		assert delaySlots < TIME_SLOTS : "SCHEDULED TO FAR IN THE FUTURE! " + delay + "ms";
+		long dueTick = currentTick + delaySlots;
+		if (delaySlots < LEVEL_0_SLOTS) {
+			int slot = (int) (dueTick & (LEVEL_0_SLOTS - 1));
+			int slotSize = slotSizes[slot];
+			IScheduledTimerable[] timerables = slotTimerables[slot];
+			if (timerables == null || slotSize == timerables.length) {
+				timerables = ensureCapacity(slot, slotSize + 1);
+			}
+			timerables[slotSize] = t;
+			slotSizes[slot] = slotSize + 1;
+		} else {
+			append(getHigherLevelSlot(delaySlots, dueTick), t, dueTick, nextSequence);
+		}
+		nextSequence++;
+		size++;
+	}
 
-		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+	static RescheduleTimer get() {
+		RescheduleTimer instance = uniIns;
+		return instance != null ? instance : createInstance();
 	}
 
-	private static synchronized RescheduleTimer get() {
+	private static synchronized RescheduleTimer createInstance() {
 		if (uniIns == null) {
 			uniIns = new RescheduleTimer();
 		}
@@ -89,13 +194,27 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 	@Override
 	public void timerEvent() {
-		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+		if ((currentTick & (LEVEL_0_SLOTS - 1)) == 0) {
+			cascade();
+		}
+
+		int slot = (int) (currentTick & (LEVEL_0_SLOTS - 1));
+		IScheduledTimerable[] queue = slotTimerables[slot];
+		int queueSize = slotSizes[slot];
 
-		for (IScheduledTimerable curr : queue) {
+		if (queueSize >= MIN_TIMERABLES_FOR_PARALLEL_THINKING && updateThinker()) {
+			thinker.think(queue, queueSize);
+		}
+
+		for (int i = 0; i < queueSize; i++) { // timerables can't be rescheduled into the current slot
 			if (uniIns != this) { // fast stop when stopAndClear() is called.
 				return;
 			}
 
+			IScheduledTimerable curr = queue[i];
+			queue[i] = null;
+			size--;
+
 			try {
 				int delay = curr.timerEvent();
 				addTimerable(curr, delay);
@@ -111,8 +230,228 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 			}
 		}
 
-		queue.clear();
-		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+		slotSizes[slot] = 0;
+		currentTick++;
+	}
+
+	/**
+	 * Creates, replaces or removes the {@link ParallelThinker} according to {@link MatchConstants#PARALLEL_THINKING_THREADS}.
+	 * 
+	 * @return true if the parallel think phase is enabled.
+	 */
+	private boolean updateThinker() {
+		int threads = MatchConstants.PARALLEL_THINKING_THREADS;
+		if (thinker != null && thinker.getNumberOfThreads() != threads) {
+			thinker.shutdown();
+			thinker = null;
+		}
+		if (thinker == null && threads > 0) {
+			thinker = new ParallelThinker(threads);
+		}
+		return thinker != null;
+	}
+
+	/**
+	 * @return The number of currently scheduled timerables.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Moves the timerables of the higher level slots that start with the current tick to the lower levels.
+	 */
+	private void cascade() {
+		int highestLevel = 1;
+		while (highestLevel < LEVELS - 1 && ((currentTick >>> getLevelShift(highestLevel)) & (LEVEL_N_SLOTS - 1)) == 0) {
+			highestLevel++;
+		}
+
+		for (int level = highestLevel; level >= 1; level--) {
+			int slot = getSlot(level, currentTick);
+			IScheduledTimerable[] timerables = slotTimerables[slot];
+			long[] dueTicks = slotDueTicks[slot];
+			long[] sequences = slotSequences[slot];
+			int slotSize = slotSizes[slot];
+
+			int numberOfTargets = 0;
+			int cascadedToLevel0Start = slotSizes[CASCADE_SLOT];
+			for (int i = 0; i < slotSize; i++) {
+				long delta = dueTicks[i] - currentTick;
+				int targetSlot = delta < LEVEL_0_SLOTS ? CASCADE_SLOT : getHigherLevelSlot(delta, dueTicks[i]);
+				if (targetSlot != CASCADE_SLOT && cascadeStarts[targetSlot] < 0) {
+					cascadeStarts[targetSlot] = slotSizes[targetSlot];
+					cascadeTargets[numberOfTargets++] = targetSlot;
+				}
+				append(targetSlot, timerables[i], dueTicks[i], sequences[i]);
+				timerables[i] = null;
+			}
+			slotSizes[slot] = 0;
+
+			// the cascaded timerables might have been scheduled before the ones already in the target slot
+			mergeIfUnsorted(CASCADE_SLOT, cascadedToLevel0Start);
+			for (int i = 0; i < numberOfTargets; i++) {
+				int targetSlot = cascadeTargets[i];
+				mergeIfUnsorted(targetSlot, cascadeStarts[targetSlot]);
+				cascadeStarts[targetSlot] = -1;
+			}
+		}
+
+		distributeCascadedToLevel0();
+	}
+
+	/**
+	 * Moves the timerables of the {@link #CASCADE_SLOT} in front of the timerables directly scheduled into their level 0 slots.
+	 */
+	private void distributeCascadedToLevel0() {
+		IScheduledTimerable[] cascaded = slotTimerables[CASCADE_SLOT];
+		long[] dueTicks = slotDueTicks[CASCADE_SLOT];
+		int cascadedSize = slotSizes[CASCADE_SLOT];
+		if (cascadedSize == 0) {
+			return;
+		}
+
+		int[] counts = cascadeStarts; // all level 0 entries are unused (-1) at this point
+		int numberOfTargets = 0;
+		for (int i = 0; i < cascadedSize; i++) {
+			int targetSlot = (int) (dueTicks[i] & (LEVEL_0_SLOTS - 1));
+			if (counts[targetSlot] < 0) {
+				counts[targetSlot] = 0;
+				cascadeTargets[numberOfTargets++] = targetSlot;
+			}
+			counts[targetSlot]++;
+		}
+
+		for (int i = 0; i < numberOfTargets; i++) {
+			int targetSlot = cascadeTargets[i];
+			int count = counts[targetSlot];
+			int slotSize = slotSizes[targetSlot];
+			IScheduledTimerable[] timerables = ensureCapacity(targetSlot, slotSize + count);
+			System.arraycopy(timerables, 0, timerables, count, slotSize);
+			slotSizes[targetSlot] = slotSize + count;
+			counts[targetSlot] = 0; // now used as insert position
+		}
+
+		for (int i = 0; i < cascadedSize; i++) {
+			int targetSlot = (int) (dueTicks[i] & (LEVEL_0_SLOTS - 1));
+			slotTimerables[targetSlot][counts[targetSlot]++] = cascaded[i];
+			cascaded[i] = null;
+		}
+
+		for (int i = 0; i < numberOfTargets; i++) {
+			counts[cascadeTargets[i]] = -1;
+		}
+		slotSizes[CASCADE_SLOT] = 0;
+	}
+
+	private void mergeIfUnsorted(int slot, int start) {
+		long[] sequences = slotSequences[slot];
+		if (start > 0 && start < slotSizes[slot] && sequences[start - 1] > sequences[start]) {
+			mergeRuns(slot, start);
+		}
+	}
+
+	/**
+	 * Merges the two runs [0, start) and [start, size) of the given higher level slot, which are both sorted by their sequence numbers.
+	 */
+	private void mergeRuns(int slot, int start) {
+		IScheduledTimerable[] timerables = slotTimerables[slot];
+		long[] dueTicks = slotDueTicks[slot];
+		long[] sequences = slotSequences[slot];
+		int slotSize = slotSizes[slot];
+
+		if (mergeTimerables == null || mergeTimerables.length < start) {
+			int capacity = Math.max(start, INITIAL_SLOT_CAPACITY);
+			mergeTimerables = new IScheduledTimerable[capacity];
+			mergeDueTicks = new long[capacity];
+			mergeSequences = new long[capacity];
+		}
+		System.arraycopy(timerables, 0, mergeTimerables, 0, start);
+		System.arraycopy(dueTicks, 0, mergeDueTicks, 0, start);
+		System.arraycopy(sequences, 0, mergeSequences, 0, start);
+
+		int a = 0;
+		int b = start;
+		int target = 0;
+		while (a < start) {
+			if (b < slotSize && sequences[b] < mergeSequences[a]) {
+				timerables[target] = timerables[b];
+				dueTicks[target] = dueTicks[b];
+				sequences[target] = sequences[b];
+				b++;
+			} else {
+				timerables[target] = mergeTimerables[a];
+				dueTicks[target] = mergeDueTicks[a];
+				sequences[target] = mergeSequences[a];
+				mergeTimerables[a] = null;
+				a++;
+			}
+			target++;
+		}
+		// the remaining elements of the second run already are at their positions
+	}
+
+	/**
+	 * Appends the given timerable to a higher level slot or the {@link #CASCADE_SLOT}.
+	 */
+	private void append(int slot, IScheduledTimerable t, long dueTick, long sequence) {
+		int slotSize = slotSizes[slot];
+		IScheduledTimerable[] timerables = ensureCapacity(slot, slotSize + 1);
+		timerables[slotSize] = t;
+		slotDueTicks[slot][slotSize] = dueTick;
+		slotSequences[slot][slotSize] = sequence;
+		slotSizes[slot] = slotSize + 1;
+	}
+
+	private IScheduledTimerable[] ensureCapacity(int slot, int capacity) {
+		IScheduledTimerable[] timerables = slotTimerables[slot];
+		if (timerables != null && timerables.length >= capacity) {
+			return timerables;
+		}
+
+		int newCapacity = Math.max(INITIAL_SLOT_CAPACITY, timerables == null ? 0 : timerables.length * 2);
+		while (newCapacity < capacity) {
+			newCapacity *= 2;
+		}
+
+		boolean isLevel0 = slot < LEVEL_0_SLOTS;
+		if (timerables == null) {
+			slotTimerables[slot] = new IScheduledTimerable[newCapacity];
+			if (!isLevel0) {
+				slotDueTicks[slot] = new long[newCapacity];
+				slotSequences[slot] = new long[newCapacity];
+			}
+		} else {
+			slotTimerables[slot] = Arrays.copyOf(timerables, newCapacity);
+			if (!isLevel0) {
+				slotDueTicks[slot] = Arrays.copyOf(slotDueTicks[slot], newCapacity);
+				slotSequences[slot] = Arrays.copyOf(slotSequences[slot], newCapacity);
+			}
+		}
+		return slotTimerables[slot];
+	}
+
+	/**
+	 * @return The slot of the higher levels the given tick is stored in. The delta to the current tick must be at least the size of level 0.
+	 */
+	private static int getHigherLevelSlot(long delta, long dueTick) {
+		int level = 1;
+		while (level < LEVELS - 1 && delta >= (1L << getLevelShift(level + 1))) {
+			level++;
+		}
+		return getSlot(level, dueTick);
+	}
+
+	private static int getSlot(int level, long tick) {
+		return getFirstSlotOfLevel(level) + (int) ((tick >>> getLevelShift(level)) & (LEVEL_N_SLOTS - 1));
+	}
+
+	private static int getFirstSlotOfLevel(int level) {
+		return level == 0 ? 0 : LEVEL_0_SLOTS + (level - 1) * LEVEL_N_SLOTS;
+	}
+
+	private static int getLevelShift(int level) {
+		return level == 0 ? 0 : LEVEL_0_BITS + (level - 1) * LEVEL_N_BITS;
 	}
 
 	public static void loadFrom(ObjectInputStream ois) throws MapLoadException {
@@ -223,6 +223,9 @@ public class JSettlersGame {
 				gameTimeProvider = new GameTimeProvider(MatchConstants.clock());
 
 				mainGrid.initForPlayer(playerId, playerState.getFogOfWar());
+				if (MatchConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR) { // spectators and replays need the view of every player
+					mainGrid.initMultiPlayerFogOfWar();
+				}
 				mainGrid.startThreads();
 
 				if (imagePreloader != null)
@@ -245,7 +248,7 @@ public class JSettlersGame {
 				// ConstructionMarksThread has it's mapArea variable initialized via the EActionType.SCREEN_CHANGE event.
 
 				aiExecutor = new AiExecutor(playerSettings, mainGrid, networkConnector.getTaskScheduler());
-				networkConnector.getGameClock().schedule(aiExecutor, (short) 10000);
+				networkConnector.getGameClock().schedule(aiExecutor, aiExecutor.getTimerPeriod());
 
 				MatchConstants.clock().startExecution(); // WARNING: GAME CLOCK IS STARTED!
 				// NO CONFIGURATION AFTER THIS POINT! =================================
@@ -263,6 +266,9 @@ public class JSettlersGame {
 				}
 
 				networkConnector.shutdown();
+				if (aiExecutor != null) {
+					aiExecutor.shutdown();
+				}
 				mainGrid.stopThreads();
 				connector.shutdown();
 				guiInterface.stop();
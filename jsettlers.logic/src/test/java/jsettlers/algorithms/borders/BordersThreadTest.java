@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.borders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jsettlers.common.movable.EDirection;
+
+public class BordersThreadTest {
+	private static final short WIDTH = 70;
+	private static final short HEIGHT = 50;
+
+	private final TestGrid grid = new TestGrid();
+	private final BordersThread bordersThread = new BordersThread(grid, WIDTH, HEIGHT);
+
+	@Test
+	public void testPositionsAreCheckedOncePerBatch() {
+		for (int i = 0; i < 1000; i++) {
+			bordersThread.checkPosition(20, 30);
+			bordersThread.checkPosition(40, 10);
+		}
+		assertEquals(2, bordersThread.getQueueDepth());
+
+		assertEquals(2, bordersThread.processBatch());
+		assertEquals(0, bordersThread.getQueueDepth());
+		assertEquals(1, grid.setCalls[20 + 30 * WIDTH]);
+		assertEquals(0, bordersThread.processBatch());
+		assertEquals(1, bordersThread.getProcessedBatches());
+		assertEquals(2, bordersThread.getProcessedPositions());
+	}
+
+	@Test
+	public void testCheckAreaCalculatesBorders() {
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				grid.players[x + y * WIDTH] = (byte) (x < 30 ? 0 : (y < 20 ? 1 : -1));
+			}
+		}
+		for (int y = 10; y < 15; y++) {
+			grid.blocked[5 + y * WIDTH] = true;
+		}
+
+		bordersThread.checkArea(0, 0, WIDTH, HEIGHT);
+		assertEquals((WIDTH / 2) * (HEIGHT / 2), bordersThread.getQueueDepth());
+		bordersThread.processBatch();
+
+		for (short y = 0; y < HEIGHT; y++) {
+			for (short x = 0; x < WIDTH; x++) {
+				assertEquals("x " + x + " y " + y, isBorder(x, y), grid.borders[x + y * WIDTH]);
+			}
+		}
+	}
+
+	@Test
+	public void testCheckAreaKeepsSamplingParityAtMapBorder() {
+		// only the odd positions (1|1), (3|1), (1|3) and (3|3) are in the sampling grid of the area starting at (-3|-1)
+		bordersThread.checkArea(-3, -1, (short) 8, (short) 6);
+		assertEquals(2 * 2, bordersThread.getQueueDepth());
+
+		bordersThread.checkArea(1, 1, (short) 4, (short) 4);
+		assertEquals(2 * 2, bordersThread.getQueueDepth());
+	}
+
+	@Test
+	public void testThreadDrainsPositions() throws InterruptedException {
+		bordersThread.start();
+		try {
+			bordersThread.checkArea(0, 0, WIDTH, HEIGHT);
+
+			for (int i = 0; i < 500 && bordersThread.getProcessedPositions() < (WIDTH / 2) * (HEIGHT / 2); i++) {
+				Thread.sleep(10);
+			}
+			assertEquals((WIDTH / 2) * (HEIGHT / 2), bordersThread.getProcessedPositions());
+			assertEquals(0, bordersThread.getQueueDepth());
+			assertTrue(bordersThread.getLastBatchLatencyNanos() > 0);
+			assertTrue(bordersThread.getMaxBatchLatencyNanos() >= bordersThread.getLastBatchLatencyNanos());
+		} finally {
+			bordersThread.cancel();
+		}
+	}
+
+	private boolean isBorder(short x, short y) {
+		byte player = grid.getPlayerIdAt(x, y);
+		if (player < 0 || grid.getBlockedPartition(x, y) <= 0) {
+			return false;
+		}
+		for (EDirection direction : EDirection.VALUES) {
+			short neighborX = direction.getNextTileX(x);
+			short neighborY = direction.getNextTileY(y);
+			if (grid.isInBounds(neighborX, neighborY) && grid.getBlockedPartition(neighborX, neighborY) > 0
+					&& grid.getPlayerIdAt(neighborX, neighborY) != player) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class TestGrid implements IBordersThreadGrid {
+		final byte[] players = new byte[WIDTH * HEIGHT];
+		final boolean[] blocked = new boolean[WIDTH * HEIGHT];
+		final boolean[] borders = new boolean[WIDTH * HEIGHT];
+		final int[] setCalls = new int[WIDTH * HEIGHT];
+
+		@Override
+		public byte getPlayerIdAt(short x, short y) {
+			return players[x + y * WIDTH];
+		}
+
+		@Override
+		public void setBorderAt(short x, short y, boolean isBorder) {
+			borders[x + y * WIDTH] = isBorder;
+			setCalls[x + y * WIDTH]++;
+		}
+
+		@Override
+		public boolean isInBounds(short x, short y) {
+			return x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT;
+		}
+
+		@Override
+		public short getBlockedPartition(short x, short y) {
+			return (short) (blocked[x + y * WIDTH] ? 0 : 1);
+		}
+	}
+}
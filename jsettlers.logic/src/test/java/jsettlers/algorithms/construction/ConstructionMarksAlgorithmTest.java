@@ -206,5 +206,10 @@ public class ConstructionMarksAlgorithmTest {
 			throw new UnsupportedOperationException("not mocked");
 		}
 
+		@Override
+		public byte getHeightAt(int x, int y) {
+			return 0;
+		}
+
 	}
 }
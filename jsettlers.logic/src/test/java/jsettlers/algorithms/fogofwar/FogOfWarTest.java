@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.fogofwar.TestFogOfWarGrid.TestViewSource;
+import jsettlers.algorithms.fogofwar.ViewCoverage.ICoverageChangedListener;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.position.ShortPoint2D;
+
+public class FogOfWarTest {
+	private static final short WIDTH = 150;
+	private static final short HEIGHT = 120;
+	private static final byte PLAYER = 1;
+
+	private final TestFogOfWarGrid grid = new TestFogOfWarGrid();
+	private final FogOfWar fogOfWar = new FogOfWar(WIDTH, HEIGHT, PLAYER);
+
+	@Test
+	public void testSpansMatchCircle() {
+		for (float radius = 1; radius < FogOfWar.MAX_VIEWDISTANCE; radius += 2.5f) {
+			ViewCircleSpans spans = new ViewCircleSpans(radius);
+			for (int dy = -spans.rowRadius - 2; dy <= spans.rowRadius + 2; dy++) {
+				for (int dx = -2 * spans.rowRadius - 2; dx <= 2 * spans.rowRadius + 2; dx++) {
+					boolean inCircle = MapCircle.getSquaredDistance(dx, dy) < radius * radius;
+					boolean inSpans = spans.getMinDx(dy) <= dx && dx <= spans.getMaxDx(dy);
+					assertEquals("radius " + radius + " dx " + dx + " dy " + dy, inCircle, inSpans);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEnteringSourceIsVisible() {
+		grid.addMovable(50, 50, 10, PLAYER);
+		fogOfWar.updateSight(grid);
+
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(50, 50));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(55, 50));
+		assertEquals(0, fogOfWar.getVisibleStatus(80, 50));
+		assertEquals(0, fogOfWar.getVisibleStatus(130, 100));
+	}
+
+	@Test
+	public void testSourcesOfOtherPlayersAreIgnored() {
+		grid.addMovable(50, 50, 10, (byte) 2);
+		fogOfWar.updateSight(grid);
+
+		assertEquals(0, fogOfWar.getVisibleStatus(50, 50));
+	}
+
+	@Test
+	public void testLeavingSourceIsDimmedDownToExplored() {
+		TestViewSource source = grid.addMovable(50, 50, 10, PLAYER);
+		fogOfWar.updateSight(grid);
+		grid.movables.remove(source);
+
+		fogOfWar.updateSight(grid);
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE - FogOfWar.DIM_DOWN_SPEED, fogOfWar.getVisibleStatus(50, 50));
+
+		for (int i = 0; i < 10; i++) {
+			fogOfWar.updateSight(grid);
+		}
+		assertEquals(CommonConstants.FOG_OF_WAR_EXPLORED, fogOfWar.getVisibleStatus(50, 50));
+		assertEquals(0, fogOfWar.updater.getNumberOfActivePositions());
+		assertEquals(0, fogOfWar.updater.getNumberOfSources());
+	}
+
+	@Test
+	public void testOnlyChangedPositionsStayActive() {
+		grid.addMovable(50, 50, 10, PLAYER);
+		grid.addBuilding(100, 60, 15, PLAYER);
+		fogOfWar.updateSight(grid);
+		fogOfWar.updateSight(grid);
+
+		assertEquals(0, fogOfWar.updater.getNumberOfActivePositions());
+	}
+
+	@Test
+	public void testIncrementalUpdatesMatchFullRecalculation() {
+		Random random = new Random(4711);
+		for (int i = 0; i < 30; i++) {
+			grid.addMovable(random.nextInt(WIDTH), random.nextInt(HEIGHT), (short) (3 + random.nextInt(20)), (byte) random.nextInt(3));
+		}
+		for (int i = 0; i < 5; i++) {
+			grid.addBuilding(random.nextInt(WIDTH), random.nextInt(HEIGHT), (short) (10 + random.nextInt(50)), PLAYER);
+		}
+
+		byte[] expected = new byte[WIDTH * HEIGHT];
+		for (int pass = 0; pass < 40; pass++) {
+			for (TestViewSource source : grid.movables) {
+				if (random.nextInt(4) == 0) {
+					source.pos = new ShortPoint2D(source.pos.x + random.nextInt(5) - 2, source.pos.y + random.nextInt(5) - 2);
+				}
+			}
+			if (random.nextInt(5) == 0) {
+				grid.movables.poll();
+			}
+			if (random.nextInt(5) == 0) {
+				grid.addMovable(random.nextInt(WIDTH), random.nextInt(HEIGHT), (short) (3 + random.nextInt(20)), PLAYER);
+			}
+			if (random.nextInt(10) == 0) {
+				grid.movables.peek().viewDistance++;
+			}
+
+			fogOfWar.updateSight(grid);
+			recalculateSight(expected);
+
+			for (int y = 0; y < HEIGHT; y++) {
+				for (int x = 0; x < WIDTH; x++) {
+					assertEquals("pass " + pass + " x " + x + " y " + y, expected[y * WIDTH + x], fogOfWar.getVisibleStatus(x, y));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSightAtTheBorderOfTheMap() {
+		TestViewSource source = grid.addMovable(0, 0, 30, PLAYER);
+		fogOfWar.updateSight(grid);
+		source.pos = new ShortPoint2D(WIDTH - 1, HEIGHT - 1);
+		fogOfWar.updateSight(grid);
+
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, fogOfWar.getVisibleStatus(WIDTH - 1, HEIGHT - 1));
+		assertTrue(fogOfWar.getVisibleStatus(0, 0) < CommonConstants.FOG_OF_WAR_VISIBLE);
+	}
+
+	@Test
+	public void testSightFallsOffLinearlyAtTheRim() {
+		final int x = WIDTH / 2;
+		final int y = HEIGHT / 2;
+		for (int viewDistance = 0; viewDistance < FogOfWar.MAX_VIEWDISTANCE; viewDistance += 7) {
+			ViewCoverage coverage = new ViewCoverage(WIDTH, HEIGHT, 1, new ICoverageChangedListener() {
+				@Override
+				public void coverageChanged(int idx) {
+				}
+			});
+			coverage.addCircle(x, y, viewDistance, 0);
+
+			// the falloff of the full rebuild: visible inside the radius, then linearly darker over PADDING positions
+			float radius = Math.min(viewDistance + FogOfWar.PADDING, FogOfWar.MAX_VIEWDISTANCE - 1) - FogOfWar.PADDING / 2;
+			for (int dy = -y; dy < HEIGHT - y; dy++) {
+				for (int dx = -x; dx < WIDTH - x; dx++) {
+					double distance = Math.sqrt(MapCircle.getSquaredDistance(dx, dy));
+					int expected;
+					if (distance < radius) {
+						expected = CommonConstants.FOG_OF_WAR_VISIBLE;
+					} else {
+						expected = (int) Math.max(0, CommonConstants.FOG_OF_WAR_VISIBLE - (distance - radius) / FogOfWar.PADDING
+								* CommonConstants.FOG_OF_WAR_VISIBLE);
+					}
+					int sight = coverage.getSight((y + dy) * WIDTH + x + dx, 0);
+					assertTrue("view distance " + viewDistance + " dx " + dx + " dy " + dy + " sight " + sight + " expected " + expected,
+							Math.abs(sight - expected) <= CommonConstants.FOG_OF_WAR_VISIBLE / FogOfWar.PADDING / 2 + 1);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMovedCirclesMatchAddedCircles() {
+		final int players = 2;
+		Random random = new Random(42);
+		ViewCoverage coverage = new ViewCoverage(WIDTH, HEIGHT, players, new ICoverageChangedListener() {
+			@Override
+			public void coverageChanged(int idx) {
+			}
+		});
+		int[][] circles = new int[60][];
+		for (int i = 0; i < circles.length; i++) { // groups of circles that overlap with the same bands
+			int group = i / 30;
+			circles[i] = new int[] { 40 + 60 * group + random.nextInt(5), 60 + random.nextInt(5), 3 + random.nextInt(10), random.nextInt(players) };
+			coverage.addCircle(circles[i][0], circles[i][1], circles[i][2], circles[i][3]);
+		}
+
+		for (int step = 0; step < 30; step++) {
+			for (int[] circle : circles) {
+				if (random.nextBoolean()) {
+					int newX = circle[0] + random.nextInt(5) - 2;
+					int newY = circle[1] + random.nextInt(5) - 2;
+					coverage.moveCircle(circle[0], circle[1], newX, newY, circle[2], circle[3]);
+					circle[0] = newX;
+					circle[1] = newY;
+				}
+			}
+			if (step % 10 == 9) {
+				int[] circle = circles[random.nextInt(circles.length)];
+				coverage.removeCircle(circle[0], circle[1], circle[2], circle[3]);
+				circle[2]++;
+				coverage.addCircle(circle[0], circle[1], circle[2], circle[3]);
+			}
+
+			ViewCoverage expected = new ViewCoverage(WIDTH, HEIGHT, players, new ICoverageChangedListener() {
+				@Override
+				public void coverageChanged(int idx) {
+				}
+			});
+			for (int[] circle : circles) {
+				expected.addCircle(circle[0], circle[1], circle[2], circle[3]);
+			}
+			for (int idx = 0; idx < WIDTH * HEIGHT; idx++) {
+				for (int player = 0; player < players; player++) {
+					assertEquals("step " + step + " idx " + idx + " player " + player, expected.getSight(idx, player), coverage.getSight(idx, player));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Dims down the whole map and draws all view circles from scratch, like the fog of war did before it became incremental.
+	 */
+	private void recalculateSight(byte[] sight) {
+		ViewCoverage coverage = new ViewCoverage(WIDTH, HEIGHT, 1, new ICoverageChangedListener() {
+			@Override
+			public void coverageChanged(int idx) {
+			}
+		});
+		for (TestViewSource source : grid.buildings) {
+			if (source.getPlayerId() == PLAYER) {
+				coverage.addCircle(source.pos.x, source.pos.y, source.viewDistance, 0);
+			}
+		}
+		for (TestViewSource source : grid.movables) {
+			if (source.getPlayerId() == PLAYER) {
+				coverage.addCircle(source.pos.x, source.pos.y, source.viewDistance, 0);
+			}
+		}
+
+		for (int idx = 0; idx < sight.length; idx++) {
+			if (sight[idx] >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+				sight[idx] = (byte) Math.max(CommonConstants.FOG_OF_WAR_EXPLORED, sight[idx] - FogOfWar.DIM_DOWN_SPEED);
+			}
+			sight[idx] = (byte) Math.max(sight[idx], coverage.getSight(idx, 0));
+		}
+	}
+}
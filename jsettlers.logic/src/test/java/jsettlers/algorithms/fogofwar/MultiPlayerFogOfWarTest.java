@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.fogofwar.TestFogOfWarGrid.TestViewSource;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.position.ShortPoint2D;
+
+public class MultiPlayerFogOfWarTest {
+	private static final short WIDTH = 130;
+	private static final short HEIGHT = 110;
+	private static final byte PLAYERS = 4;
+
+	private final TestFogOfWarGrid grid = new TestFogOfWarGrid();
+	private final MultiPlayerFogOfWar multiPlayerFogOfWar = new MultiPlayerFogOfWar(WIDTH, HEIGHT, PLAYERS);
+
+	@Test
+	public void testPlayersOnlySeeTheirOwnSources() {
+		grid.addMovable(30, 30, 10, (byte) 0);
+		grid.addBuilding(100, 80, 10, (byte) 3);
+		multiPlayerFogOfWar.updateSight(grid);
+
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, multiPlayerFogOfWar.getVisibleStatus((byte) 0, 30, 30));
+		assertEquals(0, multiPlayerFogOfWar.getVisibleStatus((byte) 0, 100, 80));
+		assertEquals(0, multiPlayerFogOfWar.getVisibleStatus((byte) 1, 30, 30));
+		assertEquals(0, multiPlayerFogOfWar.getVisibleStatus((byte) 3, 30, 30));
+		assertEquals(CommonConstants.FOG_OF_WAR_VISIBLE, multiPlayerFogOfWar.getVisibleStatus((byte) 3, 100, 80));
+	}
+
+	@Test
+	public void testVisiblePlayers() {
+		grid.addMovable(30, 30, 10, (byte) 0);
+		grid.addMovable(35, 30, 10, (byte) 2);
+		multiPlayerFogOfWar.updateSight(grid);
+
+		assertEquals(0x5, multiPlayerFogOfWar.getVisiblePlayers(32, 30));
+		assertEquals(0x4, multiPlayerFogOfWar.getVisiblePlayers(45, 30));
+		assertEquals(0, multiPlayerFogOfWar.getVisiblePlayers(100, 100));
+	}
+
+	@Test
+	public void testLeavingSourceIsNoLongerVisible() {
+		TestViewSource source = grid.addMovable(30, 30, 10, (byte) 1);
+		multiPlayerFogOfWar.updateSight(grid);
+		grid.movables.remove(source);
+		multiPlayerFogOfWar.updateSight(grid);
+
+		assertEquals(0, multiPlayerFogOfWar.getVisibleStatus((byte) 1, 30, 30));
+	}
+
+	@Test
+	public void testSourcesOfUnknownPlayersAreIgnored() {
+		grid.addMovable(30, 30, 10, (byte) 7);
+		multiPlayerFogOfWar.updateSight(grid);
+
+		for (byte player = 0; player < PLAYERS; player++) {
+			assertEquals(0, multiPlayerFogOfWar.getVisibleStatus(player, 30, 30));
+		}
+	}
+
+	@Test
+	public void testMatchesSinglePlayerFogOfWar() {
+		FogOfWar[] singlePlayerFogOfWars = new FogOfWar[PLAYERS];
+		for (byte player = 0; player < PLAYERS; player++) {
+			singlePlayerFogOfWars[player] = new FogOfWar(WIDTH, HEIGHT, player);
+		}
+
+		Random random = new Random(123);
+		for (int i = 0; i < 40; i++) {
+			grid.addMovable(random.nextInt(WIDTH), random.nextInt(HEIGHT), 3 + random.nextInt(20), (byte) random.nextInt(PLAYERS));
+		}
+		for (int i = 0; i < 8; i++) {
+			grid.addBuilding(random.nextInt(WIDTH), random.nextInt(HEIGHT), 10 + random.nextInt(50), (byte) random.nextInt(PLAYERS));
+		}
+
+		for (int pass = 0; pass < 30; pass++) {
+			for (TestViewSource source : grid.movables) {
+				if (random.nextInt(3) == 0) {
+					source.pos = new ShortPoint2D(source.pos.x + random.nextInt(7) - 3, source.pos.y + random.nextInt(7) - 3);
+				}
+			}
+			if (random.nextInt(4) == 0) {
+				grid.movables.poll();
+			}
+
+			multiPlayerFogOfWar.updateSight(grid);
+			for (byte player = 0; player < PLAYERS; player++) {
+				FogOfWar singlePlayerFogOfWar = singlePlayerFogOfWars[player];
+				singlePlayerFogOfWar.updateSight(grid);
+
+				for (int y = 0; y < HEIGHT; y++) {
+					for (int x = 0; x < WIDTH; x++) {
+						boolean visible = singlePlayerFogOfWar.getVisibleStatus(x, y) >= CommonConstants.FOG_OF_WAR_VISIBLE;
+						assertEquals("pass " + pass + " player " + player + " x " + x + " y " + y, visible ? CommonConstants.FOG_OF_WAR_VISIBLE : 0,
+								multiPlayerFogOfWar.getVisibleStatus(player, x, y));
+					}
+				}
+			}
+		}
+	}
+}
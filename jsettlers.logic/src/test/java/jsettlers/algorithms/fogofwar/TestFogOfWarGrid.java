@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.position.ShortPoint2D;
+
+class TestFogOfWarGrid implements IFogOfWarGrid {
+	final ConcurrentLinkedQueue<TestViewSource> movables = new ConcurrentLinkedQueue<TestViewSource>();
+	final ConcurrentLinkedQueue<TestViewSource> buildings = new ConcurrentLinkedQueue<TestViewSource>();
+
+	TestViewSource addMovable(int x, int y, int viewDistance, byte player) {
+		TestViewSource source = new TestViewSource(x, y, viewDistance, player);
+		movables.add(source);
+		return source;
+	}
+
+	TestViewSource addBuilding(int x, int y, int viewDistance, byte player) {
+		TestViewSource source = new TestViewSource(x, y, viewDistance, player);
+		buildings.add(source);
+		return source;
+	}
+
+	@Override
+	public IMovable getMovableAt(short x, short y) {
+		return null;
+	}
+
+	@Override
+	public IMapObject getMapObjectsAt(short x, short y) {
+		return null;
+	}
+
+	@Override
+	public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+		return movables;
+	}
+
+	@Override
+	public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+		return buildings;
+	}
+
+	static class TestViewSource implements IViewDistancable {
+		private final byte player;
+		ShortPoint2D pos;
+		short viewDistance;
+
+		TestViewSource(int x, int y, int viewDistance, byte player) {
+			this.pos = new ShortPoint2D(x, y);
+			this.viewDistance = (short) viewDistance;
+			this.player = player;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return pos;
+		}
+
+		@Override
+		public byte getPlayerId() {
+			return player;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+}
@@ -27,7 +27,8 @@ public class BucketQueueAStarTest {
 	private static final short WIDTH = 200;
 	private static final short HEIGHT = 200;
 
-	private final AbstractAStar aStar = new BucketQueueAStar(new DummyEmptyAStarMap(WIDTH, HEIGHT), WIDTH, HEIGHT);
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final AbstractAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
 
 	@Test
 	public void testPathLengthSingle() {
@@ -58,6 +59,22 @@ public class BucketQueueAStarTest {
 		}
 	}
 
+	@Test
+	public void testConsecutiveSearchesAreIndependent() {
+		for (int y = 0; y < HEIGHT - 1; y++) {
+			map.setBlocked(100, y, true);
+		}
+
+		for (int i = 0; i < 10; i++) {
+			Path path = findPath((short) 90, (short) 50, (short) 110, (short) 50);
+			Path freshPath = new BucketQueueAStar(map, WIDTH, HEIGHT).findPath(getPathable((short) 90, (short) 50), new ShortPoint2D(110, 50));
+
+			assertEquals(freshPath.toString(), path.toString());
+			assertEquals(freshPath.getLength(), path.getLength());
+			assertEquals(null, findPath((short) 90, (short) 50, (short) 100, (short) 50)); // the target is blocked
+		}
+	}
+
 	private Path findPath(short sx, short sy, short tx, short ty) {
 		return aStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
 	}
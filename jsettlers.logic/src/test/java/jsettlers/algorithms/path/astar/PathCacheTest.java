@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.position.ShortPoint2D;
+
+public class PathCacheTest {
+
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final PathCache cache = new PathCache(new BucketQueueAStar(map, WIDTH, HEIGHT), WIDTH, HEIGHT);
+
+	@Test
+	public void testHitReturnsSamePathAsAStar() {
+		for (int y = 40; y < 60; y++) {
+			map.setBlocked(100, y, true);
+		}
+
+		Path firstPath = findPath(cache, 90, 50, 110, 50, false);
+		Path cachedPath = findPath(cache, 90, 50, 110, 50, false);
+		Path freshPath = findPath(new BucketQueueAStar(map, WIDTH, HEIGHT), 90, 50, 110, 50, false);
+
+		assertEquals(freshPath.toString(), firstPath.toString());
+		assertEquals(freshPath.toString(), cachedPath.toString());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getSize());
+	}
+
+	@Test
+	public void testReturnedPathsAreIndependent() {
+		Path path = findPath(cache, 10, 10, 20, 10, false);
+		while (!path.isFinished()) {
+			path.goToNextStep();
+		}
+
+		Path cachedPath = findPath(cache, 10, 10, 20, 10, false);
+		assertEquals(10, cachedPath.getLength());
+		assertEquals(11, cachedPath.nextX());
+	}
+
+	@Test
+	public void testBlockingChangeInSearchedAreaInvalidates() {
+		findPath(cache, 10, 10, 20, 10, false);
+
+		map.setBlocked(15, 10, true);
+		cache.invalidate(15, 10);
+
+		assertEquals(1, cache.getInvalidations());
+		assertEquals(0, cache.getSize());
+
+		Path path = findPath(cache, 10, 10, 20, 10, false);
+		Path freshPath = findPath(new BucketQueueAStar(map, WIDTH, HEIGHT), 10, 10, 20, 10, false);
+		assertEquals(freshPath.toString(), path.toString());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void testBlockingChangeOutsideOfSearchedAreaKeepsEntry() {
+		findPath(cache, 10, 10, 20, 10, false);
+
+		cache.invalidate(15, 150);
+		cache.invalidate(30, 10);
+
+		assertEquals(0, cache.getInvalidations());
+		assertEquals(1, cache.getSize());
+		findPath(cache, 10, 10, 20, 10, false);
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void testPlayerChangeOnlyInvalidatesPlayerDependentEntries() {
+		findPath(cache, 10, 10, 20, 10, false);
+		findPath(cache, 10, 10, 20, 10, true);
+		assertEquals(2, cache.getSize());
+
+		cache.invalidatePlayerDependent(15, 10);
+
+		assertEquals(1, cache.getInvalidations());
+		assertEquals(1, cache.getSize());
+		findPath(cache, 10, 10, 20, 10, false);
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	public void testPathsWithLargeSearchedAreasAreNotCached() {
+		for (int y = 0; y < HEIGHT - 1; y++) {
+			map.setBlocked(100, y, true);
+		}
+
+		findPath(cache, 90, 50, 110, 50, false);
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testNotFoundPathsAreNotCached() {
+		map.setBlocked(20, 10, true);
+
+		assertNull(findPath(cache, 10, 10, 20, 10, false));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testCapacityIsRespected() {
+		PathCache smallCache = new PathCache(new BucketQueueAStar(map, WIDTH, HEIGHT), WIDTH, HEIGHT, 4);
+		for (int i = 0; i < 10; i++) {
+			findPath(smallCache, 10, 10 + i, 20, 10, false);
+		}
+		assertEquals(4, smallCache.getSize());
+
+		findPath(smallCache, 10, 19, 20, 10, false);
+		assertEquals(1, smallCache.getHits());
+		findPath(smallCache, 10, 10, 20, 10, false);
+		assertEquals(11, smallCache.getMisses());
+	}
+
+	private static Path findPath(AbstractAStar aStar, int sx, int sy, int tx, int ty, boolean needsPlayersGround) {
+		return aStar.findPath(getPathable((short) sx, (short) sy, needsPlayersGround), new ShortPoint2D(tx, ty));
+	}
+
+	private static IPathCalculatable getPathable(final short x, final short y, final boolean needsPlayersGround) {
+		return new IPathCalculatable() {
+			private static final long serialVersionUID = 2361237396346232571L;
+
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return needsPlayersGround;
+			}
+		};
+	}
+}
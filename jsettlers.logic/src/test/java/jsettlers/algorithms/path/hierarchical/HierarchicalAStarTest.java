@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.hierarchical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.position.ShortPoint2D;
+
+public class HierarchicalAStarTest {
+
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 200;
+
+	private final DummyEmptyAStarMap map = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+	private final HierarchicalAStar aStar = createAStar(map);
+
+	@Test
+	public void testPathsOnEmptyMap() {
+		for (short sx = 5; sx < WIDTH; sx += 37) {
+			for (short sy = 3; sy < HEIGHT; sy += 41) {
+				for (short tx = 7; tx < WIDTH; tx += 43) {
+					for (short ty = 11; ty < HEIGHT; ty += 31) {
+						if (sx == tx && sy == ty) {
+							continue;
+						}
+
+						Path path = findPath(sx, sy, tx, ty);
+						assertValidPath(sx, sy, tx, ty, path);
+
+						int optimalLength = ShortPoint2D.getOnGridDist(tx - sx, ty - sy);
+						assertTrue("path too long: " + path.getLength() + " optimal: " + optimalLength, path.getLength() <= optimalLength * 1.2f + 4);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testPathThroughGapInWall() {
+		for (int y = 0; y < HEIGHT; y++) {
+			setBlocked(100, y, y != 170);
+		}
+
+		Path path = findPath((short) 20, (short) 20, (short) 180, (short) 20);
+		assertTrue(assertValidPath(20, 20, 180, 20, path).contains(new ShortPoint2D(100, 170)));
+	}
+
+	@Test
+	public void testBlockingChangesAreConsidered() {
+		Path path = findPath((short) 20, (short) 100, (short) 180, (short) 100);
+		assertFalse(assertValidPath(20, 100, 180, 100, path).contains(new ShortPoint2D(100, 30)));
+
+		for (int y = 0; y < HEIGHT; y++) {
+			setBlocked(100, y, y != 30);
+		}
+
+		path = findPath((short) 20, (short) 100, (short) 180, (short) 100);
+		assertTrue(assertValidPath(20, 100, 180, 100, path).contains(new ShortPoint2D(100, 30)));
+	}
+
+	@Test
+	public void testPathsIndependentOfUpdateHistory() {
+		findPath((short) 10, (short) 10, (short) 190, (short) 190);
+		for (int y = 20; y < 180; y++) {
+			setBlocked(50, y, true);
+		}
+		findPath((short) 10, (short) 10, (short) 190, (short) 190);
+		for (int y = 20; y < 180; y += 2) {
+			setBlocked(50, y, false);
+		}
+		for (int x = 60; x < 150; x++) {
+			setBlocked(x, 120, true);
+		}
+
+		HierarchicalAStar freshAStar = createAStar(map);
+		for (short sx = 10; sx < WIDTH; sx += 60) {
+			for (short ty = 15; ty < HEIGHT; ty += 60) {
+				Path expected = freshAStar.findPath(getPathable(sx, (short) 10), new ShortPoint2D(190, ty));
+				Path actual = aStar.findPath(getPathable(sx, (short) 10), new ShortPoint2D(190, ty));
+				assertEquals(expected.toString(), actual.toString());
+			}
+		}
+	}
+
+	private void setBlocked(int x, int y, boolean blocked) {
+		map.setBlocked(x, y, blocked);
+		aStar.blockingChanged(x, y, blocked);
+	}
+
+	/**
+	 * Asserts that the path is valid and returns its positions. NOTE: This moves the path to its end.
+	 */
+	private List<ShortPoint2D> assertValidPath(int sx, int sy, int tx, int ty, Path path) {
+		assertNotNull(path);
+		assertEquals(tx, path.getTargetX());
+		assertEquals(ty, path.getTargetY());
+
+		List<ShortPoint2D> positions = new ArrayList<ShortPoint2D>();
+		ShortPoint2D previous = new ShortPoint2D(sx, sy);
+		while (path.hasNextStep()) {
+			ShortPoint2D position = path.getNextPos();
+			assertNotNull("no neighbors: " + previous + " " + position, EDirection.getDirection(position.x - previous.x, position.y - previous.y));
+			assertFalse(map.isBlocked(null, position.x, position.y));
+			positions.add(position);
+			previous = position;
+			path.goToNextStep();
+		}
+		return positions;
+	}
+
+	private Path findPath(short sx, short sy, short tx, short ty) {
+		return aStar.findPath(getPathable(sx, sy), new ShortPoint2D(tx, ty));
+	}
+
+	private static HierarchicalAStar createAStar(final DummyEmptyAStarMap map) {
+		IBlockingProvider blockingProvider = new IBlockingProvider() {
+			@Override
+			public boolean isBlocked(int x, int y) {
+				return map.isBlocked(null, x, y);
+			}
+		};
+		return new HierarchicalAStar(map, blockingProvider, new BucketQueueAStar(map, WIDTH, HEIGHT), WIDTH, HEIGHT);
+	}
+
+	private static IPathCalculatable getPathable(final short x, final short y) {
+		return new IPathCalculatable() {
+			private static final long serialVersionUID = 2396418186389785208L;
+
+			@Override
+			public ShortPoint2D getPos() {
+				return new ShortPoint2D(x, y);
+			}
+
+			@Override
+			public byte getPlayerId() {
+				return 0;
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.ai;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jsettlers.ai.highlevel.AiMapSnapshot;
+import jsettlers.ai.highlevel.AiPositions;
+import jsettlers.ai.highlevel.AiStatistics;
+import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.mapobject.EMapObjectType;
+import jsettlers.common.menu.IStartedGame;
+import jsettlers.common.movable.EMovableType;
+import jsettlers.common.player.ECivilisation;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.network.client.OfflineNetworkConnector;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Checks that the incrementally updated {@link AiStatistics} are equal to statistics calculated from scratch while the AI players are changing
+ * the map. The {@link AiMapSnapshot} must give the same answers as the grids of the paused game.
+ */
+public class AiStatisticsIT {
+	private static final int MINUTES = 1000 * 60;
+	private static final int JUMP_FORWARD = 5 * MINUTES;
+	private static final int TARGET_GAME_TIME = 40 * MINUTES;
+	private static final int SAMPLE_POINTS_DISTANCE = 16;
+	private static final byte[] AI_PLAYERS = { 2, 8 };
+	private static final EBuildingType[] CHECKED_BUILDING_TYPES = { EBuildingType.TOWER, EBuildingType.FARM, EBuildingType.WINEGROWER,
+			EBuildingType.COALMINE };
+
+	@BeforeClass
+	public static void setupResources() {
+		CommonConstants.ENABLE_CONSOLE_LOGGING = true;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Test
+	public void testIncrementalStatisticsEqualFullyCalculatedStatistics() throws MapLoadException, InterruptedException {
+		PlayerSetting[] playerSettings = new PlayerSetting[12];
+		Arrays.fill(playerSettings, new PlayerSetting());
+		playerSettings[AI_PLAYERS[0]] = new PlayerSetting(EPlayerType.AI_VERY_HARD, ECivilisation.ROMAN, (byte) 0);
+		playerSettings[AI_PLAYERS[1]] = new PlayerSetting(EPlayerType.AI_HARD, ECivilisation.ROMAN, (byte) 1);
+
+		JSettlersGame game = new JSettlersGame(MapUtils.getSpezialSumpf(), 2L, new OfflineNetworkConnector(), (byte) 2, playerSettings);
+		JSettlersGame.GameRunner startingGame = (JSettlersGame.GameRunner) game.start();
+		IStartedGame startedGame = ReplayUtils.waitForGameStartup(startingGame);
+		MainGrid mainGrid = startingGame.getMainGrid();
+
+		AiStatistics incrementalStatistics = new AiStatistics(mainGrid);
+		incrementalStatistics.updateStatistics();
+
+		for (int targetGameTime = JUMP_FORWARD; targetGameTime <= TARGET_GAME_TIME; targetGameTime += JUMP_FORWARD) {
+			MatchConstants.clock().fastForwardTo(targetGameTime);
+			MatchConstants.clock().setPausing(true);
+			Thread.sleep(500); // let the running game steps finish
+
+			incrementalStatistics.updateStatistics();
+			AiStatistics fullStatistics = new AiStatistics(mainGrid);
+			fullStatistics.updateStatistics();
+			assertStatisticsEqual(mainGrid, fullStatistics, incrementalStatistics);
+			assertSnapshotEqualsGrid(mainGrid, incrementalStatistics);
+			fullStatistics.dispose();
+
+			MatchConstants.clock().setPausing(false);
+		}
+
+		ReplayUtils.awaitShutdown(startedGame);
+	}
+
+	private void assertStatisticsEqual(MainGrid mainGrid, AiStatistics expected, AiStatistics actual) {
+		for (byte playerId = 0; playerId < mainGrid.getPartitionsGrid().getNumberOfPlayers(); playerId++) {
+			assertPositionsEqual(expected.getLandForPlayer(playerId), actual.getLandForPlayer(playerId));
+			assertPositionsEqual(expected.getBorderLandNextToFreeLandForPlayer(playerId), actual.getBorderLandNextToFreeLandForPlayer(playerId));
+			assertPositionsEqual(expected.getStonesForPlayer(playerId), actual.getStonesForPlayer(playerId));
+			assertPositionsEqual(expected.getTreesForPlayer(playerId), actual.getTreesForPlayer(playerId));
+			assertPositionsEqual(expected.getRiversForPlayer(playerId), actual.getRiversForPlayer(playerId));
+			assertPositionsEqual(expected.getEnemiesInTownOf(playerId), actual.getEnemiesInTownOf(playerId));
+			assertEquals(expected.getTotalWineCountForPlayer(playerId), actual.getTotalWineCountForPlayer(playerId));
+
+			for (EMovableType movableType : EMovableType.VALUES) {
+				assertEquals(expected.getMovablePositionsByTypeForPlayer(movableType, playerId),
+						actual.getMovablePositionsByTypeForPlayer(movableType, playerId));
+			}
+		}
+
+		long[][] expectedCounts = expected.getAiMapInformation().resourceAndGrassCount;
+		long[][] actualCounts = actual.getAiMapInformation().resourceAndGrassCount;
+		for (int i = 0; i < expectedCounts.length; i++) {
+			assertArrayEquals(expectedCounts[i], actualCounts[i]);
+		}
+
+		for (int x = 0; x < mainGrid.getWidth(); x += SAMPLE_POINTS_DISTANCE) {
+			for (int y = 0; y < mainGrid.getHeight(); y += SAMPLE_POINTS_DISTANCE) {
+				ShortPoint2D point = new ShortPoint2D(x, y);
+				assertEquals(expected.getNearestCuttableObjectPointInDefaultPartitionFor(point, EMapObjectType.TREE_ADULT, Short.MAX_VALUE),
+						actual.getNearestCuttableObjectPointInDefaultPartitionFor(point, EMapObjectType.TREE_ADULT, Short.MAX_VALUE));
+				assertEquals(expected.getNearestCuttableObjectPointInDefaultPartitionFor(point, EMapObjectType.STONE, Short.MAX_VALUE),
+						actual.getNearestCuttableObjectPointInDefaultPartitionFor(point, EMapObjectType.STONE, Short.MAX_VALUE));
+				assertEquals(expected.getNearestRiverPointInDefaultPartitionFor(point, Short.MAX_VALUE),
+						actual.getNearestRiverPointInDefaultPartitionFor(point, Short.MAX_VALUE));
+				for (EResourceType resourceType : EResourceType.VALUES) {
+					assertEquals(expected.getNearestResourcePointInDefaultPartitionFor(point, resourceType, Short.MAX_VALUE),
+							actual.getNearestResourcePointInDefaultPartitionFor(point, resourceType, Short.MAX_VALUE));
+				}
+			}
+		}
+	}
+
+	private void assertSnapshotEqualsGrid(MainGrid mainGrid, AiStatistics statistics) {
+		AbstractConstructionMarkableMap constructionMarksGrid = mainGrid.getConstructionMarksGrid();
+		AiMapSnapshot mapSnapshot = statistics.getMapSnapshot();
+		for (byte playerId : AI_PLAYERS) {
+			for (ShortPoint2D point : statistics.getLandForPlayer(playerId)) {
+				assertEquals(playerId, mapSnapshot.getPlayerIdAt(point.x, point.y));
+				assertEquals(mainGrid.isCornPlantable(point), mapSnapshot.isCornPlantable(point));
+				assertEquals(mainGrid.isWinePlantable(point), mapSnapshot.isWinePlantable(point));
+				assertEquals(mainGrid.getPartitionsGrid().getTowerCountAt(point.x, point.y), mapSnapshot.getTowerCountAt(point.x, point.y));
+				for (EBuildingType buildingType : CHECKED_BUILDING_TYPES) {
+					assertEquals(constructionMarksGrid.canConstructAt(point.x, point.y, buildingType, playerId),
+							mapSnapshot.canConstructAt(point.x, point.y, buildingType, playerId));
+				}
+			}
+		}
+	}
+
+	private static void assertPositionsEqual(AiPositions expected, AiPositions actual) {
+		assertEquals(toList(expected), toList(actual));
+	}
+
+	private static List<ShortPoint2D> toList(AiPositions positions) {
+		List<ShortPoint2D> list = new ArrayList<ShortPoint2D>();
+		for (ShortPoint2D position : positions) {
+			list.add(position);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.ai;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.common.CommonConstants;
+import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.map.MapLoadException;
+import jsettlers.common.menu.IStartedGame;
+import jsettlers.common.player.ECivilisation;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.network.client.OfflineNetworkConnector;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Plays the same game with AI players evaluated on a worker pool twice. The AIs must make the same decisions at the same game times in both runs,
+ * so the replays of the games have to be identical.
+ */
+public class ConcurrentAiIT {
+	private static final int GAME_TIME = 20 * 60 * 1000;
+	private static final byte[] AI_PLAYERS = { 0, 2, 5, 8 };
+
+	static {
+		CommonConstants.ENABLE_CONSOLE_LOGGING = true;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	@Before
+	public void enableAiWorkerThreads() {
+		CommonConstants.AI_WORKER_THREADS = AI_PLAYERS.length;
+	}
+
+	@After
+	public void disableAiWorkerThreads() {
+		CommonConstants.AI_WORKER_THREADS = 0;
+	}
+
+	@Test
+	public void concurrentAisMakeTheSameDecisionsInEveryRun() throws MapLoadException {
+		byte[] firstReplay = playAiGame();
+		byte[] secondReplay = playAiGame();
+
+		assertTrue("the AIs did not schedule any tasks", firstReplay.length > 1000);
+		assertArrayEquals(firstReplay, secondReplay);
+	}
+
+	private byte[] playAiGame() throws MapLoadException {
+		PlayerSetting[] playerSettings = new PlayerSetting[12];
+		Arrays.fill(playerSettings, new PlayerSetting());
+		EPlayerType[] aiTypes = { EPlayerType.AI_VERY_HARD, EPlayerType.AI_HARD, EPlayerType.AI_EASY, EPlayerType.AI_VERY_EASY };
+		for (int i = 0; i < AI_PLAYERS.length; i++) {
+			playerSettings[AI_PLAYERS[i]] = new PlayerSetting(aiTypes[i], ECivilisation.ROMAN, AI_PLAYERS[i]);
+		}
+
+		final ByteArrayOutputStream replay = new ByteArrayOutputStream();
+		JSettlersGame game = new JSettlersGame(MapUtils.getSpezialSumpf(), 2L, new OfflineNetworkConnector(), AI_PLAYERS[0], playerSettings) {
+			@Override
+			protected OutputStream createReplayWriteStream() {
+				return replay;
+			}
+		};
+		IStartedGame startedGame = ReplayUtils.waitForGameStartup(game.start());
+
+		MatchConstants.clock().fastForwardTo(GAME_TIME);
+
+		ReplayUtils.awaitShutdown(startedGame);
+		return replay.toByteArray();
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.replay;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+import jsettlers.logic.constants.MatchConstants;
+
+/**
+ * Runs the {@link AutoReplayIT} with the parallel think phase enabled. The results must be identical to the ones of the serial execution.
+ */
+public class ParallelThinkingAutoReplayIT extends AutoReplayIT {
+
+	@BeforeClass
+	public static void enableParallelThinking() {
+		MatchConstants.PARALLEL_THINKING_THREADS = 4;
+	}
+
+	@AfterClass
+	public static void disableParallelThinking() {
+		MatchConstants.PARALLEL_THINKING_THREADS = 0;
+	}
+
+	public ParallelThinkingAutoReplayIT(AutoReplaySetting setting) {
+		super(setting);
+	}
+}
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import jsettlers.algorithms.queue.ITypeAcceptor;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList.IListedLocatable;
+import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList.IMovedVisitor;
+import jsettlers.testutils.TestUtils;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link PositionableList} against a linear search over an {@link ArrayList}.
+ */
+public class PositionableListTest {
+	private static final int MAP_SIZE = 300;
+
+	private final Random random = new Random(42);
+	private final PositionableList<TestObject> list = new PositionableList<TestObject>();
+	private final List<TestObject> reference = new ArrayList<TestObject>();
+
+	@Test
+	public void testEmptyList() {
+		assertTrue(list.isEmpty());
+		assertNull(list.getObjectCloseTo(pos(10, 10)));
+		assertNull(list.removeObjectNextTo(pos(10, 10)));
+		assertNull(list.getObjectAt(pos(10, 10)));
+	}
+
+	@Test
+	public void testRandomOperationsAgainstLinearSearch() {
+		for (int i = 0; i < 20000; i++) {
+			int operation = random.nextInt(10);
+			if (operation < 4 || reference.isEmpty()) {
+				insert(randomObject());
+			} else if (operation < 7) {
+				ShortPoint2D position = randomPosition();
+				ITypeAcceptor<TestObject> acceptor = randomAcceptor();
+				TestObject expected = findClosest(position, acceptor);
+				assertSame(expected, list.removeObjectNextTo(position, acceptor));
+				reference.remove(expected);
+			} else if (operation < 8) {
+				TestObject object = reference.remove(random.nextInt(reference.size()));
+				list.remove(object);
+			} else if (operation < 9) {
+				TestObject object = reference.get(random.nextInt(reference.size()));
+				object.position = near(object.position);
+				list.updatePosition(object, object.position);
+			} else {
+				ShortPoint2D position = randomPosition();
+				assertSame(findClosest(position, null), list.getObjectCloseTo(position));
+			}
+
+			assertEquals(reference.isEmpty(), list.isEmpty());
+		}
+		assertIterationOrder();
+	}
+
+	@Test
+	public void testTiesAreResolvedByInsertionOrder() {
+		TestObject first = insert(new TestObject(50, 50, 0));
+		TestObject second = insert(new TestObject(50, 50, 1));
+		for (int i = 0; i < 40; i++) {
+			insert(new TestObject(100 + i, 100, i));
+		}
+
+		assertSame(first, list.getObjectCloseTo(pos(50, 50)));
+		assertSame(first, list.getObjectAt(pos(50, 50)));
+		assertSame(first, list.removeObjectAt(pos(50, 50)));
+		assertSame(second, list.removeObjectNextTo(pos(51, 51)));
+	}
+
+	@Test
+	public void testAcceptorIsOnlyAskedForCloserObjects() {
+		for (int i = 0; i < 100; i++) {
+			insert(new TestObject(i * 3 % MAP_SIZE, i * 7 % MAP_SIZE, i));
+		}
+		final int[] calls = new int[1];
+		TestObject result = list.removeObjectNextTo(pos(150, 150), new ITypeAcceptor<TestObject>() {
+			@Override
+			public boolean accepts(TestObject object) {
+				calls[0]++;
+				return true;
+			}
+		});
+
+		assertSame(findClosest(pos(150, 150), null), result);
+		assertTrue(calls[0] < 100);
+	}
+
+	@Test
+	public void testMovedObjectsAreFoundAtTheirNewPosition() {
+		for (int i = 0; i < 50; i++) {
+			insert(new TestObject(10 + i, 10, i));
+		}
+		TestObject moved = reference.get(25);
+		moved.position = pos(250, 250);
+
+		assertSame(moved, list.getObjectCloseTo(pos(249, 249)));
+		assertNull(list.getObjectAt(pos(35, 10)));
+		assertSame(moved, list.getObjectAt(pos(250, 250)));
+	}
+
+	@Test
+	public void testMoveObjectsAtPositionToAndAddAll() {
+		for (int i = 0; i < 40; i++) {
+			insert(new TestObject(20 + i % 4, 20, i));
+		}
+
+		PositionableList<TestObject> newList = new PositionableList<TestObject>();
+		final List<TestObject> visited = new ArrayList<TestObject>();
+		list.moveObjectsAtPositionTo(pos(21, 20), newList, new IMovedVisitor<TestObject>() {
+			@Override
+			public void visit(TestObject moved) {
+				visited.add(moved);
+			}
+		});
+
+		List<TestObject> expected = new ArrayList<TestObject>();
+		for (TestObject object : reference) {
+			if (object.position.equals(pos(21, 20))) {
+				expected.add(object);
+			}
+		}
+		reference.removeAll(expected);
+		assertEquals(expected, visited);
+		assertEquals(expected, toList(newList));
+		assertIterationOrder();
+
+		list.addAll(newList);
+		reference.addAll(expected);
+		assertIterationOrder();
+		assertSame(expected.get(0), list.getObjectAt(pos(21, 20)));
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		for (int i = 0; i < 100; i++) {
+			insert(randomObject());
+		}
+
+		PositionableList<TestObject> readList = TestUtils.serializeAndDeserialize(list);
+
+		List<TestObject> readObjects = toList(readList);
+		assertEquals(reference.size(), readObjects.size());
+		for (int i = 0; i < reference.size(); i++) {
+			assertEquals(reference.get(i).id, readObjects.get(i).id);
+		}
+		ShortPoint2D position = pos(123, 45);
+		assertEquals(findClosest(position, null).id, readList.getObjectCloseTo(position).id);
+	}
+
+	@Test
+	public void testListedObjectsKnowTheirLists() {
+		for (int i = 0; i < 100; i++) {
+			insert(randomObject());
+		}
+		PositionableList<TestObject> otherList = new PositionableList<TestObject>();
+		ListedTestObject listed = new ListedTestObject(10, 10, 1000);
+		insert(listed);
+		otherList.insert(listed);
+		assertEquals(2, listed.lists.size());
+
+		otherList.remove(listed);
+		assertEquals(1, listed.lists.size());
+		assertSame(list, listed.lists.get(0));
+
+		ShortPoint2D position = pos(250, 250);
+		listed.moveTo(position);
+		assertSame(findClosest(position, null), list.getObjectCloseTo(position));
+		assertSame(listed, list.removeObjectAt(position));
+		assertTrue(listed.lists.isEmpty());
+	}
+
+	private TestObject insert(TestObject object) {
+		list.insert(object);
+		reference.add(object);
+		return object;
+	}
+
+	private TestObject findClosest(ShortPoint2D position, ITypeAcceptor<TestObject> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		TestObject best = null;
+		for (TestObject object : reference) {
+			if (acceptor != null && !acceptor.accepts(object)) {
+				continue;
+			}
+			int distance = MathUtils.squareHypot(position, object.position);
+			if (distance < bestDistance) {
+				bestDistance = distance;
+				best = object;
+			}
+		}
+		return best;
+	}
+
+	private void assertIterationOrder() {
+		assertEquals(reference, toList(list));
+	}
+
+	private static List<TestObject> toList(PositionableList<TestObject> list) {
+		List<TestObject> result = new ArrayList<TestObject>();
+		Iterator<TestObject> iterator = list.iterator();
+		while (iterator.hasNext()) {
+			result.add(iterator.next());
+		}
+		return result;
+	}
+
+	private ITypeAcceptor<TestObject> randomAcceptor() {
+		if (random.nextBoolean()) {
+			return null;
+		}
+		final int modulo = 2 + random.nextInt(3);
+		return new ITypeAcceptor<TestObject>() {
+			@Override
+			public boolean accepts(TestObject object) {
+				return object.id % modulo == 0;
+			}
+		};
+	}
+
+	private TestObject randomObject() {
+		return new TestObject(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE), random.nextInt(1000));
+	}
+
+	private ShortPoint2D randomPosition() {
+		return pos(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+	}
+
+	private ShortPoint2D near(ShortPoint2D position) {
+		int x = Math.max(0, Math.min(MAP_SIZE - 1, position.x + random.nextInt(41) - 20));
+		int y = Math.max(0, Math.min(MAP_SIZE - 1, position.y + random.nextInt(41) - 20));
+		return pos(x, y);
+	}
+
+	private static ShortPoint2D pos(int x, int y) {
+		return new ShortPoint2D(x, y);
+	}
+
+	private static class TestObject implements ILocatable, Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private ShortPoint2D position;
+
+		TestObject(int x, int y, int id) {
+			this.position = pos(x, y);
+			this.id = id;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public String toString() {
+			return id + "@" + position;
+		}
+	}
+
+	private static class ListedTestObject extends TestObject implements IListedLocatable {
+		private static final long serialVersionUID = 1L;
+
+		private final List<PositionableList<?>> lists = new ArrayList<PositionableList<?>>();
+
+		ListedTestObject(int x, int y, int id) {
+			super(x, y, id);
+		}
+
+		void moveTo(ShortPoint2D position) {
+			super.position = position;
+			for (PositionableList<?> list : lists) {
+				list.updatePosition(this, position);
+			}
+		}
+
+		@Override
+		public void addedToList(PositionableList<?> list) {
+			lists.add(list);
+		}
+
+		@Override
+		public void removedFromList(PositionableList<?> list) {
+			lists.remove(list);
+		}
+	}
+}
@@ -14,7 +14,9 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.partition.manager.materials;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
@@ -26,6 +28,8 @@ public class JoblessSupplierMock implements IJoblessSupplier {
 	private static final long serialVersionUID = -4698558305428775896L;
 
 	private LinkedList<IManagerBearer> jobless = new LinkedList<IManagerBearer>();
+	private int deliveries;
+	private final Map<IMaterialRequest, ShortPoint2D> offerPositionsByRequest = new IdentityHashMap<IMaterialRequest, ShortPoint2D>();
 
 	public void addJoblessAt(final ShortPoint2D pos) {
 		jobless.add(new IManagerBearer() {
@@ -40,6 +44,8 @@ public class JoblessSupplierMock implements IJoblessSupplier {
 			public boolean deliver(EMaterialType materialType, ShortPoint2D offerPosition, IMaterialRequest request) {
 				request.deliveryAccepted();
 				request.deliveryFulfilled();
+				deliveries++;
+				offerPositionsByRequest.put(request, offerPosition);
 				return true;
 			}
 		});
@@ -63,7 +69,20 @@ public class JoblessSupplierMock implements IJoblessSupplier {
 			}
 		}
 
+		jobless.remove(closest);
 		return closest;
 	}
 
+	public int getNumberOfJobless() {
+		return jobless.size();
+	}
+
+	public int getDeliveries() {
+		return deliveries;
+	}
+
+	public ShortPoint2D getOfferPositionDeliveredTo(IMaterialRequest request) {
+		return offerPositionsByRequest.get(request);
+	}
+
 }
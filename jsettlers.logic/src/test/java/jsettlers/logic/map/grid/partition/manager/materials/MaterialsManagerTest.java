@@ -14,14 +14,20 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.partition.manager.materials;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.IOException;
 
 import jsettlers.testutils.TestUtils;
+import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.partition.manager.materials.requests.MaterialRequestObject;
 import jsettlers.logic.map.grid.partition.manager.materials.offers.OffersList;
 import jsettlers.logic.map.grid.partition.manager.settings.PartitionManagerSettings;
 
+import org.junit.After;
 import org.junit.Test;
 
 /**
@@ -48,8 +54,131 @@ public class MaterialsManagerTest {
 		TestUtils.serializeAndDeserialize(manager);
 	}
 
+	@After
+	public void resetDistributionBatchSize() {
+		MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE = 1;
+	}
+
+	@Test
+	public void testOneJobPerMaterialWithoutBatch() {
+		setUpPlanksAndStones(10, 20);
+
+		manager.distributeJobs();
+
+		assertEquals(2, joblessSupplier.getDeliveries());
+		assertEquals(18, joblessSupplier.getNumberOfJobless());
+	}
+
+	@Test
+	public void testBatchAssignsSeveralJobsPerMaterial() {
+		setUpPlanksAndStones(10, 20);
+		MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE = 4;
+
+		manager.distributeJobs();
+
+		assertEquals(8, joblessSupplier.getDeliveries());
+		assertEquals(12, joblessSupplier.getNumberOfJobless());
+	}
+
+	@Test
+	public void testBatchStopsWhenRequestsAreFulfilled() {
+		setUpPlanksAndStones(3, 20);
+		MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE = 100;
+
+		manager.distributeJobs();
+
+		assertEquals(6, joblessSupplier.getDeliveries());
+		assertEquals(14, joblessSupplier.getNumberOfJobless());
+		assertEquals(7, offersList.getAmountOf(EMaterialType.PLANK));
+		assertEquals(7, offersList.getAmountOf(EMaterialType.STONE));
+	}
+
+	@Test
+	public void testBatchGivesBackOffersWhenJoblessAreUsedUp() {
+		setUpPlanksAndStones(10, 5);
+		MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE = 100;
+
+		manager.distributeJobs();
+
+		assertEquals(5, joblessSupplier.getDeliveries());
+		assertEquals(0, joblessSupplier.getNumberOfJobless());
+		assertEquals(15, offersList.getAmountOf(EMaterialType.PLANK) + offersList.getAmountOf(EMaterialType.STONE));
+	}
+
+	@Test
+	public void testBatchMatchesClosestPairsFirst() {
+		offersList.addOffer(pos(13, 10), EMaterialType.PLANK);
+		offersList.addOffer(pos(30, 10), EMaterialType.PLANK);
+		TestMaterialRequest highestRequest = new TestMaterialRequest(pos(20, 10), 1);
+		TestMaterialRequest closeRequest = new TestMaterialRequest(pos(10, 10), 1);
+		manager.addRequestObject(EMaterialType.PLANK, highestRequest);
+		manager.addRequestObject(EMaterialType.PLANK, closeRequest);
+		joblessSupplier.addJoblessAt(pos(20, 20));
+		joblessSupplier.addJoblessAt(pos(21, 20));
+		MatchConstants.MATERIAL_DISTRIBUTION_BATCH_SIZE = 2;
+
+		manager.distributeJobs();
+
+		// one job at a time would give the offer at (13, 10) to the highest request and send the other bearer 20 steps to the close request
+		assertEquals(pos(30, 10), joblessSupplier.getOfferPositionDeliveredTo(highestRequest));
+		assertEquals(pos(13, 10), joblessSupplier.getOfferPositionDeliveredTo(closeRequest));
+	}
+
+	private void setUpPlanksAndStones(int requested, int jobless) {
+		for (int i = 0; i < 10; i++) {
+			offersList.addOffer(pos(20, 20), EMaterialType.PLANK);
+			offersList.addOffer(pos(25, 20), EMaterialType.STONE);
+		}
+		manager.addRequestObject(EMaterialType.PLANK, new TestMaterialRequest(pos(40, 40), requested));
+		manager.addRequestObject(EMaterialType.STONE, new TestMaterialRequest(pos(40, 40), requested));
+		for (int i = 0; i < jobless; i++) {
+			joblessSupplier.addJoblessAt(pos(10 + i, 10));
+		}
+	}
+
 	private ShortPoint2D pos(int x, int y) {
 		return new ShortPoint2D(x, y);
 	}
 
+	private static class TestMaterialRequest extends MaterialRequestObject {
+		private static final long serialVersionUID = 1L;
+
+		private final ShortPoint2D position;
+		private short stillRequired;
+
+		TestMaterialRequest(ShortPoint2D position, int stillRequired) {
+			this.position = position;
+			this.stillRequired = (short) stillRequired;
+		}
+
+		@Override
+		protected short getStillNeeded() {
+			return (short) (stillRequired - getInDelivery());
+		}
+
+		@Override
+		protected int getInDeliveryable() {
+			return Short.MAX_VALUE;
+		}
+
+		@Override
+		protected void materialDelivered() {
+			stillRequired--;
+		}
+
+		@Override
+		protected boolean isRoundRobinRequest() {
+			return false;
+		}
+
+		@Override
+		protected EBuildingType getBuildingType() {
+			return null;
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+	}
 }
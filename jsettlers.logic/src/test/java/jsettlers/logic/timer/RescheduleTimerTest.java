@@ -0,0 +1,323 @@
+/*******************************************************************************
+ * Copyright (c) 2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.common.map.MapLoadException;
+import jsettlers.logic.constants.MatchConstants;
+
+public class RescheduleTimerTest {
+	private static final int TIME_SLICE = 25;
+
+	private final List<String> executions = new ArrayList<String>();
+	private int tick;
+
+	@Before
+	@After
+	public void clearTimer() {
+		RescheduleTimer.stopAndClear();
+		MatchConstants.PARALLEL_THINKING_THREADS = 0;
+	}
+
+	@Test
+	public void testExecutionOrderMatchesScheduleOrder() {
+		assertExecutionOrderMatchesReference(2000, 4711, 40000, 600000);
+	}
+
+	@Test
+	public void testExecutionOrderWithDelaysOfHours() {
+		assertExecutionOrderMatchesReference(200, 42, 800000, 5 * 60 * 60 * 1000);
+	}
+
+	private void assertExecutionOrderMatchesReference(int numberOfTimerables, long seed, int ticks, int maxLongDelay) {
+		List<TestTimerable> timerables = createTimerables(numberOfTimerables, seed, maxLongDelay);
+		for (TestTimerable timerable : timerables) {
+			RescheduleTimer.add(timerable, timerable.nextDelay());
+		}
+		RescheduleTimer timer = RescheduleTimer.get();
+		for (tick = 0; tick < ticks; tick++) {
+			timer.timerEvent();
+		}
+		List<String> actual = new ArrayList<String>(executions);
+
+		executions.clear();
+		simulateReference(createTimerables(numberOfTimerables, seed, maxLongDelay), ticks);
+
+		assertTrue(actual.size() > 10000);
+		assertEquals(executions, actual);
+	}
+
+	@Test
+	public void testLoadedTimerContinuesInScheduleOrder() throws IOException, MapLoadException, ClassNotFoundException {
+		List<String> expected = runSavableTimerables(false);
+		RescheduleTimer.stopAndClear();
+		assertEquals(expected, runSavableTimerables(true));
+	}
+
+	private List<String> runSavableTimerables(boolean saveAndLoad) throws IOException, MapLoadException, ClassNotFoundException {
+		Recorder recorder = new Recorder();
+		for (TestTimerable timerable : createTimerables(500, 4711, 600000)) {
+			SavableTimerable savable = new SavableTimerable(recorder, timerable.id, timerable.delays);
+			RescheduleTimer.add(savable, savable.nextDelay());
+		}
+
+		for (recorder.tick = 0; recorder.tick < 100000; recorder.tick++) {
+			if (saveAndLoad && recorder.tick == 50000) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				ObjectOutputStream oos = new ObjectOutputStream(bytes);
+				RescheduleTimer.saveTo(oos);
+				oos.writeObject(recorder);
+				oos.close();
+
+				ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+				RescheduleTimer.loadFrom(ois);
+				recorder = (Recorder) ois.readObject();
+			}
+			RescheduleTimer.get().timerEvent();
+		}
+
+		assertTrue(recorder.executions.size() > 10000);
+		return recorder.executions;
+	}
+
+	@Test
+	public void testDelaysLongerThan32Seconds() {
+		TestTimerable timerable = new TestTimerable(0, new int[] { 10 * 60 * 1000, -1 });
+		RescheduleTimer.add(timerable, 45 * 1000);
+		RescheduleTimer timer = RescheduleTimer.get();
+
+		for (tick = 0; tick < 60000; tick++) {
+			timer.timerEvent();
+		}
+
+		assertEquals(2, executions.size());
+		assertEquals((45 * 1000 / TIME_SLICE) + ":0", executions.get(0));
+		assertEquals((45 * 1000 / TIME_SLICE + 10 * 60 * 1000 / TIME_SLICE) + ":0", executions.get(1));
+		assertEquals(0, timer.size());
+	}
+
+	@Test
+	public void testCrashingTimerableIsKilled() {
+		final boolean[] killed = new boolean[1];
+		RescheduleTimer.add(new IScheduledTimerable() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public int timerEvent() {
+				throw new IllegalStateException("expected by test");
+			}
+
+			@Override
+			public void kill() {
+				killed[0] = true;
+			}
+		}, TIME_SLICE);
+		RescheduleTimer timer = RescheduleTimer.get();
+		assertEquals(1, timer.size());
+
+		timer.timerEvent();
+		timer.timerEvent();
+
+		assertTrue(killed[0]);
+		assertEquals(0, timer.size());
+	}
+
+	@Test
+	public void testThinkPhaseRunsBeforeTimerEventsOfTick() {
+		MatchConstants.PARALLEL_THINKING_THREADS = 4;
+		final Set<String> thinkingThreads = Collections.synchronizedSet(new HashSet<String>());
+		final List<Integer> executionOrder = new ArrayList<Integer>();
+
+		for (int i = 0; i < 200; i++) {
+			final int id = i;
+			RescheduleTimer.add(new IThinkingTimerable() {
+				private static final long serialVersionUID = 1L;
+				private volatile boolean thought = false;
+
+				@Override
+				public void think() {
+					thinkingThreads.add(Thread.currentThread().getName());
+					thought = true;
+				}
+
+				@Override
+				public int timerEvent() {
+					assertTrue(thought);
+					for (String thread : thinkingThreads) {
+						assertTrue(thread.startsWith("ParallelThinker"));
+					}
+					thought = false;
+					executionOrder.add(id);
+					return -1;
+				}
+
+				@Override
+				public void kill() {
+					throw new AssertionError("timerable must not crash");
+				}
+			}, TIME_SLICE);
+		}
+
+		RescheduleTimer timer = RescheduleTimer.get();
+		timer.timerEvent();
+		timer.timerEvent();
+
+		assertEquals(200, executionOrder.size());
+		for (int i = 0; i < executionOrder.size(); i++) {
+			assertEquals(i, (int) executionOrder.get(i));
+		}
+		assertTrue(thinkingThreads.size() >= 1);
+	}
+
+	private List<TestTimerable> createTimerables(int count, long seed, int maxLongDelay) {
+		Random random = new Random(seed);
+		List<TestTimerable> timerables = new ArrayList<TestTimerable>();
+		for (int i = 0; i < count; i++) {
+			int[] delays = new int[20];
+			for (int j = 0; j < delays.length; j++) {
+				int type = random.nextInt(100);
+				if (type < 60) {
+					delays[j] = random.nextInt(500) + 1;
+				} else if (type < 85) {
+					delays[j] = random.nextInt(10000) + 1;
+				} else if (type < 99) {
+					delays[j] = random.nextInt(maxLongDelay) + 1;
+				} else {
+					delays[j] = random.nextInt(3) - 1;
+				}
+			}
+			timerables.add(new TestTimerable(i, delays));
+		}
+		return timerables;
+	}
+
+	/**
+	 * Simple implementation of the expected behavior: Timerables are executed in the tick they are scheduled for in the order they have been
+	 * scheduled.
+	 */
+	private void simulateReference(List<TestTimerable> timerables, int ticks) {
+		TreeMap<Integer, List<TestTimerable>> schedule = new TreeMap<Integer, List<TestTimerable>>();
+		tick = 0;
+		for (TestTimerable timerable : timerables) {
+			scheduleReference(schedule, timerable, timerable.nextDelay());
+		}
+
+		for (tick = 0; tick < ticks; tick++) {
+			List<TestTimerable> current = schedule.remove(tick);
+			if (current != null) {
+				for (TestTimerable timerable : current) {
+					scheduleReference(schedule, timerable, timerable.timerEvent());
+				}
+			}
+		}
+	}
+
+	private void scheduleReference(Map<Integer, List<TestTimerable>> schedule, TestTimerable timerable, int delay) {
+		if (delay <= 0) {
+			return;
+		}
+		int dueTick = tick + Math.max(1, delay / TIME_SLICE);
+		List<TestTimerable> list = schedule.get(dueTick);
+		if (list == null) {
+			list = new ArrayList<TestTimerable>();
+			schedule.put(dueTick, list);
+		}
+		list.add(timerable);
+	}
+
+	private class TestTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final int id;
+		private final int[] delays;
+		private int delayIdx = 0;
+
+		TestTimerable(int id, int[] delays) {
+			this.id = id;
+			this.delays = delays;
+		}
+
+		int nextDelay() {
+			return delays[delayIdx++ % delays.length];
+		}
+
+		@Override
+		public int timerEvent() {
+			executions.add(tick + ":" + id);
+			return nextDelay();
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+
+	private static class Recorder implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		final List<String> executions = new ArrayList<String>();
+		int tick;
+	}
+
+	private static class SavableTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final Recorder recorder;
+		private final int id;
+		private final int[] delays;
+		private int delayIdx = 0;
+
+		SavableTimerable(Recorder recorder, int id, int[] delays) {
+			this.recorder = recorder;
+			this.id = id;
+			this.delays = delays;
+		}
+
+		int nextDelay() {
+			return delays[delayIdx++ % delays.length];
+		}
+
+		@Override
+		public int timerEvent() {
+			recorder.executions.add(recorder.tick + ":" + id);
+			return nextDelay();
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+}
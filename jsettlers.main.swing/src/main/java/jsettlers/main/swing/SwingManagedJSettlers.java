@@ -78,6 +78,10 @@ public class SwingManagedJSettlers {
 			CommonConstants.FIXED_AI_TYPE = EPlayerType.valueOf(options.getProperty("fixed-ai-type"));
 		}
 
+		if (options.containsKey("ai-worker-threads")) {
+			CommonConstants.AI_WORKER_THREADS = Integer.parseInt(options.getProperty("ai-worker-threads"));
+		}
+
 		if (options.isOptionSet("localhost")) {
 			CommonConstants.DEFAULT_SERVER_ADDRESS = "localhost";
 		}
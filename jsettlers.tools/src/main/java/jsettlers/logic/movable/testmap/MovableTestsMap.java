@@ -166,6 +166,21 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 			return aStar.findPath(pathRequester, targetPos);
 		}
 
+		@Override
+		public Path preparePathTo(IPathCalculatable pathCalculatable, ShortPoint2D targetPos) {
+			return null;
+		}
+
+		@Override
+		public boolean canPreparePaths() {
+			return false;
+		}
+
+		@Override
+		public int getPathfinderVersion() {
+			return 0;
+		}
+
 		@Override
 		public void addJobless(IManageableBearer bearer) {
 			if (!materials.isEmpty()) {